@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.benchmark;
+
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import android.support.v7.widget.RecyclerView;
+import android.util.Pair;
+import android.view.ViewGroup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DelegateAdapter#findAdapterByPosition(int)}, called for every item type, bind and id lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DelegateAdapterBenchmark {
+
+    private static final int ITEMS_PER_ADAPTER = 8;
+
+    @Param({"10", "100", "1000"})
+    public int adapterCount;
+
+    private DelegateAdapter mAdapter;
+
+    private int[] mRandomPositions;
+
+    private int mItemCount;
+
+    private int mCursor;
+
+    @Setup
+    public void setUp() {
+        // VirtualLayoutManager doesn't use context until it's attached
+        mAdapter = new DelegateAdapter(new VirtualLayoutManager(null));
+        List<DelegateAdapter.Adapter> adapters = new ArrayList<>(adapterCount);
+        for (int i = 0; i < adapterCount; i++) {
+            adapters.add(new FixedAdapter());
+        }
+        mAdapter.setAdapters(adapters);
+        mItemCount = adapterCount * ITEMS_PER_ADAPTER;
+
+        Random random = new Random(42);
+        mRandomPositions = new int[1024];
+        for (int i = 0; i < mRandomPositions.length; i++) {
+            mRandomPositions[i] = random.nextInt(mItemCount);
+        }
+    }
+
+    @Benchmark
+    public Pair sequential() {
+        mCursor = mCursor + 1 == mItemCount ? 0 : mCursor + 1;
+        return mAdapter.findAdapterByPosition(mCursor);
+    }
+
+    @Benchmark
+    public Pair random() {
+        mCursor = (mCursor + 1) & (mRandomPositions.length - 1);
+        return mAdapter.findAdapterByPosition(mRandomPositions[mCursor]);
+    }
+
+    @Benchmark
+    public int itemViewType() {
+        mCursor = (mCursor + 1) & (mRandomPositions.length - 1);
+        return mAdapter.getItemViewType(mRandomPositions[mCursor]);
+    }
+
+    private static class FixedAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return new LinearLayoutHelper();
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEMS_PER_ADAPTER;
+        }
+    }
+}
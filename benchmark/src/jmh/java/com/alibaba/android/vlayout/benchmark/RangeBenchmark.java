@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.benchmark;
+
+import com.alibaba.android.vlayout.Range;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Range} operations on boxed positions, as used by layoutHelpers and VirtualLayoutManager.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RangeBenchmark {
+
+    private Range<Integer> mRange;
+
+    private Range<Integer> mOther;
+
+    private int mPosition;
+
+    @Setup
+    public void setUp() {
+        mRange = Range.create(100, 200);
+        mOther = Range.create(150, 300);
+    }
+
+    @Benchmark
+    public Range<Integer> create() {
+        mPosition = (mPosition + 1) & 1023;
+        return Range.create(mPosition, mPosition + 10);
+    }
+
+    @Benchmark
+    public boolean containsValue() {
+        mPosition = (mPosition + 1) & 255;
+        return mRange.contains(mPosition);
+    }
+
+    @Benchmark
+    public boolean containsRange() {
+        return mRange.contains(mOther);
+    }
+
+    @Benchmark
+    public Range<Integer> intersect() {
+        return mRange.intersect(mOther);
+    }
+
+    @Benchmark
+    public Range<Integer> extend() {
+        return mRange.extend(mOther);
+    }
+
+    @Benchmark
+    public boolean equalsRange() {
+        return mRange.equals(mOther);
+    }
+}
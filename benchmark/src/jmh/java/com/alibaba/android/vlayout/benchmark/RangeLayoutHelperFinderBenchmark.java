@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.benchmark;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.RangeLayoutHelperFinder;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RangeLayoutHelperFinder#getLayoutHelper(int)} with positions in order, as in scrolling, and at random,
+ * as in jumps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RangeLayoutHelperFinderBenchmark {
+
+    private static final int ITEMS_PER_HELPER = 8;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int helperCount;
+
+    private RangeLayoutHelperFinder mFinder;
+
+    private int[] mRandomPositions;
+
+    private int mItemCount;
+
+    private int mCursor;
+
+    @Setup
+    public void setUp() {
+        List<LayoutHelper> helpers = new ArrayList<>(helperCount);
+        for (int i = 0; i < helperCount; i++) {
+            LinearLayoutHelper helper = new LinearLayoutHelper();
+            helper.setItemCount(ITEMS_PER_HELPER);
+            helper.setRange(i * ITEMS_PER_HELPER, (i + 1) * ITEMS_PER_HELPER - 1);
+            helpers.add(helper);
+        }
+        mFinder = new RangeLayoutHelperFinder();
+        mFinder.setLayouts(helpers);
+        mItemCount = helperCount * ITEMS_PER_HELPER;
+
+        Random random = new Random(42);
+        mRandomPositions = new int[1024];
+        for (int i = 0; i < mRandomPositions.length; i++) {
+            mRandomPositions[i] = random.nextInt(mItemCount);
+        }
+    }
+
+    @Benchmark
+    public LayoutHelper sequential() {
+        mCursor = mCursor + 1 == mItemCount ? 0 : mCursor + 1;
+        return mFinder.getLayoutHelper(mCursor);
+    }
+
+    @Benchmark
+    public LayoutHelper random() {
+        mCursor = (mCursor + 1) & (mRandomPositions.length - 1);
+        return mFinder.getLayoutHelper(mRandomPositions[mCursor]);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.benchmark;
+
+import com.alibaba.android.vlayout.SortedList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SortedList} lookups and updates at different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SortedListBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private SortedList<Integer> mList;
+
+    private Integer[] mItems;
+
+    private int mCursor;
+
+    @Setup
+    public void setUp() {
+        mList = new SortedList<>(Integer.class, new SortedList.Callback<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return o1.compareTo(o2);
+            }
+
+            @Override
+            public void onInserted(int position, int count) {
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+            }
+
+            @Override
+            public boolean areContentsTheSame(Integer oldItem, Integer newItem) {
+                return oldItem.equals(newItem);
+            }
+
+            @Override
+            public boolean areItemsTheSame(Integer item1, Integer item2) {
+                return item1.equals(item2);
+            }
+        }, size);
+
+        // even values are in list, odd values are used to add and remove
+        mItems = new Integer[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            mList.add(i * 2);
+            mItems[i] = random.nextInt(size) * 2;
+        }
+    }
+
+    @Benchmark
+    public int indexOf() {
+        mCursor = mCursor + 1 == size ? 0 : mCursor + 1;
+        return mList.indexOf(mItems[mCursor]);
+    }
+
+    @Benchmark
+    public Integer get() {
+        mCursor = mCursor + 1 == size ? 0 : mCursor + 1;
+        return mList.get(mCursor);
+    }
+
+    @Benchmark
+    public boolean addAndRemove() {
+        mCursor = mCursor + 1 == size ? 0 : mCursor + 1;
+        Integer item = mItems[mCursor] + 1;
+        mList.add(item);
+        return mList.remove(item);
+    }
+}
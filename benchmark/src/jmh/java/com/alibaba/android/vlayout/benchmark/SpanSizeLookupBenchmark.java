@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.benchmark;
+
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GridLayoutHelper.SpanSizeLookup} span index and span group computation, with and without span index cache,
+ * for items of mixed span sizes at random positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpanSizeLookupBenchmark {
+
+    private static final int SPAN_COUNT = 4;
+
+    @Param({"100", "1000", "10000"})
+    public int itemCount;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private GridLayoutHelper.SpanSizeLookup mLookup;
+
+    private int[] mPositions;
+
+    private int mCursor;
+
+    @Setup
+    public void setUp() {
+        mLookup = new GridLayoutHelper.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                // a full row every 9 items, a double item every 3 items
+                return position % 9 == 0 ? SPAN_COUNT : (position % 3 == 0 ? 2 : 1);
+            }
+        };
+        mLookup.setSpanIndexCacheEnabled(cache);
+
+        Random random = new Random(42);
+        mPositions = new int[1024];
+        for (int i = 0; i < mPositions.length; i++) {
+            mPositions[i] = random.nextInt(itemCount);
+        }
+    }
+
+    @Benchmark
+    public int spanIndex() {
+        mCursor = (mCursor + 1) & (mPositions.length - 1);
+        return mLookup.getSpanIndex(mPositions[mCursor], SPAN_COUNT);
+    }
+
+    @Benchmark
+    public int spanGroupIndex() {
+        mCursor = (mCursor + 1) & (mPositions.length - 1);
+        return mLookup.getCachedSpanGroupIndex(mPositions[mCursor], SPAN_COUNT);
+    }
+}
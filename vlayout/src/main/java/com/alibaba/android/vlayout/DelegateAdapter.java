@@ -32,6 +32,8 @@ import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.alibaba.android.vlayout.extend.FrameMonitor;
+import com.alibaba.android.vlayout.extend.PerformanceMetrics;
 import com.alibaba.android.vlayout.layout.SingleLayoutHelper;
 
 import java.util.ArrayList;
@@ -49,7 +51,8 @@ import static android.support.v7.widget.RecyclerView.NO_ID;
  * @author villadora
  * @since 1.0.0
  */
-public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolder> {
+public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolder>
+        implements VirtualLayoutManager.ContentVersionProvider {
 
     @Nullable
     private AtomicInteger mIndexGen;
@@ -103,11 +106,28 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
 
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        final PerformanceMetrics metrics = mLayoutManager.getPerformanceMetrics();
+        final FrameMonitor frameMonitor = mLayoutManager.getFrameMonitor();
+        if (metrics == null && frameMonitor == null) {
+            return doCreateViewHolder(parent, viewType);
+        }
+        final long start = System.nanoTime();
+        final RecyclerView.ViewHolder holder = doCreateViewHolder(parent, viewType);
+        final long nanos = System.nanoTime() - start;
+        if (metrics != null) {
+            metrics.record(PerformanceMetrics.PHASE_CREATE, null, viewType, nanos);
+        }
+        if (frameMonitor != null) {
+            frameMonitor.onCreate(nanos);
+        }
+        return holder;
+    }
 
+    private RecyclerView.ViewHolder doCreateViewHolder(ViewGroup parent, int viewType) {
         if (mHasConsistItemType) {
             Adapter adapter = mItemTypeAry.get(viewType);
             if (adapter != null) {
-                return adapter.onCreateViewHolder(parent, viewType);
+                return createSubViewHolder(adapter, parent, viewType);
             }
 
             return null;
@@ -125,30 +145,77 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
             return null;
         }
 
-        return adapter.onCreateViewHolder(parent, subItemType);
+        return createSubViewHolder(adapter, parent, subItemType);
+    }
+
+    private RecyclerView.ViewHolder createSubViewHolder(Adapter adapter, ViewGroup parent, int viewType) {
+        final boolean traced = LayoutTraceSections.beginAdapter(LayoutTraceSections.CREATE, adapter);
+        try {
+            return adapter.onCreateViewHolder(parent, viewType);
+        } finally {
+            if (traced) {
+                LayoutTraceSections.end();
+            }
+        }
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        final FrameMonitor frameMonitor = mLayoutManager.getFrameMonitor();
+        final long dispatchStart = frameMonitor != null ? System.nanoTime() : 0;
         Pair<AdapterDataObserver, Adapter> pair = findAdapterByPosition(position);
         if (pair == null) {
             return;
         }
 
-        pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition);
-        pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position);
+        final PerformanceMetrics metrics = mLayoutManager.getPerformanceMetrics();
+        final long start = metrics != null ? System.nanoTime() : 0;
+        final boolean traced = LayoutTraceSections.beginAdapter(LayoutTraceSections.BIND, pair.second);
+        try {
+            pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition);
+            pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position);
+        } finally {
+            if (traced) {
+                LayoutTraceSections.end();
+            }
+        }
+        if (metrics != null) {
+            metrics.record(PerformanceMetrics.PHASE_BIND, mLayoutManager.findLayoutHelperByPosition(position),
+                    holder.getItemViewType(), System.nanoTime() - start);
+        }
+        if (frameMonitor != null) {
+            frameMonitor.onBind(System.nanoTime() - dispatchStart);
+        }
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        final FrameMonitor frameMonitor = mLayoutManager.getFrameMonitor();
+        final long dispatchStart = frameMonitor != null ? System.nanoTime() : 0;
         Pair<AdapterDataObserver, Adapter> pair = findAdapterByPosition(position);
         if (pair == null) {
             return;
         }
-        pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition, payloads);
-        pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position, payloads);
+        final PerformanceMetrics metrics = mLayoutManager.getPerformanceMetrics();
+        final long start = metrics != null ? System.nanoTime() : 0;
+        final boolean traced = LayoutTraceSections.beginAdapter(LayoutTraceSections.BIND, pair.second);
+        try {
+            pair.second.onBindViewHolder(holder, position - pair.first.mStartPosition, payloads);
+            pair.second.onBindViewHolderWithOffset(holder, position - pair.first.mStartPosition, position, payloads);
+        } finally {
+            if (traced) {
+                LayoutTraceSections.end();
+            }
+        }
+        if (metrics != null) {
+            metrics.record(PerformanceMetrics.PHASE_BIND, mLayoutManager.findLayoutHelperByPosition(position),
+                    holder.getItemViewType(), System.nanoTime() - start);
+        }
+        if (frameMonitor != null) {
+            frameMonitor.onBind(System.nanoTime() - dispatchStart);
+        }
 
     }
 
@@ -210,6 +277,17 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
         return Cantor.getCantor(index, itemId);
     }
 
+    @Override
+    public long getContentVersion(int position) {
+        Pair<AdapterDataObserver, Adapter> p = findAdapterByPosition(position);
+
+        if (p == null || !(p.second instanceof VirtualLayoutManager.ContentVersionProvider)) {
+            return NO_VERSION;
+        }
+
+        return ((VirtualLayoutManager.ContentVersionProvider) p.second).getContentVersion(position - p.first.mStartPosition);
+    }
+
     @Override
     public void setHasStableIds(boolean hasStableIds) {
         // do nothing
@@ -219,6 +297,11 @@ public class DelegateAdapter extends VirtualLayoutAdapter<RecyclerView.ViewHolde
     @Override
     public void onViewRecycled(RecyclerView.ViewHolder holder) {
         super.onViewRecycled(holder);
+        final FrameMonitor frameMonitor = mLayoutManager.getFrameMonitor();
+        if (frameMonitor != null) {
+            // called for every holder put into the pool, whichever path of the recycler recycles it
+            frameMonitor.onRecycle();
+        }
 
         int position = holder.getPosition();
         if (position >= 0) {
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Diagnostics detecting wasted layout work at runtime, enabled by
+ * {@link VirtualLayoutManager#setLayoutAnomalyDetector(LayoutAnomalyDetector)}. Findings are counted per
+ * LayoutHelper during a layout or scroll pass, and reported with counts when the pass ends. Findings not caused by a helper, such as the
+ * relayout posted in no-scrolling mode, are reported with a null helper.<br />
+ * It keeps maps of views and helpers, so only use it for debugging.
+ */
+public class LayoutAnomalyDetector {
+
+    /**
+     * A view is measured more than once in a pass, count is the number of extra measures
+     */
+    public static final int TYPE_REDUNDANT_MEASURE = 0;
+
+    /**
+     * Layout is requested through VirtualLayoutManager, attributed to the helper whose callback requests it, or to the
+     * helper passed to {@link VirtualLayoutManager#requestLayoutFor(LayoutHelper)}. Requests from outside of helpers,
+     * such as by RecyclerView or the app, are not recorded, except the relayout posted in no-scrolling mode
+     */
+    public static final int TYPE_SELF_REQUESTED_LAYOUT = 1;
+
+    /**
+     * A helper consumes no item in layoutChunk
+     */
+    public static final int TYPE_ZERO_CONSUMED = 2;
+
+    /**
+     * Layout passes run one after another without scrolling in between, count is the number of passes
+     */
+    public static final int TYPE_LAYOUT_LOOP = 3;
+
+    static final int TYPE_COUNT = 4;
+
+    public interface Callback {
+
+        /**
+         * @param type   one of TYPE_ constants
+         * @param helper helper the finding is attributed to, null for VirtualLayoutManager itself
+         * @param start  start of helper's range, -1 if helper is null
+         * @param end    end of helper's range, -1 if helper is null
+         * @param count  times found in the pass
+         */
+        void onAnomaly(int type, @Nullable LayoutHelper helper, int start, int end, int count);
+    }
+
+    /**
+     * layout passes within this window without scrolling are treated as a loop
+     */
+    private static final long LOOP_WINDOW_MS = 100;
+
+    private static final int DEFAULT_LOOP_THRESHOLD = 3;
+
+    private final Callback mCallback;
+
+    private int mLoopThreshold = DEFAULT_LOOP_THRESHOLD;
+
+    private boolean mInPass = false;
+
+    private final IdentityHashMap<View, int[]> mMeasureCounts = new IdentityHashMap<>();
+
+    private final IdentityHashMap<LayoutHelper, int[]> mFindings = new IdentityHashMap<>();
+
+    private LayoutHelper mCallingHelper;
+
+    private LayoutHelper mLastRequester;
+
+    private int mLayoutPasses = 0;
+
+    private long mLoopStartTime = 0;
+
+    public LayoutAnomalyDetector(Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback must not be null");
+        }
+        mCallback = callback;
+    }
+
+    /**
+     * @param threshold layout passes in a row without scrolling before reported as a loop
+     */
+    public void setLoopThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2");
+        }
+        mLoopThreshold = threshold;
+    }
+
+    void beginPass() {
+        mInPass = true;
+        mMeasureCounts.clear();
+    }
+
+    void endPass() {
+        mInPass = false;
+        mMeasureCounts.clear();
+        if (mFindings.isEmpty()) {
+            return;
+        }
+        final Iterator<Map.Entry<LayoutHelper, int[]>> iterator = mFindings.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<LayoutHelper, int[]> entry = iterator.next();
+            final LayoutHelper helper = entry.getKey();
+            final int[] counts = entry.getValue();
+            for (int type = 0; type < TYPE_COUNT; type++) {
+                if (counts[type] > 0) {
+                    mCallback.onAnomaly(type, helper, helper == null ? -1 : helper.getRange().getLower(),
+                            helper == null ? -1 : helper.getRange().getUpper(), counts[type]);
+                }
+            }
+        }
+        mFindings.clear();
+    }
+
+    /**
+     * Helper whose callback is running, requested layouts are attributed to it
+     *
+     * @return the previous calling helper
+     */
+    LayoutHelper setCallingHelper(LayoutHelper helper) {
+        final LayoutHelper previous = mCallingHelper;
+        mCallingHelper = helper;
+        return previous;
+    }
+
+    void onMeasure(View view, LayoutHelper helper) {
+        if (!mInPass) {
+            return;
+        }
+        int[] count = mMeasureCounts.get(view);
+        if (count == null) {
+            mMeasureCounts.put(view, new int[]{1});
+        } else if (++count[0] > 1) {
+            add(TYPE_REDUNDANT_MEASURE, helper);
+        }
+    }
+
+    void onZeroConsumed(LayoutHelper helper) {
+        add(TYPE_ZERO_CONSUMED, helper);
+    }
+
+    void onRequestLayout() {
+        if (mCallingHelper == null) {
+            // not requested by a helper
+            return;
+        }
+        mLastRequester = mCallingHelper;
+        add(TYPE_SELF_REQUESTED_LAYOUT, mCallingHelper);
+    }
+
+    /**
+     * VirtualLayoutManager itself requests layout again, after measuring space in no-scrolling mode
+     */
+    void onRelayout() {
+        mLastRequester = null;
+        add(TYPE_SELF_REQUESTED_LAYOUT, null);
+    }
+
+    void onLayoutPass() {
+        final long now = SystemClock.uptimeMillis();
+        if (mLayoutPasses == 0 || now - mLoopStartTime > LOOP_WINDOW_MS) {
+            mLayoutPasses = 0;
+            mLoopStartTime = now;
+        }
+        mLayoutPasses++;
+        if (mLayoutPasses == mLoopThreshold) {
+            addCount(TYPE_LAYOUT_LOOP, mLastRequester, mLayoutPasses);
+        } else if (mLayoutPasses > mLoopThreshold) {
+            add(TYPE_LAYOUT_LOOP, mLastRequester);
+        }
+    }
+
+    void onScroll() {
+        mLayoutPasses = 0;
+        mLastRequester = null;
+    }
+
+    private void add(int type, LayoutHelper helper) {
+        addCount(type, helper, 1);
+    }
+
+    private void addCount(int type, LayoutHelper helper, int count) {
+        int[] counts = mFindings.get(helper);
+        if (counts == null) {
+            counts = new int[TYPE_COUNT];
+            mFindings.put(helper, counts);
+        }
+        counts[type] += count;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * An {@link android.support.v7.widget.RecyclerView.ItemDecoration} which draws backgrounds of layoutHelpers
+ * directly onto RecyclerView's canvas, so no {@link LayoutView} is generated for them.
+ * It is installed by {@link VirtualLayoutManager#setDrawBackgroundOnCanvas(boolean)}.
+ * <p>
+ * Background drawables are drawn in the decoration, so it also acts as their {@link Drawable.Callback}
+ * to invalidate RecyclerView when drawables change, for example when an image is loaded.
+ */
+final class LayoutBackgroundDecoration extends RecyclerView.ItemDecoration implements Drawable.Callback {
+
+    private final Paint mPaint = new Paint();
+
+    private RecyclerView mRecyclerView;
+
+    LayoutBackgroundDecoration() {
+        mPaint.setStyle(Paint.Style.FILL);
+    }
+
+    void attach(@NonNull RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        detach();
+        mRecyclerView = recyclerView;
+        mRecyclerView.addItemDecoration(this);
+    }
+
+    void detach() {
+        if (mRecyclerView != null) {
+            mRecyclerView.removeItemDecoration(this);
+            mRecyclerView = null;
+        }
+    }
+
+    @Override
+    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
+        if (layoutManager instanceof VirtualLayoutManager) {
+            ((VirtualLayoutManager) layoutManager).drawLayoutBackgrounds(c, mPaint, this);
+        }
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable who) {
+        if (mRecyclerView != null) {
+            mRecyclerView.invalidate();
+        }
+    }
+
+    @Override
+    public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+        if (mRecyclerView != null) {
+            mRecyclerView.postDelayed(what, when - SystemClock.uptimeMillis());
+        }
+    }
+
+    @Override
+    public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+        if (mRecyclerView != null) {
+            mRecyclerView.removeCallbacks(what);
+        }
+    }
+}
@@ -67,7 +67,8 @@ public abstract class LayoutHelper {
      * @return true if position in range returned by {@link #getRange()}
      */
     public boolean isOutOfRange(int position) {
-        return !mRange.contains(position);
+        // compare unboxed, boxing position allocates for most positions
+        return position < mRange.getLower() || position > mRange.getUpper();
     }
 
 
@@ -278,10 +279,59 @@ public abstract class LayoutHelper {
      */
     public abstract void adjustLayout(int startPosition, int endPosition, LayoutManagerHelper helper);
 
+    /**
+     * Run to adjust layoutHelper's background area with the union bounds of its children, which are collected
+     * in a single pass over all children by {@link VirtualLayoutManager#runAdjustLayout()}.
+     * By default it falls back to {@link #adjustLayout(int, int, LayoutManagerHelper)}
+     *
+     * @param startPosition
+     * @param endPosition
+     * @param childrenRegion union of decorated bounds of children in this layoutHelper's range, empty if none
+     * @param helper
+     */
+    public void adjustLayout(int startPosition, int endPosition, @NonNull Rect childrenRegion, LayoutManagerHelper helper) {
+        adjustLayout(startPosition, endPosition, helper);
+    }
+
     public void onItemsChanged(LayoutManagerHelper helper) {
 
     }
 
+    /**
+     * Called when items from <code>positionStart</code> are added, removed, updated or moved,
+     * positions before it are not affected. By default it falls back to {@link #onItemsChanged(LayoutManagerHelper)}
+     *
+     * @param positionStart the first adapter position affected by the change
+     * @param helper        LayoutManagerHelper
+     */
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        onItemsChanged(helper);
+    }
+
+    /**
+     * Called when <code>itemCount</code> items are inserted at <code>positionStart</code>.
+     * By default it falls back to {@link #onItemsChanged(int, LayoutManagerHelper)}
+     */
+    public void onItemsAdded(int positionStart, int itemCount, LayoutManagerHelper helper) {
+        onItemsChanged(positionStart, helper);
+    }
+
+    /**
+     * Called when <code>itemCount</code> items are removed from <code>positionStart</code>.
+     * By default it falls back to {@link #onItemsChanged(int, LayoutManagerHelper)}
+     */
+    public void onItemsRemoved(int positionStart, int itemCount, LayoutManagerHelper helper) {
+        onItemsChanged(positionStart, helper);
+    }
+
+    /**
+     * Called when <code>itemCount</code> items are moved from <code>from</code> to <code>to</code>.
+     * By default it falls back to {@link #onItemsChanged(int, LayoutManagerHelper)}
+     */
+    public void onItemsMoved(int from, int to, int itemCount, LayoutManagerHelper helper) {
+        onItemsChanged(Math.min(from, to), helper);
+    }
+
     /**
      * Called when this layoutHelper will be removed from LayoutManager, please release views and other resources here
      *
@@ -330,6 +380,18 @@ public abstract class LayoutHelper {
     public abstract int computePaddingEnd(int offset, boolean isLayoutEnd, boolean useAnchor,
         LayoutManagerHelper helper);
 
+    /**
+     * Compute the exact distance in main axis from the start of this layoutHelper's area, margin and padding included,
+     * to the start of item at <code>position</code>, without laying out items before it.
+     *
+     * @param position adapter position in range, or <code>getRange().getUpper() + 1</code> for the length of the whole area
+     * @param helper   LayoutManagerHelper
+     * @return the distance, or -1 if it can not be known before items are laid out
+     */
+    public int computeOffsetToPosition(int position, LayoutManagerHelper helper) {
+        return -1;
+    }
+
     public void onSaveState(final Bundle bundle) {
 
     }
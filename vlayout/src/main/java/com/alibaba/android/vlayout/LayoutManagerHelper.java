@@ -300,6 +300,11 @@ public interface LayoutManagerHelper {
      */
     boolean isEnableMarginOverLap();
 
+    /**
+     * @return true if backgrounds of non-fix layoutHelpers are drawn directly on RecyclerView's canvas instead of in LayoutViews
+     */
+    boolean isBackgroundDrawnOnCanvas();
+
     int getDecoratedLeft(View child);
 
     int getDecoratedTop(View child);
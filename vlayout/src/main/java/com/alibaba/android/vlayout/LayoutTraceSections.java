@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.WeakHashMap;
+
+/**
+ * Optional trace sections for each LayoutHelper call and each sub adapter's create and bind, shown in systrace and
+ * Perfetto along with the coarse sections of VirtualLayoutManager. Disabled by default, toggle it at runtime with
+ * {@link #setEnabled(boolean)}.<br />
+ * Section names are built once per helper range or sub adapter and reused, so tracing doesn't allocate strings
+ * per frame. It must be used on main thread.
+ */
+public final class LayoutTraceSections {
+
+    static final int DO_LAYOUT = 0;
+
+    static final int BEFORE_LAYOUT = 1;
+
+    static final int AFTER_LAYOUT = 2;
+
+    static final int ADJUST_LAYOUT = 3;
+
+    private static final String[] HELPER_PHASES = {"doLayout", "beforeLayout", "afterLayout", "adjustLayout"};
+
+    static final int CREATE = 0;
+
+    static final int BIND = 1;
+
+    private static final String[] ADAPTER_PHASES = {"onCreateViewHolder", "onBindViewHolder"};
+
+    private static boolean sEnabled = false;
+
+    private static final WeakHashMap<LayoutHelper, HelperNames> sHelperNames = new WeakHashMap<>();
+
+    private static final WeakHashMap<Object, String[]> sAdapterNames = new WeakHashMap<>();
+
+    private LayoutTraceSections() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+        if (!sEnabled) {
+            sHelperNames.clear();
+            sAdapterNames.clear();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Begin a section named by helper class, range and phase
+     *
+     * @return true if a section began, then {@link #end()} must be called
+     */
+    static boolean begin(int phase, LayoutHelper helper) {
+        if (!sEnabled || helper == null) {
+            return false;
+        }
+        final Range<Integer> range = helper.getRange();
+        final int lower = range.getLower();
+        final int upper = range.getUpper();
+        HelperNames names = sHelperNames.get(helper);
+        if (names == null || names.lower != lower || names.upper != upper) {
+            names = new HelperNames(helper, lower, upper);
+            sHelperNames.put(helper, names);
+        }
+        Trace.beginSection(names.names[phase]);
+        return true;
+    }
+
+    /**
+     * Begin a section named by sub adapter class and phase
+     *
+     * @return true if a section began, then {@link #end()} must be called
+     */
+    static boolean beginAdapter(int phase, Object adapter) {
+        if (!sEnabled || adapter == null) {
+            return false;
+        }
+        String[] names = sAdapterNames.get(adapter);
+        if (names == null) {
+            names = new String[ADAPTER_PHASES.length];
+            final String name = adapter.getClass().getSimpleName();
+            for (int i = 0; i < names.length; i++) {
+                names[i] = clip("DelegateAdapter " + (name.length() == 0 ? adapter.getClass().getName() : name)
+                        + " " + ADAPTER_PHASES[i]);
+            }
+            sAdapterNames.put(adapter, names);
+        }
+        Trace.beginSection(names[phase]);
+        return true;
+    }
+
+    static void end() {
+        Trace.endSection();
+    }
+
+    /**
+     * section names are limited to 127 characters
+     */
+    private static String clip(String name) {
+        return name.length() > 127 ? name.substring(0, 127) : name;
+    }
+
+    private static final class HelperNames {
+
+        final int lower;
+
+        final int upper;
+
+        final String[] names = new String[HELPER_PHASES.length];
+
+        HelperNames(LayoutHelper helper, int lower, int upper) {
+            this.lower = lower;
+            this.upper = upper;
+            final String name = helper.getClass().getSimpleName();
+            for (int i = 0; i < names.length; i++) {
+                names[i] = clip((name.length() == 0 ? helper.getClass().getName() : name) + " " + HELPER_PHASES[i]
+                        + " [" + lower + ", " + upper + "]");
+            }
+        }
+    }
+}
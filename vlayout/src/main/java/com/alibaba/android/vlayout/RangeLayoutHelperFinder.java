@@ -27,11 +27,11 @@ package com.alibaba.android.vlayout;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -41,13 +41,13 @@ import java.util.ListIterator;
 public class RangeLayoutHelperFinder extends LayoutHelperFinder {
 
     @NonNull
-    private List<LayoutHelperItem> mLayoutHelperItems = new LinkedList<>();
+    private List<LayoutHelperItem> mLayoutHelperItems = new ArrayList<>();
 
     @NonNull
-    private List<LayoutHelper> mLayoutHelpers = new LinkedList<>();
+    private List<LayoutHelper> mLayoutHelpers = new ArrayList<>();
 
     @NonNull
-    private List<LayoutHelper> mReverseLayoutHelpers =new LinkedList<>();
+    private List<LayoutHelper> mReverseLayoutHelpers = new ArrayList<>();
 
     private LayoutHelperItem[] mSortedLayoutHelpers = null;
 
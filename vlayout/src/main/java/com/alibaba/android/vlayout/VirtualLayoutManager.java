@@ -25,7 +25,11 @@
 package com.alibaba.android.vlayout;
 
 import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Trace;
 import android.support.annotation.NonNull;
@@ -39,18 +43,23 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 
+import com.alibaba.android.vlayout.extend.ExposureTracker;
+import com.alibaba.android.vlayout.extend.FrameMonitor;
+import com.alibaba.android.vlayout.extend.ImpressionTracker;
 import com.alibaba.android.vlayout.extend.LayoutManagerCanScrollListener;
+import com.alibaba.android.vlayout.extend.PerformanceMetrics;
 import com.alibaba.android.vlayout.extend.PerformanceMonitor;
-import com.alibaba.android.vlayout.extend.ViewLifeCycleHelper;
+import com.alibaba.android.vlayout.extend.ScrollTraceRecorder;
 import com.alibaba.android.vlayout.extend.ViewLifeCycleListener;
 import com.alibaba.android.vlayout.layout.BaseLayoutHelper;
 import com.alibaba.android.vlayout.layout.DefaultLayoutHelper;
 import com.alibaba.android.vlayout.layout.FixAreaAdjuster;
 import com.alibaba.android.vlayout.layout.FixAreaLayoutHelper;
+import com.alibaba.android.vlayout.layout.StickyLayoutCoordinator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -105,25 +114,55 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     private boolean mEnableMarginOverlapping = false;
 
+    private boolean mDrawBackgroundOnCanvas = false;
+
+    private LayoutBackgroundDecoration mBackgroundDecoration;
+
     private int mMaxMeasureSize = -1;
 
     private PerformanceMonitor mPerformanceMonitor;
 
-    private ViewLifeCycleHelper mViewLifeCycleHelper;
+    private PerformanceMetrics mPerformanceMetrics;
 
-    private Comparator<Pair<Range<Integer>, Integer>> mRangeComparator = new Comparator<Pair<Range<Integer>, Integer>>() {
-        @Override
-        public int compare(Pair<Range<Integer>, Integer> a, Pair<Range<Integer>, Integer> b) {
-            if (a == null && b == null) return 0;
-            if (a == null) return -1;
-            if (b == null) return 1;
+    private FrameMonitor mFrameMonitor;
 
-            Range<Integer> lr = a.first;
-            Range<Integer> rr = b.first;
+    private LayoutAnomalyDetector mAnomalyDetector;
+
+    private ScrollTraceRecorder mScrollTraceRecorder;
+
+    private boolean mMeasureCacheEnabled = false;
+
+    private int mMeasureGeneration = 0;
+
+    private Configuration mLastConfiguration;
+
+    private ExposureTracker mExposureTracker;
+
+    private ImpressionTracker mImpressionTracker;
+
+    private final RecyclerView.OnChildAttachStateChangeListener mChildAttachStateListener =
+            new RecyclerView.OnChildAttachStateChangeListener() {
+                @Override
+                public void onChildViewAttachedToWindow(View view) {
+                    if (mExposureTracker != null) {
+                        mExposureTracker.onChildAttached(view);
+                    }
+                    if (mImpressionTracker != null) {
+                        mImpressionTracker.onChildAttached(view);
+                    }
+                }
+
+                @Override
+                public void onChildViewDetachedFromWindow(View view) {
+                    if (mExposureTracker != null) {
+                        mExposureTracker.onChildDetached(view);
+                    }
+                    if (mImpressionTracker != null) {
+                        mImpressionTracker.onChildDetached(view);
+                    }
+                }
+            };
 
-            return lr.getLower() - rr.getLower();
-        }
-    };
 
     public VirtualLayoutManager(@NonNull final Context context) {
         this(context, VERTICAL);
@@ -155,6 +194,106 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     public void setPerformanceMonitor(PerformanceMonitor performanceMonitor) {
         mPerformanceMonitor = performanceMonitor;
+        mPerformanceMetrics = performanceMonitor instanceof PerformanceMetrics ? (PerformanceMetrics) performanceMonitor : null;
+    }
+
+    /**
+     * @return the monitor set if it's a {@link PerformanceMetrics}, otherwise null
+     */
+    PerformanceMetrics getPerformanceMetrics() {
+        return mPerformanceMetrics;
+    }
+
+    /**
+     * Attribute layout work to frames, {@link FrameMonitor#start()} must be called to record frames
+     *
+     * @param frameMonitor monitor, null to stop attributing
+     */
+    public void setFrameMonitor(FrameMonitor frameMonitor) {
+        mFrameMonitor = frameMonitor;
+    }
+
+    FrameMonitor getFrameMonitor() {
+        return mFrameMonitor;
+    }
+
+    /**
+     * Detect wasted layout work and report it through detector's callback, for debugging only
+     *
+     * @param detector detector, null to disable detecting
+     */
+    public void setLayoutAnomalyDetector(LayoutAnomalyDetector detector) {
+        mAnomalyDetector = detector;
+    }
+
+    /**
+     * Record layoutHelpers, notifications and scrolls into a trace, starting with current state
+     *
+     * @param recorder recorder, null to stop recording
+     */
+    public void setScrollTraceRecorder(ScrollTraceRecorder recorder) {
+        mScrollTraceRecorder = recorder;
+        if (recorder != null) {
+            recorder.onOrientation(getOrientation());
+            recorder.onLayoutHelpers(mHelperFinder.getLayoutHelpers());
+            final View first = getChildCount() > 0 ? getChildAt(0) : null;
+            if (first != null) {
+                recorder.onScrollToPosition(getPosition(first),
+                        mOrientationHelper.getDecoratedStart(first) - mOrientationHelper.getStartAfterPadding());
+            }
+            if (getWidth() > 0 || getHeight() > 0) {
+                recorder.onLayout(getWidth(), getHeight());
+            }
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mAnomalyDetector != null) {
+            mAnomalyDetector.onRequestLayout();
+        }
+        super.requestLayout();
+    }
+
+    /**
+     * Request layout on behalf of a helper outside of its callbacks, such as from a posted runnable or touch handling,
+     * so that {@link LayoutAnomalyDetector} attributes it to the helper
+     */
+    public void requestLayoutFor(LayoutHelper helper) {
+        if (mAnomalyDetector == null) {
+            requestLayout();
+            return;
+        }
+        final LayoutHelper previous = mAnomalyDetector.setCallingHelper(helper);
+        try {
+            requestLayout();
+        } finally {
+            mAnomalyDetector.setCallingHelper(previous);
+        }
+    }
+
+    private void recordMetrics(int phase, View child, long startNanos) {
+        final long nanos = System.nanoTime() - startNanos;
+        mPerformanceMetrics.record(phase, findLayoutHelperByPosition(getPosition(child)), getItemViewType(child), nanos);
+    }
+
+    /**
+     * Skip measuring a child again if it has been measured with the same specs for the same item and content.
+     * It requires the adapter to implement {@link ContentVersionProvider} and to return valid item ids,
+     * {@link DelegateAdapter} forwards them to its sub adapters.
+     *
+     * @param enabled whether measure cache is enabled
+     */
+    public void setMeasureCacheEnabled(boolean enabled) {
+        mMeasureCacheEnabled = enabled;
+        invalidateMeasureCache();
+    }
+
+    /**
+     * Drop all cached measurements, children will be measured again in next layout
+     */
+    public void invalidateMeasureCache() {
+        mMeasureGeneration++;
     }
 
     public void setNoScrolling(boolean noScrolling) {
@@ -188,6 +327,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     private LayoutHelperFinder mHelperFinder;
 
+    private final StickyLayoutCoordinator mStickyCoordinator = new StickyLayoutCoordinator();
+
     public void setHelperFinder(@NonNull final LayoutHelperFinder finder) {
         //noinspection ConstantConditions
         if (finder == null) {
@@ -197,10 +338,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         List<LayoutHelper> helpers = new LinkedList<>();
         if (this.mHelperFinder != null) {
             List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-            Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-            LayoutHelper layoutHelper = null;
-            while (iterator.hasNext()) {
-                layoutHelper = iterator.next();
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
                 helpers.add(layoutHelper);
 
             }
@@ -270,6 +409,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         this.mHelperFinder.setLayouts(helpers);
 
         layoutHelpers = mHelperFinder.getLayoutHelpers();
+        mStickyCoordinator.setLayoutHelpers(layoutHelpers);
         Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
         while (iterator.hasNext()) {
             LayoutHelper layoutHelper = iterator.next();
@@ -296,6 +436,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
         oldHelpersSet.clear();
         newHelpersSet.clear();
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onLayoutHelpers(layoutHelpers);
+        }
+        if (mImpressionTracker != null) {
+            mImpressionTracker.onLayoutHelpersChanged();
+        }
         requestLayout();
     }
 
@@ -317,6 +463,80 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         return mEnableMarginOverlapping;
     }
 
+    /**
+     * Draw backgrounds of non-fix layoutHelpers directly onto RecyclerView's canvas by an ItemDecoration,
+     * instead of generating a LayoutView for each of them. Background images are supported via
+     * {@link BaseLayoutHelper#setLayoutDrawableBindListener(BaseLayoutHelper.LayoutDrawableBindListener)}.
+     * LayoutHelpers with a {@link BaseLayoutHelper.LayoutViewBindListener} still get a LayoutView.
+     *
+     * @param drawOnCanvas true to draw backgrounds on canvas, false to use LayoutViews
+     */
+    public void setDrawBackgroundOnCanvas(boolean drawOnCanvas) {
+        if (mDrawBackgroundOnCanvas == drawOnCanvas) {
+            return;
+        }
+        mDrawBackgroundOnCanvas = drawOnCanvas;
+
+        if (mRecyclerView != null) {
+            if (drawOnCanvas) {
+                attachBackgroundDecoration(mRecyclerView);
+            } else if (mBackgroundDecoration != null) {
+                mBackgroundDecoration.detach();
+            }
+        }
+        requestLayout();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBackgroundDrawnOnCanvas() {
+        return mDrawBackgroundOnCanvas;
+    }
+
+    private void attachBackgroundDecoration(RecyclerView recyclerView) {
+        if (mBackgroundDecoration == null) {
+            mBackgroundDecoration = new LayoutBackgroundDecoration();
+        }
+        mBackgroundDecoration.attach(recyclerView);
+    }
+
+    /**
+     * Called by {@link LayoutBackgroundDecoration} before children are drawn
+     */
+    void drawLayoutBackgrounds(Canvas canvas, Paint paint, Drawable.Callback callback) {
+        if (!mDrawBackgroundOnCanvas || getChildCount() == 0) {
+            return;
+        }
+
+        final int startPosition = findFirstVisibleItemPosition();
+        final int endPosition = findLastVisibleItemPosition();
+        collectChildrenRegions();
+        for (int i = 0; i < mRegionCount; i++) {
+            if (!(mRegionHelpers[i] instanceof BaseLayoutHelper)) {
+                continue;
+            }
+            final BaseLayoutHelper baseLayoutHelper = (BaseLayoutHelper) mRegionHelpers[i];
+            final Range<Integer> range = baseLayoutHelper.getRange();
+            if (range.getUpper() < startPosition || range.getLower() > endPosition) {
+                continue;
+            }
+            if (baseLayoutHelper.requireBackgroundOnCanvas(this)) {
+                final boolean traced = LayoutTraceSections.begin(LayoutTraceSections.ADJUST_LAYOUT, baseLayoutHelper);
+                try {
+                    baseLayoutHelper.adjustLayout(startPosition, endPosition, mChildrenRegions[i], this);
+                } finally {
+                    if (traced) {
+                        LayoutTraceSections.end();
+                    }
+                }
+                baseLayoutHelper.drawLayoutBackground(canvas, paint, callback, this);
+            }
+        }
+        releaseChildrenRegions();
+    }
+
     /**
      * Either be {@link #HORIZONTAL} or {@link #VERTICAL}
      *
@@ -331,6 +551,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     public void setOrientation(int orientation) {
         this.mOrientationHelper = OrientationHelperEx.createOrientationHelper(this, orientation);
         super.setOrientation(orientation);
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onOrientation(orientation);
+        }
     }
 
     /**
@@ -390,11 +613,18 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         mTempAnchorInfoWrapper.position = anchorInfo.mPosition;
         mTempAnchorInfoWrapper.coordinate = anchorInfo.mCoordinate;
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onRefreshLayout(state, mTempAnchorInfoWrapper, this);
+        try {
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
+                if (mAnomalyDetector != null) {
+                    mAnomalyDetector.setCallingHelper(layoutHelper);
+                }
+                layoutHelper.onRefreshLayout(state, mTempAnchorInfoWrapper, this);
+            }
+        } finally {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(null);
+            }
         }
     }
 
@@ -461,12 +691,26 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     private void runPreLayout(RecyclerView.Recycler recycler, RecyclerView.State state) {
 
         if (mNested == 0) {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.beginPass();
+            }
             List<LayoutHelper> reverseLayoutHelpers = mHelperFinder.reverse();
-            Iterator<LayoutHelper> iterator = reverseLayoutHelpers.iterator();
-            LayoutHelper layoutHelper = null;
-            while (iterator.hasNext()) {
-                layoutHelper = iterator.next();
-                layoutHelper.beforeLayout(recycler, state, this);
+            for (int i = 0, size = reverseLayoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = reverseLayoutHelpers.get(i);
+                final boolean traced = LayoutTraceSections.begin(LayoutTraceSections.BEFORE_LAYOUT, layoutHelper);
+                try {
+                    if (mAnomalyDetector != null) {
+                        mAnomalyDetector.setCallingHelper(layoutHelper);
+                    }
+                    layoutHelper.beforeLayout(recycler, state, this);
+                } finally {
+                    if (mAnomalyDetector != null) {
+                        mAnomalyDetector.setCallingHelper(null);
+                    }
+                    if (traced) {
+                        LayoutTraceSections.end();
+                    }
+                }
             }
         }
 
@@ -480,42 +724,154 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             final int startPosition = findFirstVisibleItemPosition();
             final int endPosition = findLastVisibleItemPosition();
             List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-            Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-            LayoutHelper layoutHelper = null;
-            while (iterator.hasNext()) {
-                layoutHelper = iterator.next();
+            mStickyCoordinator.onPostLayout(startPosition, endPosition, this);
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
+                if (mStickyCoordinator.shouldSkip(layoutHelper)) {
+                    continue;
+                }
+                final boolean traced = LayoutTraceSections.begin(LayoutTraceSections.AFTER_LAYOUT, layoutHelper);
+                if (mAnomalyDetector != null) {
+                    mAnomalyDetector.setCallingHelper(layoutHelper);
+                }
                 try {
                     layoutHelper.afterLayout(recycler, state, startPosition, endPosition, scrolled, this);
                 } catch (Exception e) {
                     if (VirtualLayoutManager.sDebuggable) {
                         throw e;
                     }
+                } finally {
+                    if (mAnomalyDetector != null) {
+                        mAnomalyDetector.setCallingHelper(null);
+                    }
+                    if (traced) {
+                        LayoutTraceSections.end();
+                    }
+                }
+            }
+
+            if (null != mExposureTracker) {
+                if (scrolled == Integer.MAX_VALUE) {
+                    // a layout pass, scrolled distance is added in offsetChildren
+                    mExposureTracker.onChildrenMoved();
+                }
+                mExposureTracker.dispatch();
+            }
+
+            if (null != mImpressionTracker) {
+                if (scrolled == Integer.MAX_VALUE) {
+                    mImpressionTracker.onChildrenMoved();
                 }
+                mImpressionTracker.dispatch();
             }
 
-            if (null != mViewLifeCycleHelper) {
-                mViewLifeCycleHelper.checkViewStatusInScreen();
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.endPass();
             }
         }
     }
 
+    /*
+     * Buckets of children regions collected by collectChildrenRegions(), reused between passes
+     */
+    private LayoutHelper[] mRegionHelpers = new LayoutHelper[8];
+    private Rect[] mChildrenRegions = new Rect[8];
+    private int mRegionCount = 0;
+
+    /**
+     * Union decorated bounds of all children by the layoutHelper they belong to, in a single pass over children.
+     * Children are laid in order of positions, so the layoutHelper of previous child is checked first.
+     */
+    private void collectChildrenRegions() {
+        mRegionCount = 0;
+        int bucket = -1;
+        int lower = 0;
+        int upper = -1;
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            final View child = getChildAt(i);
+            final int position = getPosition(child);
+            if (position < lower || position > upper) {
+                LayoutHelper layoutHelper = mHelperFinder.getLayoutHelper(position);
+                if (layoutHelper == null) {
+                    continue;
+                }
+                bucket = obtainRegionBucket(layoutHelper);
+                lower = layoutHelper.getRange().getLower();
+                upper = layoutHelper.getRange().getUpper();
+            }
+            BaseLayoutHelper.unionChildRegion(mChildrenRegions[bucket], child, this);
+        }
+    }
+
+    private int obtainRegionBucket(LayoutHelper layoutHelper) {
+        for (int i = mRegionCount - 1; i >= 0; i--) {
+            if (mRegionHelpers[i] == layoutHelper) {
+                return i;
+            }
+        }
+
+        if (mRegionCount == mRegionHelpers.length) {
+            mRegionHelpers = Arrays.copyOf(mRegionHelpers, mRegionCount * 2);
+            mChildrenRegions = Arrays.copyOf(mChildrenRegions, mRegionCount * 2);
+        }
+        if (mChildrenRegions[mRegionCount] == null) {
+            mChildrenRegions[mRegionCount] = new Rect();
+        } else {
+            mChildrenRegions[mRegionCount].setEmpty();
+        }
+        mRegionHelpers[mRegionCount] = layoutHelper;
+        return mRegionCount++;
+    }
+
+    private final Rect mEmptyRegion = new Rect();
+
+    private Rect findChildrenRegion(LayoutHelper layoutHelper) {
+        for (int i = 0; i < mRegionCount; i++) {
+            if (mRegionHelpers[i] == layoutHelper) {
+                return mChildrenRegions[i];
+            }
+        }
+        mEmptyRegion.setEmpty();
+        return mEmptyRegion;
+    }
+
+    private void releaseChildrenRegions() {
+        Arrays.fill(mRegionHelpers, 0, mRegionCount, null);
+        mRegionCount = 0;
+    }
+
     public void runAdjustLayout() {
         final int startPosition = findFirstVisibleItemPosition();
-        final LayoutHelper firstLayoutHelper = mHelperFinder.getLayoutHelper(startPosition);
         final int endPosition = findLastVisibleItemPosition();
-        final LayoutHelper lastLayoutHelper = mHelperFinder.getLayoutHelper(endPosition);
-        List<LayoutHelper> totalLayoutHelpers = mHelperFinder.getLayoutHelpers();
-        final int start = totalLayoutHelpers.indexOf(firstLayoutHelper);
-        final int end = totalLayoutHelpers.indexOf(lastLayoutHelper);
-        for (int i = start; i <= end; i++) {
+        collectChildrenRegions();
+        // every helper in visible range is adjusted, one without children gets an empty region
+        final List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = layoutHelpers.get(i);
+            final Range<Integer> range = layoutHelper.getRange();
+            if (range.getUpper() < startPosition || range.getLower() > endPosition) {
+                continue;
+            }
+            if (layoutHelper instanceof BaseLayoutHelper
+                    && ((BaseLayoutHelper) layoutHelper).requireBackgroundOnCanvas(this)) {
+                // adjusted right before its background is drawn
+                continue;
+            }
+            final Rect childrenRegion = findChildrenRegion(layoutHelper);
+            final boolean traced = LayoutTraceSections.begin(LayoutTraceSections.ADJUST_LAYOUT, layoutHelper);
             try {
-                totalLayoutHelpers.get(i).adjustLayout(startPosition, endPosition, this);
+                layoutHelper.adjustLayout(startPosition, endPosition, childrenRegion, this);
             } catch (Exception e) {
                 if (VirtualLayoutManager.sDebuggable) {
                     throw e;
                 }
+            } finally {
+                if (traced) {
+                    LayoutTraceSections.end();
+                }
             }
         }
+        releaseChildrenRegions();
     }
 
     @Override
@@ -529,6 +885,18 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             mSpaceMeasuring = true;
         }
 
+        if (mMeasureCacheEnabled && mRecyclerView != null) {
+            checkConfigurationForMeasureCache(mRecyclerView.getResources().getConfiguration());
+        }
+
+        if (mAnomalyDetector != null && !state.isPreLayout()) {
+            mAnomalyDetector.onLayoutPass();
+        }
+
+        if (mScrollTraceRecorder != null && !state.isPreLayout()) {
+            mScrollTraceRecorder.onLayout(getWidth(), getHeight());
+        }
+
 
         runPreLayout(recycler, state);
 
@@ -571,8 +939,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
                     @Override
                     public void run() {
                         // post relayout
-                        if (mRecyclerView != null)
+                        if (mRecyclerView != null) {
+                            if (mAnomalyDetector != null) {
+                                mAnomalyDetector.onRelayout();
+                            }
                             mRecyclerView.requestLayout();
+                        }
                     }
                 });
             }
@@ -583,6 +955,22 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         }
     }
 
+    @Override
+    public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (mScrollTraceRecorder != null && getOrientation() == HORIZONTAL) {
+            mScrollTraceRecorder.onScroll(dx);
+        }
+        return super.scrollHorizontallyBy(dx, recycler, state);
+    }
+
+    @Override
+    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (mScrollTraceRecorder != null && getOrientation() == VERTICAL) {
+            mScrollTraceRecorder.onScroll(dy);
+        }
+        return super.scrollVerticallyBy(dy, recycler, state);
+    }
+
     /**
      * Entry method for scrolling
      * {@inheritDoc}
@@ -593,6 +981,10 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             Trace.beginSection(TRACE_SCROLL);
         }
 
+        if (mAnomalyDetector != null) {
+            mAnomalyDetector.onScroll();
+        }
+
         runPreLayout(recycler, state);
 
         int scrolled = 0;
@@ -640,11 +1032,18 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         int startPosition = findFirstVisibleItemPosition();
         int endPosition = findLastVisibleItemPosition();
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onScrollStateChanged(state, startPosition, endPosition, this);
+        try {
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
+                if (mAnomalyDetector != null) {
+                    mAnomalyDetector.setCallingHelper(layoutHelper);
+                }
+                layoutHelper.onScrollStateChanged(state, startPosition, endPosition, this);
+            }
+        } finally {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(null);
+            }
         }
     }
 
@@ -653,12 +1052,25 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         super.offsetChildrenHorizontal(dx);
 
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onOffsetChildrenHorizontal(dx, this);
+        try {
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
+                if (mAnomalyDetector != null) {
+                    mAnomalyDetector.setCallingHelper(layoutHelper);
+                }
+                layoutHelper.onOffsetChildrenHorizontal(dx, this);
+            }
+        } finally {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(null);
+            }
+        }
 
+        if (null != mExposureTracker && getOrientation() == HORIZONTAL) {
+            mExposureTracker.onChildrenScrolled(dx);
+        }
+        if (null != mImpressionTracker && getOrientation() == HORIZONTAL) {
+            mImpressionTracker.onChildrenScrolled(dx);
         }
     }
 
@@ -666,15 +1078,25 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     public void offsetChildrenVertical(int dy) {
         super.offsetChildrenVertical(dy);
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
-            layoutHelper.onOffsetChildrenVertical(dy, this);
+        try {
+            for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+                final LayoutHelper layoutHelper = layoutHelpers.get(i);
+                if (mAnomalyDetector != null) {
+                    mAnomalyDetector.setCallingHelper(layoutHelper);
+                }
+                layoutHelper.onOffsetChildrenVertical(dy, this);
+            }
+        } finally {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(null);
+            }
         }
 
-        if (null != mViewLifeCycleHelper) {
-            mViewLifeCycleHelper.checkViewStatusInScreen();
+        if (null != mExposureTracker && getOrientation() == VERTICAL) {
+            mExposureTracker.onChildrenScrolled(dy);
+        }
+        if (null != mImpressionTracker && getOrientation() == VERTICAL) {
+            mImpressionTracker.onChildrenScrolled(dy);
         }
     }
 
@@ -683,7 +1105,20 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             throw new IllegalArgumentException("ViewLifeCycleListener should not be null!");
         }
 
-        mViewLifeCycleHelper = new ViewLifeCycleHelper(this, viewLifeCycleListener);
+        mExposureTracker = new ExposureTracker(this, viewLifeCycleListener);
+    }
+
+    /**
+     * Report impressions of items and sections, {@link ImpressionTracker#flush()} delivers the current ones at once,
+     * the replaced tracker is flushed
+     *
+     * @param impressionTracker tracker created for this layoutManager, null to stop tracking
+     */
+    public void setImpressionTracker(ImpressionTracker impressionTracker) {
+        if (mImpressionTracker != null && mImpressionTracker != impressionTracker) {
+            mImpressionTracker.flush();
+        }
+        mImpressionTracker = impressionTracker;
     }
 
     public int getVirtualLayoutDirection() {
@@ -694,8 +1129,10 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     private List<Pair<Range<Integer>, Integer>> mRangeLengths = new ArrayList<>();
 
-    @Nullable
-    private int findRangeLength(@NonNull final Range<Integer> range) {
+    /**
+     * @return index of a recorded range overlapping [lower, upper], -1 if not found
+     */
+    private int findRangeLength(final int lower, final int upper) {
         final int count = mRangeLengths.size();
         if (count == 0) {
             return -1;
@@ -715,11 +1152,11 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
                 break;
             }
 
-            if (r.contains(range.getLower()) || r.contains(range.getUpper()) || range.contains(r)) {
+            if (r.getLower() <= upper && r.getUpper() >= lower) {
                 break;
-            } else if (r.getLower() > range.getUpper()) {
+            } else if (r.getLower() > upper) {
                 e = m - 1;
-            } else if (r.getUpper() < range.getLower()) {
+            } else if (r.getUpper() < lower) {
                 s = m + 1;
             }
 
@@ -738,7 +1175,24 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (layoutHelper == null)
             layoutHelper = mDefaultLayoutHelper;
 
-        layoutHelper.doLayout(recycler, state, mTempLayoutStateWrapper, result, this);
+        final boolean traced = LayoutTraceSections.begin(LayoutTraceSections.DO_LAYOUT, layoutHelper);
+        try {
+            final long start = mFrameMonitor != null ? System.nanoTime() : 0;
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(layoutHelper);
+            }
+            layoutHelper.doLayout(recycler, state, mTempLayoutStateWrapper, result, this);
+            if (mFrameMonitor != null) {
+                mFrameMonitor.onLayoutChunk(layoutHelper, System.nanoTime() - start);
+            }
+        } finally {
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.setCallingHelper(null);
+            }
+            if (traced) {
+                LayoutTraceSections.end();
+            }
+        }
 
 
         mTempLayoutStateWrapper.mLayoutState = null;
@@ -749,6 +1203,9 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             if (sDebuggable) {
                 Log.w(TAG, "layoutHelper[" + layoutHelper.getClass().getSimpleName() + "@" + layoutHelper.toString() + "] consumes no item!");
             }
+            if (mAnomalyDetector != null) {
+                mAnomalyDetector.onZeroConsumed(layoutHelper);
+            }
             // break as no item consumed
             result.mFinished = true;
         } else {
@@ -757,27 +1214,47 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             final int consumed = result.mIgnoreConsumed ? 0 : result.mConsumed;
 
             // TODO: change when supporting reverseLayout
-            Range<Integer> range = new Range<>(Math.min(position, positionAfterLayout), Math.max(position, positionAfterLayout));
+            final int lower = Math.min(position, positionAfterLayout);
+            final int upper = Math.max(position, positionAfterLayout);
 
-            final int idx = findRangeLength(range);
+            // compare before creating the record, so laying out the same chunk again allocates nothing
+            final int idx = findRangeLength(lower, upper);
             if (idx >= 0) {
                 Pair<Range<Integer>, Integer> pair = mRangeLengths.get(idx);
-                if (pair != null && pair.first.equals(range) && pair.second == consumed)
+                if (pair != null && pair.first.getLower() == lower && pair.first.getUpper() == upper
+                        && pair.second == consumed)
                     return;
 
                 mRangeLengths.remove(idx);
             }
 
-            mRangeLengths.add(Pair.create(range, consumed));
-            Collections.sort(mRangeLengths, mRangeComparator);
+            mRangeLengths.add(findRangeInsertion(lower), Pair.create(Range.create(lower, upper), consumed));
         }
     }
 
 
     /**
-     * Return current position related to the top, only works when scrolling from the top
+     * @return index to insert a range starting at <code>lower</code>, after ranges starting at or before it
+     */
+    private int findRangeInsertion(final int lower) {
+        int s = 0, e = mRangeLengths.size();
+        while (s < e) {
+            final int m = (s + e) >>> 1;
+            final Pair<Range<Integer>, Integer> pair = mRangeLengths.get(m);
+            if (pair == null || pair.first.getLower() <= lower) {
+                s = m + 1;
+            } else {
+                e = m;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Return current position related to the top, only works when scrolling from the top, or when layoutHelpers
+     * before the current position compute their length by {@link LayoutHelper#computeOffsetToPosition}
      *
-     * @return offset from current position to original top of RecycledView
+     * @return offset from current position to original top of RecycledView, -1 if it is unknown
      */
     public int getOffsetToStart() {
         if (getChildCount() == 0) return -1;
@@ -790,22 +1267,57 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         }
 
         int position = getPosition(view);
-        final int idx = findRangeLength(Range.create(position, position));
-        if (idx < 0 || idx >= mRangeLengths.size()) {
-            return -1;
-        }
+        final LayoutHelper current = mHelperFinder.getLayoutHelper(position);
+        // items of the chunk including the first child are not before it
+        final int idx = findRangeLength(position, position);
+        final int chunkStart = idx >= 0 ? mRangeLengths.get(idx).first.getLower() : position;
 
         int offset = -mOrientationHelper.getDecoratedStart(view);
-        for (int i = 0; i < idx; i++) {
-            Pair<Range<Integer>, Integer> pair = mRangeLengths.get(i);
-            if (pair != null) {
-                offset += pair.second;
+
+        // every layoutHelper before the position must know its exact length or have all its items recorded,
+        // layoutHelpers know their exact length don't rely on recorded ranges, so they are right even after jumping
+        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            LayoutHelper layoutHelper = layoutHelpers.get(i);
+            final Range<Integer> range = layoutHelper.getRange();
+            if (range.getLower() > position) {
+                break;
             }
+            if (layoutHelper.isFixLayout()) {
+                continue;
+            }
+            final boolean isCurrent = layoutHelper == current;
+            int length = layoutHelper.computeOffsetToPosition(isCurrent ? position : range.getUpper() + 1, this);
+            if (length < 0) {
+                length = getRecordedLength(range.getLower(), isCurrent ? chunkStart : range.getUpper() + 1);
+                if (length < 0) {
+                    return -1;
+                }
+            }
+            offset += length;
         }
 
         return offset;
     }
 
+    /**
+     * @return sum of recorded lengths of items from <code>lower</code> to <code>end</code> (exclusive), or -1 if they are
+     * not all recorded
+     */
+    private int getRecordedLength(int lower, int end) {
+        int length = 0;
+        int next = lower;
+        for (int i = findRangeInsertion(lower - 1), size = mRangeLengths.size(); i < size && next < end; i++) {
+            Pair<Range<Integer>, Integer> pair = mRangeLengths.get(i);
+            if (pair == null || pair.first.getLower() != next) {
+                return -1;
+            }
+            length += pair.second;
+            next = pair.first.getUpper() + 1;
+        }
+        return next == end ? length : -1;
+    }
+
 
     private static LayoutHelper DEFAULT_LAYOUT_HELPER = new DefaultLayoutHelper();
 
@@ -826,12 +1338,18 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
 
     @Override
     public void scrollToPosition(int position) {
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onScrollToPosition(position, INVALID_OFFSET);
+        }
         super.scrollToPosition(position);
     }
 
 
     @Override
     public void scrollToPositionWithOffset(int position, int offset) {
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onScrollToPosition(position, offset);
+        }
         super.scrollToPositionWithOffset(position, offset);
     }
 
@@ -856,31 +1374,73 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
      */
     @Override
     public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onItemsAdded(positionStart, itemCount);
+        }
+        dispatchItemsChanged(ITEMS_ADDED, positionStart, positionStart, itemCount);
     }
 
     @Override
     public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onItemsRemoved(positionStart, itemCount);
+        }
+        dispatchItemsChanged(ITEMS_REMOVED, positionStart, positionStart, itemCount);
     }
 
     @Override
     public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
-        onItemsChanged(recyclerView);
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onItemsUpdated(positionStart, itemCount);
+        }
+        dispatchItemsChanged(ITEMS_UPDATED, positionStart, positionStart, itemCount);
     }
 
     @Override
     public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
-        onItemsChanged(recyclerView);
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onItemsMoved(from, to, itemCount);
+        }
+        dispatchItemsChanged(ITEMS_MOVED, from, to, itemCount);
+    }
+
+    private static final int ITEMS_ADDED = 0;
+
+    private static final int ITEMS_REMOVED = 1;
+
+    private static final int ITEMS_UPDATED = 2;
+
+    private static final int ITEMS_MOVED = 3;
+
+    private void dispatchItemsChanged(int type, int from, int to, int itemCount) {
+        List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = layoutHelpers.get(i);
+            switch (type) {
+                case ITEMS_ADDED:
+                    layoutHelper.onItemsAdded(from, itemCount, this);
+                    break;
+                case ITEMS_REMOVED:
+                    layoutHelper.onItemsRemoved(from, itemCount, this);
+                    break;
+                case ITEMS_MOVED:
+                    layoutHelper.onItemsMoved(from, to, itemCount, this);
+                    break;
+                default:
+                    layoutHelper.onItemsChanged(from, this);
+                    break;
+            }
+        }
     }
 
     @Override
     public void onItemsChanged(RecyclerView recyclerView) {
+        if (mScrollTraceRecorder != null) {
+            mScrollTraceRecorder.onItemsChanged();
+        }
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = layoutHelpers.get(i);
             layoutHelper.onItemsChanged(this);
         }
 
@@ -920,6 +1480,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     @Override
     public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
         super.onAdapterChanged(oldAdapter, newAdapter);
+        // item ids and content versions of another adapter are not comparable
+        invalidateMeasureCache();
     }
 
 
@@ -927,6 +1489,10 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
     public void onAttachedToWindow(RecyclerView view) {
         super.onAttachedToWindow(view);
         mRecyclerView = view;
+        view.addOnChildAttachStateChangeListener(mChildAttachStateListener);
+        if (mDrawBackgroundOnCanvas) {
+            attachBackgroundDecoration(view);
+        }
     }
 
     @Override
@@ -934,13 +1500,15 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         super.onDetachedFromWindow(view, recycler);
 
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = layoutHelpers.get(i);
             layoutHelper.clear(this);
         }
 
+        if (mBackgroundDecoration != null) {
+            mBackgroundDecoration.detach();
+        }
+        view.removeOnChildAttachStateChangeListener(mChildAttachStateListener);
         mRecyclerView = null;
     }
 
@@ -1170,10 +1738,8 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         // TODO: support zIndex?
         List<View> views = new LinkedList<>();
         List<LayoutHelper> layoutHelpers = mHelperFinder.getLayoutHelpers();
-        Iterator<LayoutHelper> iterator = layoutHelpers.iterator();
-        LayoutHelper layoutHelper = null;
-        while (iterator.hasNext()) {
-            layoutHelper = iterator.next();
+        for (int i = 0, size = layoutHelpers.size(); i < size; i++) {
+            final LayoutHelper layoutHelper = layoutHelpers.get(i);
             View fixedView = layoutHelper.getFixedView();
             if (fixedView != null) {
                 views.add(fixedView);
@@ -1356,8 +1922,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordStart(PHASE_LAYOUT, child);
         }
+        final long start = mPerformanceMetrics != null ? System.nanoTime() : 0;
         layoutDecorated(child, left + lp.leftMargin, top + lp.topMargin,
                 right - lp.rightMargin, bottom - lp.bottomMargin);
+        if (mPerformanceMetrics != null) {
+            recordMetrics(PerformanceMetrics.PHASE_LAYOUT, child, start);
+        }
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordEnd(PHASE_LAYOUT, child);
         }
@@ -1368,8 +1938,12 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordStart(PHASE_LAYOUT, child);
         }
+        final long start = mPerformanceMetrics != null ? System.nanoTime() : 0;
         layoutDecorated(child, left, top,
                 right, bottom);
+        if (mPerformanceMetrics != null) {
+            recordMetrics(PerformanceMetrics.PHASE_LAYOUT, child, start);
+        }
         if (mPerformanceMonitor != null) {
             mPerformanceMonitor.recordEnd(PHASE_LAYOUT, child);
         }
@@ -1469,6 +2043,103 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         boolean needCached();
     }
 
+    /**
+     * Provides version of content for items, used by measure cache, see {@link #setMeasureCacheEnabled(boolean)}
+     */
+    public interface ContentVersionProvider {
+
+        long NO_VERSION = -1;
+
+        /**
+         * The version must change whenever content that affects the size of item changes, including content loaded asynchronously
+         *
+         * @param position position of item
+         * @return version of item's content, {@link #NO_VERSION} to always measure it
+         */
+        long getContentVersion(int position);
+    }
+
+    /**
+     * Measurement a child view holds, stored as tag to avoid keeping views in a map
+     */
+    private static final class MeasureRecord {
+        long itemId;
+        long version;
+        int widthSpec;
+        int heightSpec;
+        int measuredWidth;
+        int measuredHeight;
+        int generation;
+    }
+
+    private void checkConfigurationForMeasureCache(Configuration configuration) {
+        if (mLastConfiguration == null || mLastConfiguration.diff(configuration) != 0) {
+            mLastConfiguration = new Configuration(configuration);
+            invalidateMeasureCache();
+        }
+    }
+
+    /**
+     * Measure child unless it already holds a measurement of the same item, content version and specs
+     */
+    private void measureChildWithCache(View child, int widthSpec, int heightSpec) {
+        MeasureRecord record = null;
+        long itemId = RecyclerView.NO_ID;
+        long version = ContentVersionProvider.NO_VERSION;
+        final RecyclerView.Adapter adapter = mMeasureCacheEnabled && mRecyclerView != null ? mRecyclerView.getAdapter() : null;
+        if (adapter instanceof ContentVersionProvider) {
+            final int position = getPosition(child);
+            if (position != RecyclerView.NO_POSITION) {
+                itemId = adapter.getItemId(position);
+                version = ((ContentVersionProvider) adapter).getContentVersion(position);
+            }
+            if (itemId != RecyclerView.NO_ID && version != ContentVersionProvider.NO_VERSION) {
+                record = (MeasureRecord) child.getTag(R.id.tag_measure_record);
+                if (record != null && record.itemId == itemId && record.version == version
+                        && record.widthSpec == widthSpec && record.heightSpec == heightSpec
+                        && record.generation == mMeasureGeneration
+                        && record.measuredWidth == child.getMeasuredWidth()
+                        && record.measuredHeight == child.getMeasuredHeight()) {
+                    // cache hit, measured size is still valid for this view, unless it's measured out of
+                    // VirtualLayoutManager since
+                    return;
+                }
+                if (record == null) {
+                    record = new MeasureRecord();
+                    child.setTag(R.id.tag_measure_record, record);
+                }
+            }
+        }
+
+        if (mPerformanceMonitor != null) {
+            mPerformanceMonitor.recordStart(PHASE_MEASURE, child);
+        }
+        final long start = mPerformanceMetrics != null ? System.nanoTime() : 0;
+        child.measure(widthSpec, heightSpec);
+        if (mPerformanceMetrics != null) {
+            recordMetrics(PerformanceMetrics.PHASE_MEASURE, child, start);
+        }
+        if (mFrameMonitor != null) {
+            mFrameMonitor.onMeasure();
+        }
+        if (mAnomalyDetector != null) {
+            mAnomalyDetector.onMeasure(child, findLayoutHelperByPosition(getPosition(child)));
+        }
+        if (mPerformanceMonitor != null) {
+            mPerformanceMonitor.recordEnd(PHASE_MEASURE, child);
+        }
+
+        if (record != null) {
+            record.itemId = itemId;
+            record.version = version;
+            record.widthSpec = widthSpec;
+            record.heightSpec = heightSpec;
+            record.measuredWidth = child.getMeasuredWidth();
+            record.measuredHeight = child.getMeasuredHeight();
+            record.generation = mMeasureGeneration;
+        }
+    }
+
     @Override
     public int getContentWidth() {
         return super.getWidth();
@@ -1490,13 +2161,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
         calculateItemDecorationsForChild(child, mDecorInsets);
         widthSpec = updateSpecWithExtra(widthSpec, mDecorInsets.left, mDecorInsets.right);
         heightSpec = updateSpecWithExtra(heightSpec, mDecorInsets.top, mDecorInsets.bottom);
-        if (mPerformanceMonitor != null) {
-            mPerformanceMonitor.recordStart(PHASE_MEASURE, child);
-        }
-        child.measure(widthSpec, heightSpec);
-        if (mPerformanceMonitor != null) {
-            mPerformanceMonitor.recordEnd(PHASE_MEASURE, child);
-        }
+        measureChildWithCache(child, widthSpec, heightSpec);
     }
 
     private void measureChildWithDecorationsAndMargin(View child, int widthSpec, int heightSpec) {
@@ -1511,13 +2176,7 @@ public class VirtualLayoutManager extends ExposeLinearLayoutManagerEx implements
             heightSpec = updateSpecWithExtra(heightSpec, mDecorInsets.top,
                     mDecorInsets.bottom);
         }
-        if (mPerformanceMonitor != null) {
-            mPerformanceMonitor.recordStart(PHASE_MEASURE, child);
-        }
-        child.measure(widthSpec, heightSpec);
-        if (mPerformanceMonitor != null) {
-            mPerformanceMonitor.recordEnd(PHASE_MEASURE, child);
-        }
+        measureChildWithCache(child, widthSpec, heightSpec);
     }
 
     /**
@@ -0,0 +1,238 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.alibaba.android.vlayout.OrientationHelperEx;
+import com.alibaba.android.vlayout.R;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.extend.ViewLifeCycleHelper.STATUS;
+
+import java.util.ArrayList;
+
+/**
+ * Dispatch {@link ViewLifeCycleListener} callbacks from visibility changes of children within RecyclerView's bounds,
+ * replaces {@link ViewLifeCycleHelper}. Set it through
+ * {@link VirtualLayoutManager#setViewLifeCycleListener(ViewLifeCycleListener)}.
+ * <br />
+ * All children are checked after a layout pass, a child whose bounds didn't change since the last check is skipped.
+ * After a scroll only children crossing an edge by the scrolled distance and children attached since the last check
+ * are checked, and children are not walked at all while the scrolled distance can't bring any of them to an edge.
+ * Status is kept in a tag of the view, it is completed to {@link STATUS#DISAPPEARED} and reset when the view is
+ * detached from RecyclerView or bound to another position, so no state is held outside of attached views.
+ * <p/>
+ * Appearing and disappearing are the partially visible statuses, a view moving back before completing one of them
+ * goes to the opposite end status directly.
+ */
+public class ExposureTracker {
+
+    private static final int OUT = 0;
+
+    private static final int PARTIAL = 1;
+
+    private static final int FULL = 2;
+
+    private final VirtualLayoutManager mLayoutManager;
+
+    private final ViewLifeCycleListener mListener;
+
+    private final ArrayList<View> mAttachedViews = new ArrayList<>();
+
+    private boolean mDirty = true;
+
+    private int mScrolled = 0;
+
+    /**
+     * distance from bounds of children to the nearest edge at the last check, a shorter scroll changes no visibility
+     */
+    private int mSlack = 0;
+
+    private int mEdgeEnd = 0;
+
+    public ExposureTracker(VirtualLayoutManager layoutManager, @NonNull ViewLifeCycleListener listener) {
+        mLayoutManager = layoutManager;
+        mListener = listener;
+    }
+
+    /**
+     * Mark all children as moved, they are checked in next {@link #dispatch()}
+     */
+    public void onChildrenMoved() {
+        mDirty = true;
+    }
+
+    /**
+     * Mark children as scrolled by delta pixels along the main axis since the last check
+     */
+    public void onChildrenScrolled(int delta) {
+        mScrolled += delta;
+    }
+
+    /**
+     * A view is added to RecyclerView, it is checked in next {@link #dispatch()}
+     */
+    public void onChildAttached(View view) {
+        mAttachedViews.add(view);
+    }
+
+    /**
+     * Complete status of a view removed from RecyclerView and release it
+     */
+    public void onChildDetached(View view) {
+        mAttachedViews.remove(view);
+        final ExposureState state = (ExposureState) view.getTag(R.id.tag_exposure_state);
+        if (state != null) {
+            moveTo(view, state, OUT);
+            state.position = RecyclerView.NO_POSITION;
+        }
+    }
+
+    /**
+     * Check children moved since the last call, called by VirtualLayoutManager after layout and scroll
+     */
+    public void dispatch() {
+        final OrientationHelperEx orientationHelper = mLayoutManager.getMainOrientationHelper();
+        final boolean vertical = mLayoutManager.getOrientation() == VirtualLayoutManager.VERTICAL;
+        // RecyclerView's bounds, children are drawn in padding unless clipped
+        final int edgeEnd = orientationHelper.getEnd();
+        final boolean edgeChanged = edgeEnd != mEdgeEnd;
+        mEdgeEnd = edgeEnd;
+
+        final int scrolled = mScrolled;
+        mScrolled = 0;
+        if (mDirty || edgeChanged) {
+            mDirty = false;
+            mAttachedViews.clear();
+            mSlack = Integer.MAX_VALUE;
+            for (int i = 0, count = mLayoutManager.getChildCount(); i < count; i++) {
+                final View view = mLayoutManager.getChildAt(i);
+                if (view != null) {
+                    check(view, vertical, edgeChanged);
+                }
+            }
+            return;
+        }
+
+        final int distance = Math.abs(scrolled);
+        if (distance >= mSlack) {
+            mSlack = Integer.MAX_VALUE;
+            for (int i = 0, count = mLayoutManager.getChildCount(); i < count; i++) {
+                final View view = mLayoutManager.getChildAt(i);
+                if (view == null) {
+                    continue;
+                }
+                final int start = vertical ? view.getTop() : view.getLeft();
+                final int end = vertical ? view.getBottom() : view.getRight();
+                if (getVisibility(start - scrolled, end - scrolled) != getVisibility(start, end)) {
+                    check(view, vertical, false);
+                } else {
+                    updateSlack(start, end);
+                }
+            }
+        } else {
+            mSlack -= distance;
+        }
+
+        for (int i = 0, size = mAttachedViews.size(); i < size; i++) {
+            check(mAttachedViews.get(i), vertical, false);
+        }
+        mAttachedViews.clear();
+    }
+
+    private void check(View view, boolean vertical, boolean force) {
+        final int position = mLayoutManager.getPosition(view);
+        final int start = vertical ? view.getTop() : view.getLeft();
+        final int end = vertical ? view.getBottom() : view.getRight();
+        updateSlack(start, end);
+
+        ExposureState state = (ExposureState) view.getTag(R.id.tag_exposure_state);
+        if (state == null) {
+            state = new ExposureState();
+            view.setTag(R.id.tag_exposure_state, state);
+        } else if (state.position == position && state.start == start && state.end == end && !force) {
+            return;
+        } else if (state.position != position) {
+            // bound again to another position without being detached
+            moveTo(view, state, OUT);
+        }
+        state.position = position;
+        state.start = start;
+        state.end = end;
+        moveTo(view, state, getVisibility(start, end));
+    }
+
+    private int getVisibility(int start, int end) {
+        if (start >= 0 && end <= mEdgeEnd) {
+            return FULL;
+        } else if (end <= 0 || start >= mEdgeEnd) {
+            return OUT;
+        }
+        return PARTIAL;
+    }
+
+    private void updateSlack(int start, int end) {
+        mSlack = Math.min(mSlack, Math.min(Math.min(Math.abs(start), Math.abs(end)),
+                Math.min(Math.abs(start - mEdgeEnd), Math.abs(end - mEdgeEnd))));
+    }
+
+    private void moveTo(View view, ExposureState state, int visibility) {
+        switch (visibility) {
+            case FULL:
+                if (state.status == STATUS.DISAPPEARED) {
+                    setStatus(view, state, STATUS.APPEARING);
+                }
+                if (state.status != STATUS.APPEARED) {
+                    setStatus(view, state, STATUS.APPEARED);
+                }
+                break;
+            case PARTIAL:
+                if (state.status == STATUS.DISAPPEARED) {
+                    setStatus(view, state, STATUS.APPEARING);
+                } else if (state.status == STATUS.APPEARED) {
+                    setStatus(view, state, STATUS.DISAPPEARING);
+                }
+                break;
+            default:
+                if (state.status == STATUS.APPEARED) {
+                    setStatus(view, state, STATUS.DISAPPEARING);
+                }
+                if (state.status != STATUS.DISAPPEARED) {
+                    setStatus(view, state, STATUS.DISAPPEARED);
+                }
+                break;
+        }
+    }
+
+    private void setStatus(View view, ExposureState state, STATUS status) {
+        state.status = status;
+        switch (status) {
+            case APPEARING:
+                mListener.onAppearing(view);
+                break;
+            case APPEARED:
+                mListener.onAppeared(view);
+                break;
+            case DISAPPEARING:
+                mListener.onDisappearing(view);
+                break;
+            default:
+                mListener.onDisappeared(view);
+                break;
+        }
+    }
+
+    /**
+     * Status and last checked bounds of a view, kept in its tag
+     */
+    private static final class ExposureState {
+
+        STATUS status = STATUS.DISAPPEARED;
+
+        int position = RecyclerView.NO_POSITION;
+
+        int start;
+
+        int end;
+    }
+}
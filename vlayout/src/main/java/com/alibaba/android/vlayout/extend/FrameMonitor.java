@@ -0,0 +1,351 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+
+import java.io.PrintWriter;
+
+/**
+ * Correlate frame durations from Choreographer with the work VirtualLayoutManager and DelegateAdapter did in that
+ * frame, and keep a record for each frame over budget. Set it through
+ * {@link com.alibaba.android.vlayout.VirtualLayoutManager#setFrameMonitor(FrameMonitor)} and call {@link #start()}.
+ * <br />
+ * Work is attributed to the frame between two Choreographer callbacks. The callback runs in the animation phase, so
+ * a window holds the layout traversal of its frame and the input handling of the next one: scrolls by touch events,
+ * which run before animations, are counted in the record of the previous frame. Flings and smooth scrolls run as
+ * animations in the same phase as the callback, they are counted in either frame depending on the order of callbacks.
+ * <br />
+ * Records are written to a preallocated ring buffer, {@link #dump(PrintWriter)} writes them from the oldest.
+ * Requires Android 4.1, it must be used on main thread.
+ */
+public class FrameMonitor {
+
+    /**
+     * Called for each frame over budget
+     */
+    public interface Listener {
+
+        /**
+         * @param record the record in ring buffer, which is reused later, copy it if you need to keep it
+         */
+        void onSlowFrame(FrameRecord record);
+    }
+
+    /**
+     * Work done in a frame, at most {@link #MAX_HELPERS} helpers taking the most time are kept
+     */
+    public static final class FrameRecord {
+
+        public long frameTimeNanos;
+
+        public long durationNanos;
+
+        public int layoutChunks;
+
+        public int created;
+
+        public int bound;
+
+        public int measured;
+
+        /**
+         * view holders recycled into the pool, counted by DelegateAdapter
+         */
+        public int recycled;
+
+        /**
+         * time spent in DelegateAdapter creating and binding, including sub adapters
+         */
+        public long dispatchNanos;
+
+        public int helperCount;
+
+        public final Class[] helperClasses = new Class[MAX_HELPERS];
+
+        public final int[] helperStarts = new int[MAX_HELPERS];
+
+        public final int[] helperEnds = new int[MAX_HELPERS];
+
+        public final long[] helperNanos = new long[MAX_HELPERS];
+
+        public void copyFrom(FrameRecord other) {
+            frameTimeNanos = other.frameTimeNanos;
+            durationNanos = other.durationNanos;
+            layoutChunks = other.layoutChunks;
+            created = other.created;
+            bound = other.bound;
+            measured = other.measured;
+            recycled = other.recycled;
+            dispatchNanos = other.dispatchNanos;
+            helperCount = other.helperCount;
+            System.arraycopy(other.helperClasses, 0, helperClasses, 0, MAX_HELPERS);
+            System.arraycopy(other.helperStarts, 0, helperStarts, 0, MAX_HELPERS);
+            System.arraycopy(other.helperEnds, 0, helperEnds, 0, MAX_HELPERS);
+            System.arraycopy(other.helperNanos, 0, helperNanos, 0, MAX_HELPERS);
+        }
+
+        void write(PrintWriter writer) {
+            writer.print("frame=");
+            writer.print(frameTimeNanos);
+            writer.print(" ms=");
+            writer.print(durationNanos / 1000000f);
+            writer.print(" chunks=");
+            writer.print(layoutChunks);
+            writer.print(" created=");
+            writer.print(created);
+            writer.print(" bound=");
+            writer.print(bound);
+            writer.print(" measured=");
+            writer.print(measured);
+            writer.print(" recycled=");
+            writer.print(recycled);
+            writer.print(" dispatchMs=");
+            writer.print(dispatchNanos / 1000000f);
+            for (int i = 0; i < helperCount; i++) {
+                writer.print(' ');
+                writer.print(helperClasses[i].getSimpleName());
+                writer.print('[');
+                writer.print(helperStarts[i]);
+                writer.print(',');
+                writer.print(helperEnds[i]);
+                writer.print("]ms=");
+                writer.print(helperNanos[i] / 1000000f);
+            }
+            writer.println();
+        }
+    }
+
+    public static final int MAX_HELPERS = 8;
+
+    /**
+     * helpers tracked in a frame before their time goes untracked
+     */
+    private static final int TRACKED_HELPERS = 32;
+
+    private final long mBudgetNanos;
+
+    private final FrameRecord[] mRecords;
+
+    private int mRecordCount = 0;
+
+    private int mNextRecord = 0;
+
+    private Listener mListener;
+
+    private boolean mStarted = false;
+
+    private long mLastFrameTimeNanos = 0;
+
+    // counters of the current frame
+
+    private final FrameRecord mCurrent = new FrameRecord();
+
+    private final LayoutHelper[] mHelpers = new LayoutHelper[TRACKED_HELPERS];
+
+    private final long[] mHelperNanos = new long[TRACKED_HELPERS];
+
+    private int mHelperCount = 0;
+
+    private Object mFrameCallback;
+
+    /**
+     * @param capacity     number of slow frames kept in ring buffer
+     * @param budgetMillis frames taking longer are recorded, such as 16.7f for 60 fps
+     */
+    public FrameMonitor(int capacity, float budgetMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        mBudgetNanos = (long) (budgetMillis * 1000000);
+        mRecords = new FrameRecord[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mRecords[i] = new FrameRecord();
+        }
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    public void start() {
+        if (mStarted || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                    if (mStarted) {
+                        Choreographer.getInstance().postFrameCallback(this);
+                    }
+                }
+            };
+        }
+        mStarted = true;
+        mLastFrameTimeNanos = 0;
+        resetCurrent();
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    public void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        resetCurrent();
+    }
+
+    public boolean isStarted() {
+        return mStarted;
+    }
+
+    /**
+     * @return number of records in ring buffer
+     */
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * @param index 0 for the oldest record
+     * @param out   record to copy into
+     */
+    public void getRecord(int index, FrameRecord out) {
+        if (index < 0 || index >= mRecordCount) {
+            throw new IndexOutOfBoundsException("index: " + index + ", count: " + mRecordCount);
+        }
+        out.copyFrom(mRecords[(mNextRecord - mRecordCount + index + mRecords.length) % mRecords.length]);
+    }
+
+    /**
+     * Write records in ring buffer from the oldest, one line each
+     */
+    public void dump(PrintWriter writer) {
+        for (int i = 0; i < mRecordCount; i++) {
+            mRecords[(mNextRecord - mRecordCount + i + mRecords.length) % mRecords.length].write(writer);
+        }
+        writer.flush();
+    }
+
+    public void clear() {
+        mRecordCount = 0;
+        mNextRecord = 0;
+    }
+
+    // hooks, called by VirtualLayoutManager and DelegateAdapter
+
+    public void onLayoutChunk(LayoutHelper helper, long nanos) {
+        if (!mStarted) {
+            return;
+        }
+        mCurrent.layoutChunks++;
+        for (int i = 0; i < mHelperCount; i++) {
+            if (mHelpers[i] == helper) {
+                mHelperNanos[i] += nanos;
+                return;
+            }
+        }
+        if (mHelperCount < TRACKED_HELPERS) {
+            mHelpers[mHelperCount] = helper;
+            mHelperNanos[mHelperCount++] = nanos;
+        }
+    }
+
+    public void onMeasure() {
+        if (mStarted) {
+            mCurrent.measured++;
+        }
+    }
+
+    public void onRecycle() {
+        if (mStarted) {
+            mCurrent.recycled++;
+        }
+    }
+
+    public void onCreate(long nanos) {
+        if (mStarted) {
+            mCurrent.created++;
+            mCurrent.dispatchNanos += nanos;
+        }
+    }
+
+    public void onBind(long nanos) {
+        if (mStarted) {
+            mCurrent.bound++;
+            mCurrent.dispatchNanos += nanos;
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0) {
+            final long duration = frameTimeNanos - mLastFrameTimeNanos;
+            if (duration > mBudgetNanos) {
+                final FrameRecord record = mRecords[mNextRecord];
+                mCurrent.frameTimeNanos = mLastFrameTimeNanos;
+                mCurrent.durationNanos = duration;
+                collectHelpers();
+                record.copyFrom(mCurrent);
+                mNextRecord = (mNextRecord + 1) % mRecords.length;
+                mRecordCount = Math.min(mRecordCount + 1, mRecords.length);
+                if (mListener != null) {
+                    mListener.onSlowFrame(record);
+                }
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        resetCurrent();
+    }
+
+    /**
+     * Keep helpers taking the most time, by selection as there are only a few
+     */
+    private void collectHelpers() {
+        final int count = Math.min(MAX_HELPERS, mHelperCount);
+        for (int i = 0; i < count; i++) {
+            int max = i;
+            for (int j = i + 1; j < mHelperCount; j++) {
+                if (mHelperNanos[j] > mHelperNanos[max]) {
+                    max = j;
+                }
+            }
+            final LayoutHelper helper = mHelpers[max];
+            final long nanos = mHelperNanos[max];
+            mHelpers[max] = mHelpers[i];
+            mHelperNanos[max] = mHelperNanos[i];
+            mHelpers[i] = helper;
+            mHelperNanos[i] = nanos;
+
+            mCurrent.helperClasses[i] = helper.getClass();
+            mCurrent.helperStarts[i] = helper.getRange().getLower();
+            mCurrent.helperEnds[i] = helper.getRange().getUpper();
+            mCurrent.helperNanos[i] = nanos;
+        }
+        mCurrent.helperCount = count;
+    }
+
+    private void resetCurrent() {
+        mCurrent.layoutChunks = 0;
+        mCurrent.created = 0;
+        mCurrent.bound = 0;
+        mCurrent.measured = 0;
+        mCurrent.recycled = 0;
+        mCurrent.dispatchNanos = 0;
+        mCurrent.helperCount = 0;
+        for (int i = 0; i < MAX_HELPERS; i++) {
+            mCurrent.helperClasses[i] = null;
+        }
+        for (int i = 0; i < mHelperCount; i++) {
+            // don't hold helpers after the frame
+            mHelpers[i] = null;
+        }
+        mHelperCount = 0;
+    }
+}
@@ -0,0 +1,596 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.R;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Report impressions of items and of LayoutHelper sections, which are visible at least a fraction along orientation
+ * for a minimum duration. Set it through {@link VirtualLayoutManager#setImpressionTracker(ImpressionTracker)}.
+ * <br />
+ * All children are checked after a layout pass. After a scroll only children whose visible fraction crossed the
+ * threshold or which became fully visible or not, and children attached since the last check, are checked, and
+ * children are not walked at all while the scrolled distance can't bring any child or section to the threshold or to
+ * an edge. Dwell time is measured with {@link SystemClock#uptimeMillis()}. An impression completes when its fraction
+ * drops below the threshold, when the view is detached from RecyclerView, or on {@link #flush()}.
+ * Completed impressions are batched and delivered to {@link Callback} on the executor, once a batch is full or its
+ * first impression is older than the max batch delay, even if nothing scrolls in between.
+ * <p/>
+ * Item state is kept in a view tag and section state in arrays indexed by section, so nothing is allocated per frame.
+ * A section is the range of a LayoutHelper, which is a sub adapter when used with DelegateAdapter. Its fraction is the
+ * visible part of the extent covered by its children since the last layout pass, capped to the extent of
+ * RecyclerView, so a section larger than the screen filling it is fully visible.
+ */
+public class ImpressionTracker {
+
+    private static final int OUT = 0;
+
+    private static final int PARTIAL = 1;
+
+    private static final int FULL = 2;
+
+    public static final int TYPE_ITEM = 0;
+
+    public static final int TYPE_SECTION = 1;
+
+    /**
+     * A completed impression
+     */
+    public static final class Impression {
+
+        /**
+         * {@link #TYPE_ITEM} or {@link #TYPE_SECTION}
+         */
+        public final int type;
+
+        /**
+         * adapter position of the item, or the first position of the section when the impression started
+         */
+        public final int position;
+
+        /**
+         * stable id of the item, {@link RecyclerView#NO_ID} for sections or adapters without stable ids
+         */
+        public final long itemId;
+
+        /**
+         * index of the LayoutHelper, which is the index of the sub adapter in DelegateAdapter
+         */
+        public final int section;
+
+        /**
+         * maximum visible percentage checked during the impression, 100 once it was fully visible
+         */
+        public final int visiblePercent;
+
+        /**
+         * {@link SystemClock#uptimeMillis()} when the impression started
+         */
+        public final long startTime;
+
+        public final long durationMillis;
+
+        Impression(int type, int position, long itemId, int section, int visiblePercent, long startTime,
+                   long durationMillis) {
+            this.type = type;
+            this.position = position;
+            this.itemId = itemId;
+            this.section = section;
+            this.visiblePercent = visiblePercent;
+            this.startTime = startTime;
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Impression{type=" + type + ", position=" + position + ", itemId=" + itemId + ", section="
+                    + section + ", visiblePercent=" + visiblePercent + ", durationMillis=" + durationMillis + "}";
+        }
+    }
+
+    /**
+     * Receives batches of completed impressions, called on the executor
+     */
+    public interface Callback {
+
+        void onImpressions(List<Impression> impressions);
+    }
+
+    private final VirtualLayoutManager mLayoutManager;
+
+    private final Executor mExecutor;
+
+    private final Callback mCallback;
+
+    private float mVisibleThreshold = 0.5f;
+
+    private long mMinDwellMillis = 1000;
+
+    private int mBatchSize = 20;
+
+    private long mMaxBatchDelayMillis = 5000;
+
+    private final ArrayList<View> mAttachedViews = new ArrayList<>();
+
+    private boolean mDirty = true;
+
+    private int mScrolled = 0;
+
+    /**
+     * distance from children and sections to the nearest edge or threshold at the last check, a shorter scroll
+     * changes no impression
+     */
+    private int mSlack = 0;
+
+    private int mEdgeEnd = 0;
+
+    private List<Impression> mBatch = new ArrayList<>();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mSubmitBatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            submitBatch();
+        }
+    };
+
+    // sections, indexed by position of LayoutHelper, bounds are offset by the distance moved since the last layout
+
+    private int mMoved = 0;
+
+    private int mGeneration = 0;
+
+    private int[] mSectionGenerations = new int[0];
+
+    private int[] mSectionStarts = new int[0];
+
+    private int[] mSectionEnds = new int[0];
+
+    private float[] mSectionFractions = new float[0];
+
+    private long[] mSectionDwellStarts = new long[0];
+
+    private float[] mSectionMaxFractions = new float[0];
+
+    private int[] mSectionPositions = new int[0];
+
+    private LayoutHelper[] mSectionHelpers = new LayoutHelper[0];
+
+    private int[] mTouchedSections = new int[0];
+
+    private int mTouchedCount = 0;
+
+    private int[] mActiveSections = new int[0];
+
+    private int mActiveCount = 0;
+
+    /**
+     * @param executor executor delivering batches, such as a single thread executor
+     * @param callback receives batches on the executor
+     */
+    public ImpressionTracker(VirtualLayoutManager layoutManager, @NonNull Executor executor,
+                             @NonNull Callback callback) {
+        if (executor == null || callback == null) {
+            throw new IllegalArgumentException("executor and callback should not be null");
+        }
+        mLayoutManager = layoutManager;
+        mExecutor = executor;
+        mCallback = callback;
+    }
+
+    /**
+     * @param threshold visible fraction from which an impression starts, 0.5f by default
+     */
+    public void setVisibleThreshold(float threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("threshold must be in (0, 1]");
+        }
+        mVisibleThreshold = threshold;
+        mDirty = true;
+    }
+
+    /**
+     * @param minDwellMillis shorter impressions are dropped, 1000 by default
+     */
+    public void setMinDwellMillis(long minDwellMillis) {
+        mMinDwellMillis = minDwellMillis;
+    }
+
+    /**
+     * @param batchSize           a batch is delivered once it has this many impressions, 20 by default
+     * @param maxBatchDelayMillis or once its first impression is older than this, 5000 by default
+     */
+    public void setBatching(int batchSize, long maxBatchDelayMillis) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+        mBatchSize = batchSize;
+        mMaxBatchDelayMillis = maxBatchDelayMillis;
+    }
+
+    // hooks, called by VirtualLayoutManager
+
+    /**
+     * Mark all children as moved, they are checked in next {@link #dispatch()}
+     */
+    public void onChildrenMoved() {
+        mDirty = true;
+    }
+
+    /**
+     * Mark children as scrolled by delta pixels along the main axis since the last check
+     */
+    public void onChildrenScrolled(int delta) {
+        mScrolled += delta;
+    }
+
+    /**
+     * Complete impressions of sections whose LayoutHelper is removed or moved to another index
+     */
+    public void onLayoutHelpersChanged() {
+        final List<LayoutHelper> helpers = mLayoutManager.getLayoutHelpers();
+        final long now = SystemClock.uptimeMillis();
+        for (int i = mActiveCount - 1; i >= 0; i--) {
+            final int section = mActiveSections[i];
+            if (section >= helpers.size() || helpers.get(section) != mSectionHelpers[section]) {
+                endSection(section, now);
+                mActiveSections[i] = mActiveSections[--mActiveCount];
+            }
+        }
+        mDirty = true;
+    }
+
+    /**
+     * A view is added to RecyclerView, it is checked in next {@link #dispatch()}
+     */
+    public void onChildAttached(View view) {
+        mAttachedViews.add(view);
+    }
+
+    /**
+     * Complete impression of a view removed from RecyclerView and release it
+     */
+    public void onChildDetached(View view) {
+        mAttachedViews.remove(view);
+        final ItemState state = (ItemState) view.getTag(R.id.tag_impression_state);
+        if (state != null && state.tracker == this) {
+            endItem(state, SystemClock.uptimeMillis());
+            state.position = RecyclerView.NO_POSITION;
+        }
+    }
+
+    /**
+     * Check children moved since the last call, called by VirtualLayoutManager after layout and scroll
+     */
+    public void dispatch() {
+        final long now = SystemClock.uptimeMillis();
+        final int edgeEnd = mLayoutManager.getMainOrientationHelper().getEnd();
+        final int scrolled = mScrolled;
+        mScrolled = 0;
+        if (mDirty || edgeEnd != mEdgeEnd) {
+            update(now);
+            return;
+        }
+
+        final boolean vertical = mLayoutManager.getOrientation() == VirtualLayoutManager.VERTICAL;
+        final List<LayoutHelper> helpers = mLayoutManager.getLayoutHelpers();
+        ensureSections(helpers.size());
+        mMoved += scrolled;
+        boolean checked = false;
+        final int distance = Math.abs(scrolled);
+        if (distance >= mSlack) {
+            mSlack = Integer.MAX_VALUE;
+            for (int i = 0, count = mLayoutManager.getChildCount(); i < count; i++) {
+                final View view = mLayoutManager.getChildAt(i);
+                if (view == null) {
+                    continue;
+                }
+                final int start = vertical ? view.getTop() : view.getLeft();
+                final int end = vertical ? view.getBottom() : view.getRight();
+                if (getVisibility(start - scrolled, end - scrolled, end - start)
+                        != getVisibility(start, end, end - start)) {
+                    check(view, vertical, helpers, now);
+                } else {
+                    updateSlack(start, end, end - start);
+                }
+            }
+            checked = true;
+        } else {
+            mSlack -= distance;
+        }
+
+        for (int i = 0, size = mAttachedViews.size(); i < size; i++) {
+            check(mAttachedViews.get(i), vertical, helpers, now);
+            checked = true;
+        }
+        mAttachedViews.clear();
+
+        if (checked) {
+            checkSections(now);
+        }
+    }
+
+    /**
+     * Complete all impressions and deliver them, impressions of children still visible restart at once
+     */
+    public void flush() {
+        final long now = SystemClock.uptimeMillis();
+        for (int i = 0, count = mLayoutManager.getChildCount(); i < count; i++) {
+            final View view = mLayoutManager.getChildAt(i);
+            final ItemState state = view == null ? null : (ItemState) view.getTag(R.id.tag_impression_state);
+            if (state != null && state.tracker == this) {
+                endItem(state, now);
+            }
+        }
+        for (int i = 0; i < mActiveCount; i++) {
+            endSection(mActiveSections[i], now);
+        }
+        mActiveCount = 0;
+        submitBatch();
+        update(now);
+    }
+
+    /**
+     * Check all children and start sections over from their bounds
+     */
+    private void update(long now) {
+        final boolean vertical = mLayoutManager.getOrientation() == VirtualLayoutManager.VERTICAL;
+        final List<LayoutHelper> helpers = mLayoutManager.getLayoutHelpers();
+        mDirty = false;
+        mScrolled = 0;
+        mEdgeEnd = mLayoutManager.getMainOrientationHelper().getEnd();
+        mAttachedViews.clear();
+        mSlack = Integer.MAX_VALUE;
+        ensureSections(helpers.size());
+        mGeneration++;
+        mTouchedCount = 0;
+        mMoved = 0;
+
+        for (int i = 0, count = mLayoutManager.getChildCount(); i < count; i++) {
+            final View view = mLayoutManager.getChildAt(i);
+            if (view != null) {
+                check(view, vertical, helpers, now);
+            }
+        }
+        checkSections(now);
+    }
+
+    private void check(View view, boolean vertical, List<LayoutHelper> helpers, long now) {
+        final int position = mLayoutManager.getPosition(view);
+        final int start = vertical ? view.getTop() : view.getLeft();
+        final int end = vertical ? view.getBottom() : view.getRight();
+        final int section = findSection(helpers, position);
+        updateSlack(start, end, end - start);
+
+        ItemState state = (ItemState) view.getTag(R.id.tag_impression_state);
+        if (state == null || state.tracker != this) {
+            state = new ItemState(this);
+            view.setTag(R.id.tag_impression_state, state);
+        }
+        final RecyclerView recyclerView = mLayoutManager.getRecyclerView();
+        final long itemId = recyclerView != null ? recyclerView.getChildItemId(view) : RecyclerView.NO_ID;
+        if (state.position != position || state.itemId != itemId) {
+            final boolean sameItem = itemId != RecyclerView.NO_ID && state.itemId == itemId;
+            if (!sameItem) {
+                // bound again to another item without being detached
+                endItem(state, now);
+            }
+            state.position = position;
+            state.itemId = itemId;
+        }
+        state.section = section;
+
+        final float fraction = getFraction(start, end, end - start);
+        if (fraction >= mVisibleThreshold) {
+            if (state.dwellStart < 0) {
+                state.dwellStart = now;
+                state.maxFraction = fraction;
+            } else if (fraction > state.maxFraction) {
+                state.maxFraction = fraction;
+            }
+        } else {
+            endItem(state, now);
+        }
+
+        if (section >= 0) {
+            touchSection(section, helpers.get(section), start - mMoved, end - mMoved);
+        }
+    }
+
+    /**
+     * Update fractions of sections touched since the last layout pass, complete the ones no longer visible
+     */
+    private void checkSections(long now) {
+        for (int i = 0; i < mTouchedCount; i++) {
+            final int section = mTouchedSections[i];
+            final int start = mSectionStarts[section] + mMoved;
+            final int end = mSectionEnds[section] + mMoved;
+            final int extent = Math.min(end - start, mEdgeEnd);
+            updateSlack(start, end, extent);
+            final float fraction = getFraction(start, end, extent);
+            mSectionFractions[section] = fraction;
+            if (fraction >= mVisibleThreshold) {
+                if (mSectionDwellStarts[section] < 0) {
+                    mSectionDwellStarts[section] = now;
+                    mSectionMaxFractions[section] = fraction;
+                    mSectionPositions[section] = mSectionHelpers[section].getRange().getLower();
+                    mActiveSections[mActiveCount++] = section;
+                } else if (fraction > mSectionMaxFractions[section]) {
+                    mSectionMaxFractions[section] = fraction;
+                }
+            }
+        }
+
+        for (int i = mActiveCount - 1; i >= 0; i--) {
+            final int section = mActiveSections[i];
+            if (mSectionGenerations[section] != mGeneration || mSectionFractions[section] < mVisibleThreshold) {
+                endSection(section, now);
+                mActiveSections[i] = mActiveSections[--mActiveCount];
+            }
+        }
+    }
+
+    private void touchSection(int section, LayoutHelper helper, int start, int end) {
+        if (mSectionGenerations[section] != mGeneration) {
+            mSectionGenerations[section] = mGeneration;
+            mSectionHelpers[section] = helper;
+            mSectionStarts[section] = start;
+            mSectionEnds[section] = end;
+            mTouchedSections[mTouchedCount++] = section;
+        } else {
+            mSectionStarts[section] = Math.min(mSectionStarts[section], start);
+            mSectionEnds[section] = Math.max(mSectionEnds[section], end);
+        }
+    }
+
+    private float getFraction(int start, int end, int extent) {
+        final int visible = Math.min(mEdgeEnd, end) - Math.max(0, start);
+        return extent > 0 && visible > 0 ? Math.min(1f, visible / (float) extent) : 0;
+    }
+
+    private int getVisibility(int start, int end, int extent) {
+        final float fraction = getFraction(start, end, extent);
+        if (fraction >= 1) {
+            return FULL;
+        } else if (fraction >= mVisibleThreshold) {
+            return PARTIAL;
+        }
+        return OUT;
+    }
+
+    /**
+     * Visible part changes by at most the scrolled distance, so it is the distance to the threshold
+     */
+    private void updateSlack(int start, int end, int extent) {
+        final int visible = Math.min(mEdgeEnd, end) - Math.max(0, start);
+        final int toThreshold = (int) Math.abs(visible - mVisibleThreshold * extent);
+        mSlack = Math.min(mSlack, Math.min(toThreshold, Math.min(Math.abs(start), Math.abs(end - mEdgeEnd))));
+    }
+
+    /**
+     * Binary search, as LayoutHelpers are sorted by their ranges
+     */
+    private static int findSection(List<LayoutHelper> helpers, int position) {
+        int low = 0;
+        int high = helpers.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final LayoutHelper helper = helpers.get(mid);
+            if (position < helper.getRange().getLower()) {
+                high = mid - 1;
+            } else if (position > helper.getRange().getUpper()) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureSections(int count) {
+        if (mSectionGenerations.length >= count) {
+            return;
+        }
+        final int capacity = Math.max(count, mSectionGenerations.length * 2);
+        mSectionGenerations = Arrays.copyOf(mSectionGenerations, capacity);
+        mSectionStarts = Arrays.copyOf(mSectionStarts, capacity);
+        mSectionEnds = Arrays.copyOf(mSectionEnds, capacity);
+        mSectionFractions = Arrays.copyOf(mSectionFractions, capacity);
+        mSectionMaxFractions = Arrays.copyOf(mSectionMaxFractions, capacity);
+        mSectionPositions = Arrays.copyOf(mSectionPositions, capacity);
+        mSectionHelpers = Arrays.copyOf(mSectionHelpers, capacity);
+        mTouchedSections = Arrays.copyOf(mTouchedSections, capacity);
+        mActiveSections = Arrays.copyOf(mActiveSections, capacity);
+        final int oldCapacity = mSectionDwellStarts.length;
+        mSectionDwellStarts = Arrays.copyOf(mSectionDwellStarts, capacity);
+        Arrays.fill(mSectionDwellStarts, oldCapacity, capacity, -1);
+    }
+
+    private void endItem(ItemState state, long now) {
+        if (state.dwellStart < 0) {
+            return;
+        }
+        final long duration = now - state.dwellStart;
+        if (duration >= mMinDwellMillis) {
+            addToBatch(new Impression(TYPE_ITEM, state.position, state.itemId, state.section,
+                    Math.round(state.maxFraction * 100), state.dwellStart, duration));
+        }
+        state.dwellStart = -1;
+    }
+
+    private void endSection(int section, long now) {
+        final long dwellStart = mSectionDwellStarts[section];
+        if (dwellStart < 0) {
+            return;
+        }
+        final long duration = now - dwellStart;
+        if (duration >= mMinDwellMillis) {
+            addToBatch(new Impression(TYPE_SECTION, mSectionPositions[section], RecyclerView.NO_ID, section,
+                    Math.round(mSectionMaxFractions[section] * 100), dwellStart, duration));
+        }
+        mSectionDwellStarts[section] = -1;
+    }
+
+    private void addToBatch(Impression impression) {
+        if (mBatch.isEmpty()) {
+            mHandler.postDelayed(mSubmitBatchRunnable, mMaxBatchDelayMillis);
+        }
+        mBatch.add(impression);
+        if (mBatch.size() >= mBatchSize) {
+            submitBatch();
+        }
+    }
+
+    private void submitBatch() {
+        if (mBatch.isEmpty()) {
+            return;
+        }
+        mHandler.removeCallbacks(mSubmitBatchRunnable);
+        final List<Impression> batch = mBatch;
+        mBatch = new ArrayList<>(mBatchSize);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mCallback.onImpressions(batch);
+            }
+        });
+    }
+
+    /**
+     * Impression in progress of a view, kept in its tag
+     */
+    private static final class ItemState {
+
+        /**
+         * tracker owning the state, a state left by a replaced tracker is dropped
+         */
+        final ImpressionTracker tracker;
+
+        int position = RecyclerView.NO_POSITION;
+
+        long itemId = RecyclerView.NO_ID;
+
+        int section = -1;
+
+        long dwellStart = -1;
+
+        float maxFraction;
+
+        ItemState(ImpressionTracker tracker) {
+            this.tracker = tracker;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.alibaba.android.vlayout.extend;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+
+import java.util.Arrays;
+
+/**
+ * Built-in PerformanceMonitor recording durations of measure, layout, bind and create into preallocated histograms,
+ * keyed by LayoutHelper class and by view type. Set it through
+ * {@link com.alibaba.android.vlayout.VirtualLayoutManager#setPerformanceMonitor(PerformanceMonitor)}, nothing is
+ * timed when no monitor is set.<br />
+ * Recording doesn't allocate, the first {@link #MAX_HELPER_CLASSES} helper classes and {@link #MAX_VIEW_TYPES} view
+ * types get their own histograms, others are counted into an overflow slot. It must be used on main thread.
+ * <p/>
+ * Histogram buckets are powers of two in nanoseconds, bucket <code>i</code> holds durations in [2^(i-1), 2^i).
+ */
+public class PerformanceMetrics extends PerformanceMonitor {
+
+    public static final int PHASE_MEASURE = 0;
+
+    public static final int PHASE_LAYOUT = 1;
+
+    public static final int PHASE_BIND = 2;
+
+    public static final int PHASE_CREATE = 3;
+
+    public static final int PHASE_COUNT = 4;
+
+    public static final int BUCKET_COUNT = 40;
+
+    public static final int MAX_HELPER_CLASSES = 31;
+
+    public static final int MAX_VIEW_TYPES = 127;
+
+    /**
+     * slot for helpers or view types not tracked separately, and for create where helper is unknown
+     */
+    public static final int OVERFLOW_SLOT = 0;
+
+    private final Class[] mHelperClasses = new Class[MAX_HELPER_CLASSES + 1];
+
+    private int mHelperClassCount = 1;
+
+    /**
+     * open addressing table from view type to slot, slot 0 means empty
+     */
+    private final int[] mViewTypeKeys = new int[(MAX_VIEW_TYPES + 1) * 2];
+
+    private final int[] mViewTypeSlots = new int[(MAX_VIEW_TYPES + 1) * 2];
+
+    private final int[] mViewTypes = new int[MAX_VIEW_TYPES + 1];
+
+    private int mViewTypeCount = 1;
+
+    private final Histograms mByHelper = new Histograms(MAX_HELPER_CLASSES + 1);
+
+    private final Histograms mByViewType = new Histograms(MAX_VIEW_TYPES + 1);
+
+    /**
+     * Record a duration, called by VirtualLayoutManager and DelegateAdapter
+     *
+     * @param phase    one of PHASE_ constants
+     * @param helper   layoutHelper of the item, null if unknown
+     * @param viewType view type of the item
+     * @param nanos    duration in nanoseconds
+     */
+    public void record(int phase, LayoutHelper helper, int viewType, long nanos) {
+        if (phase < 0 || phase >= PHASE_COUNT) {
+            return;
+        }
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        final int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        mByHelper.add(phase, helperSlot(helper), bucket, nanos);
+        mByViewType.add(phase, viewTypeSlot(viewType), bucket, nanos);
+    }
+
+    /**
+     * Clear all recorded durations, tracked helper classes and view types are kept
+     */
+    public void reset() {
+        mByHelper.clear();
+        mByViewType.clear();
+    }
+
+    /**
+     * @return a copy of recorded durations, which is not affected by later records
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(Arrays.copyOf(mHelperClasses, mHelperClassCount),
+                Arrays.copyOf(mViewTypes, mViewTypeCount), mByHelper.copy(), mByViewType.copy());
+    }
+
+    private int helperSlot(LayoutHelper helper) {
+        if (helper == null) {
+            return OVERFLOW_SLOT;
+        }
+        final Class clz = helper.getClass();
+        for (int i = 1; i < mHelperClassCount; i++) {
+            if (mHelperClasses[i] == clz) {
+                return i;
+            }
+        }
+        if (mHelperClassCount < mHelperClasses.length) {
+            mHelperClasses[mHelperClassCount] = clz;
+            return mHelperClassCount++;
+        }
+        return OVERFLOW_SLOT;
+    }
+
+    private int viewTypeSlot(int viewType) {
+        final int mask = mViewTypeKeys.length - 1;
+        int i = (viewType * 0x9E3779B9) >>> 24 & mask;
+        while (mViewTypeSlots[i] != 0) {
+            if (mViewTypeKeys[i] == viewType) {
+                return mViewTypeSlots[i];
+            }
+            i = (i + 1) & mask;
+        }
+        if (mViewTypeCount < mViewTypes.length) {
+            // table is twice as large as slots, so there is always an empty entry
+            mViewTypeKeys[i] = viewType;
+            mViewTypeSlots[i] = mViewTypeCount;
+            mViewTypes[mViewTypeCount] = viewType;
+            return mViewTypeCount++;
+        }
+        return OVERFLOW_SLOT;
+    }
+
+    /**
+     * Counts, total and max durations and buckets of each phase and slot, in flat primitive arrays
+     */
+    static final class Histograms {
+
+        final int slots;
+
+        final long[] counts;
+
+        final long[] totals;
+
+        final long[] maxs;
+
+        final int[] buckets;
+
+        Histograms(int slots) {
+            this(slots, new long[PHASE_COUNT * slots], new long[PHASE_COUNT * slots], new long[PHASE_COUNT * slots],
+                    new int[PHASE_COUNT * slots * BUCKET_COUNT]);
+        }
+
+        private Histograms(int slots, long[] counts, long[] totals, long[] maxs, int[] buckets) {
+            this.slots = slots;
+            this.counts = counts;
+            this.totals = totals;
+            this.maxs = maxs;
+            this.buckets = buckets;
+        }
+
+        void add(int phase, int slot, int bucket, long nanos) {
+            final int index = phase * slots + slot;
+            counts[index]++;
+            totals[index] += nanos;
+            if (nanos > maxs[index]) {
+                maxs[index] = nanos;
+            }
+            buckets[index * BUCKET_COUNT + bucket]++;
+        }
+
+        void clear() {
+            Arrays.fill(counts, 0);
+            Arrays.fill(totals, 0);
+            Arrays.fill(maxs, 0);
+            Arrays.fill(buckets, 0);
+        }
+
+        Histograms copy() {
+            return new Histograms(slots, counts.clone(), totals.clone(), maxs.clone(), buckets.clone());
+        }
+
+        long percentile(int index, float fraction) {
+            final long count = counts[index];
+            if (count == 0) {
+                return 0;
+            }
+            final long target = (long) Math.ceil(count * Math.max(0f, Math.min(1f, fraction)));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[index * BUCKET_COUNT + i];
+                if (seen >= Math.max(1, target)) {
+                    // upper bound of the bucket, but never more than the real max
+                    return Math.min(maxs[index], i == 0 ? 0 : (1L << i) - 1);
+                }
+            }
+            return maxs[index];
+        }
+    }
+
+    /**
+     * Immutable copy of recorded durations
+     */
+    public static final class Snapshot {
+
+        private final Class[] mHelperClasses;
+
+        private final int[] mViewTypes;
+
+        private final Histograms mByHelper;
+
+        private final Histograms mByViewType;
+
+        Snapshot(Class[] helperClasses, int[] viewTypes, Histograms byHelper, Histograms byViewType) {
+            mHelperClasses = helperClasses;
+            mViewTypes = viewTypes;
+            mByHelper = byHelper;
+            mByViewType = byViewType;
+        }
+
+        /**
+         * @return number of tracked helper classes, slot 0 is the overflow slot and has no class
+         */
+        public int getHelperSlotCount() {
+            return mHelperClasses.length;
+        }
+
+        public Class getHelperClass(int slot) {
+            return mHelperClasses[slot];
+        }
+
+        /**
+         * @return number of tracked view types, slot 0 is the overflow slot and has no view type
+         */
+        public int getViewTypeSlotCount() {
+            return mViewTypes.length;
+        }
+
+        public int getViewType(int slot) {
+            return mViewTypes[slot];
+        }
+
+        public long getHelperCount(int phase, int slot) {
+            return mByHelper.counts[phase * mByHelper.slots + slot];
+        }
+
+        public long getHelperTotalNanos(int phase, int slot) {
+            return mByHelper.totals[phase * mByHelper.slots + slot];
+        }
+
+        public long getHelperMaxNanos(int phase, int slot) {
+            return mByHelper.maxs[phase * mByHelper.slots + slot];
+        }
+
+        /**
+         * @param fraction between 0 and 1, such as 0.9 for p90
+         * @return upper bound of the histogram bucket holding the percentile
+         */
+        public long getHelperPercentileNanos(int phase, int slot, float fraction) {
+            return mByHelper.percentile(phase * mByHelper.slots + slot, fraction);
+        }
+
+        public long getViewTypeCount(int phase, int slot) {
+            return mByViewType.counts[phase * mByViewType.slots + slot];
+        }
+
+        public long getViewTypeTotalNanos(int phase, int slot) {
+            return mByViewType.totals[phase * mByViewType.slots + slot];
+        }
+
+        public long getViewTypeMaxNanos(int phase, int slot) {
+            return mByViewType.maxs[phase * mByViewType.slots + slot];
+        }
+
+        public long getViewTypePercentileNanos(int phase, int slot, float fraction) {
+            return mByViewType.percentile(phase * mByViewType.slots + slot, fraction);
+        }
+
+        /**
+         * @return number of records in bucket <code>bucket</code> of a helper slot
+         */
+        public int getHelperBucket(int phase, int slot, int bucket) {
+            return mByHelper.buckets[(phase * mByHelper.slots + slot) * BUCKET_COUNT + bucket];
+        }
+
+        public int getViewTypeBucket(int phase, int slot, int bucket) {
+            return mByViewType.buckets[(phase * mByViewType.slots + slot) * BUCKET_COUNT + bucket];
+        }
+    }
+}
@@ -6,6 +6,7 @@ import android.view.View;
 /**
  * Add callback during measure and layout, help you to monitor your view's performance.<br />
  * Designed as Class instead of Interface is able to extend api in future. <br />
+ * Use {@link PerformanceMetrics} for built-in histograms of durations without implementing these callbacks. <br />
  *
  * Created by longerian on 2018/5/16.
  *
@@ -0,0 +1,435 @@
+package com.alibaba.android.vlayout.extend;
+
+import android.os.SystemClock;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Record what VirtualLayoutManager receives into a compact binary trace: layoutHelpers with their item counts, which
+ * are the counts of sub adapters when used with DelegateAdapter, item notifications, scroll deltas, jumps and layout
+ * passes. Set it through
+ * {@link com.alibaba.android.vlayout.VirtualLayoutManager#setScrollTraceRecorder(ScrollTraceRecorder)}, which records
+ * the current state first, and write the trace with {@link #writeTo(OutputStream)}. Read it back with
+ * {@link #read(InputStream, Visitor)} to replay the session against another build.
+ * <br />
+ * Events are written to a growing byte array on main thread, recording stops once it reaches the maximum size.
+ * <p/>
+ * Format: magic and version as 4-byte ints, then events. Each event is an event type byte, milliseconds since the
+ * previous event and its arguments, all as varints, signed ones zigzag encoded. A layoutHelper is written as an id,
+ * followed by its type the first time it appears, a type is written as an id, followed by its class name in modified
+ * UTF-8 the first time it appears.
+ */
+public class ScrollTraceRecorder {
+
+    public static final int MAGIC = 0x564c5452;
+
+    public static final int VERSION = 1;
+
+    public static final int EVENT_ORIENTATION = 1;
+
+    public static final int EVENT_LAYOUT_HELPERS = 2;
+
+    public static final int EVENT_ITEMS_ADDED = 3;
+
+    public static final int EVENT_ITEMS_REMOVED = 4;
+
+    public static final int EVENT_ITEMS_UPDATED = 5;
+
+    public static final int EVENT_ITEMS_MOVED = 6;
+
+    public static final int EVENT_ITEMS_CHANGED = 7;
+
+    public static final int EVENT_SCROLL = 8;
+
+    public static final int EVENT_SCROLL_TO_POSITION = 9;
+
+    public static final int EVENT_LAYOUT = 10;
+
+    /**
+     * Receives events of a trace in order, <code>time</code> is milliseconds since the first event
+     */
+    public interface Visitor {
+
+        void onOrientation(long time, int orientation);
+
+        /**
+         * @param helperIds   ids of layoutHelpers, the same helper keeps its id through the trace
+         * @param helperTypes class names of layoutHelpers
+         * @param itemCounts  item counts of layoutHelpers
+         */
+        void onLayoutHelpers(long time, int[] helperIds, String[] helperTypes, int[] itemCounts);
+
+        void onItemsAdded(long time, int positionStart, int itemCount);
+
+        void onItemsRemoved(long time, int positionStart, int itemCount);
+
+        void onItemsUpdated(long time, int positionStart, int itemCount);
+
+        void onItemsMoved(long time, int from, int to, int itemCount);
+
+        void onItemsChanged(long time);
+
+        /**
+         * @param delta scroll distance along orientation, as requested by RecyclerView
+         */
+        void onScroll(long time, int delta);
+
+        void onScrollToPosition(long time, int position, int offset);
+
+        void onLayout(long time, int width, int height);
+    }
+
+    private final int mMaxBytes;
+
+    private byte[] mBuffer;
+
+    private int mSize = 0;
+
+    private boolean mTruncated = false;
+
+    private long mLastEventTime = -1;
+
+    /**
+     * events are written in place and rolled back if they exceed the maximum size, so a trace never ends with half an
+     * event
+     */
+    private int mEventStart;
+
+    private long mEventTime;
+
+    private final WeakHashMap<LayoutHelper, Integer> mHelperIds = new WeakHashMap<>();
+
+    private final Map<Class, Integer> mTypeIds = new HashMap<>();
+
+    private int mNextHelperId = 0;
+
+    /**
+     * @param maxBytes maximum size of the trace, events after it is reached are dropped
+     */
+    public ScrollTraceRecorder(int maxBytes) {
+        if (maxBytes < 8) {
+            throw new IllegalArgumentException("maxBytes must be at least 8");
+        }
+        mMaxBytes = maxBytes;
+        mBuffer = new byte[Math.min(maxBytes, 4096)];
+        clear();
+    }
+
+    /**
+     * Drop recorded events, call it before setting the recorder again
+     */
+    public void clear() {
+        mSize = 0;
+        mTruncated = false;
+        mLastEventTime = -1;
+        mHelperIds.clear();
+        mTypeIds.clear();
+        mNextHelperId = 0;
+        writeInt(MAGIC);
+        writeInt(VERSION);
+    }
+
+    /**
+     * @return size of the trace in bytes
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return whether events were dropped after reaching the maximum size
+     */
+    public boolean isTruncated() {
+        return mTruncated;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(mBuffer, 0, mSize);
+        out.flush();
+    }
+
+    // hooks, called by VirtualLayoutManager
+
+    public void onOrientation(int orientation) {
+        if (beginEvent(EVENT_ORIENTATION)) {
+            writeVarint(orientation);
+            endEvent();
+        }
+    }
+
+    public void onLayoutHelpers(List<LayoutHelper> helpers) {
+        if (!beginEvent(EVENT_LAYOUT_HELPERS)) {
+            return;
+        }
+        final int count = helpers == null ? 0 : helpers.size();
+        writeVarint(count);
+        for (int i = 0; i < count; i++) {
+            final LayoutHelper helper = helpers.get(i);
+            final Integer helperId = mHelperIds.get(helper);
+            if (helperId != null) {
+                writeVarint(helperId);
+            } else {
+                mHelperIds.put(helper, mNextHelperId);
+                writeVarint(mNextHelperId++);
+                final Class type = helper.getClass();
+                final Integer typeId = mTypeIds.get(type);
+                if (typeId != null) {
+                    writeVarint(typeId);
+                } else {
+                    final int newTypeId = mTypeIds.size();
+                    mTypeIds.put(type, newTypeId);
+                    writeVarint(newTypeId);
+                    writeUTF(type.getName());
+                }
+            }
+            writeVarint(helper.getItemCount());
+        }
+        endEvent();
+    }
+
+    public void onItemsAdded(int positionStart, int itemCount) {
+        onItems(EVENT_ITEMS_ADDED, positionStart, itemCount);
+    }
+
+    public void onItemsRemoved(int positionStart, int itemCount) {
+        onItems(EVENT_ITEMS_REMOVED, positionStart, itemCount);
+    }
+
+    public void onItemsUpdated(int positionStart, int itemCount) {
+        onItems(EVENT_ITEMS_UPDATED, positionStart, itemCount);
+    }
+
+    public void onItemsMoved(int from, int to, int itemCount) {
+        if (beginEvent(EVENT_ITEMS_MOVED)) {
+            writeVarint(from);
+            writeVarint(to);
+            writeVarint(itemCount);
+            endEvent();
+        }
+    }
+
+    public void onItemsChanged() {
+        if (beginEvent(EVENT_ITEMS_CHANGED)) {
+            endEvent();
+        }
+    }
+
+    public void onScroll(int delta) {
+        if (beginEvent(EVENT_SCROLL)) {
+            writeSignedVarint(delta);
+            endEvent();
+        }
+    }
+
+    public void onScrollToPosition(int position, int offset) {
+        if (beginEvent(EVENT_SCROLL_TO_POSITION)) {
+            writeSignedVarint(position);
+            writeSignedVarint(offset);
+            endEvent();
+        }
+    }
+
+    public void onLayout(int width, int height) {
+        if (beginEvent(EVENT_LAYOUT)) {
+            writeVarint(width);
+            writeVarint(height);
+            endEvent();
+        }
+    }
+
+    private void onItems(int event, int positionStart, int itemCount) {
+        if (beginEvent(event)) {
+            writeVarint(positionStart);
+            writeVarint(itemCount);
+            endEvent();
+        }
+    }
+
+    private boolean beginEvent(int event) {
+        if (mTruncated) {
+            return false;
+        }
+        mEventStart = mSize;
+        mEventTime = SystemClock.uptimeMillis();
+        writeByte(event);
+        writeVarint(mLastEventTime < 0 ? 0 : mEventTime - mLastEventTime);
+        return true;
+    }
+
+    private void endEvent() {
+        if (mSize > mMaxBytes) {
+            mSize = mEventStart;
+            mTruncated = true;
+        } else {
+            mLastEventTime = mEventTime;
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (mSize + extra > mBuffer.length) {
+            // may grow beyond maxBytes by one event, which is rolled back in endEvent
+            final byte[] buffer = new byte[Math.max(mSize + extra, mBuffer.length * 2)];
+            System.arraycopy(mBuffer, 0, buffer, 0, mSize);
+            mBuffer = buffer;
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        mBuffer[mSize++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeSignedVarint(int value) {
+        writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    private void writeUTF(String value) {
+        // class names are ASCII in practice, write the 2-byte length and modified UTF-8 as DataOutput does
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            length += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF ? 3 : 2);
+        }
+        writeByte(length >>> 8);
+        writeByte(length);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                writeByte(c);
+            } else if (c > 0x07FF) {
+                writeByte(0xE0 | ((c >> 12) & 0x0F));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            } else {
+                writeByte(0xC0 | ((c >> 6) & 0x1F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Read a trace written by {@link #writeTo(OutputStream)}, and pass its events to visitor in order
+     *
+     * @throws IOException if the trace is malformed or of another version
+     */
+    public static void read(InputStream in, Visitor visitor) throws IOException {
+        final DataInputStream input = new DataInputStream(in);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("not a scroll trace");
+        }
+        final int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported scroll trace version: " + version);
+        }
+
+        final List<String> types = new ArrayList<>();
+        final List<String> helperTypes = new ArrayList<>();
+        long time = 0;
+        int event;
+        while ((event = input.read()) != -1) {
+            time += readVarint(input);
+            switch (event) {
+                case EVENT_ORIENTATION:
+                    visitor.onOrientation(time, (int) readVarint(input));
+                    break;
+                case EVENT_LAYOUT_HELPERS: {
+                    final int count = (int) readVarint(input);
+                    final int[] ids = new int[count];
+                    final String[] names = new String[count];
+                    final int[] itemCounts = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        ids[i] = (int) readVarint(input);
+                        if (ids[i] == helperTypes.size()) {
+                            final int typeId = (int) readVarint(input);
+                            if (typeId == types.size()) {
+                                types.add(input.readUTF());
+                            } else if (typeId > types.size()) {
+                                throw new IOException("unknown layoutHelper type: " + typeId);
+                            }
+                            helperTypes.add(types.get(typeId));
+                        } else if (ids[i] > helperTypes.size()) {
+                            throw new IOException("unknown layoutHelper: " + ids[i]);
+                        }
+                        names[i] = helperTypes.get(ids[i]);
+                        itemCounts[i] = (int) readVarint(input);
+                    }
+                    visitor.onLayoutHelpers(time, ids, names, itemCounts);
+                    break;
+                }
+                case EVENT_ITEMS_ADDED:
+                    visitor.onItemsAdded(time, (int) readVarint(input), (int) readVarint(input));
+                    break;
+                case EVENT_ITEMS_REMOVED:
+                    visitor.onItemsRemoved(time, (int) readVarint(input), (int) readVarint(input));
+                    break;
+                case EVENT_ITEMS_UPDATED:
+                    visitor.onItemsUpdated(time, (int) readVarint(input), (int) readVarint(input));
+                    break;
+                case EVENT_ITEMS_MOVED:
+                    visitor.onItemsMoved(time, (int) readVarint(input), (int) readVarint(input),
+                            (int) readVarint(input));
+                    break;
+                case EVENT_ITEMS_CHANGED:
+                    visitor.onItemsChanged(time);
+                    break;
+                case EVENT_SCROLL:
+                    visitor.onScroll(time, readSignedVarint(input));
+                    break;
+                case EVENT_SCROLL_TO_POSITION:
+                    visitor.onScrollToPosition(time, readSignedVarint(input), readSignedVarint(input));
+                    break;
+                case EVENT_LAYOUT:
+                    visitor.onLayout(time, (int) readVarint(input), (int) readVarint(input));
+                    break;
+                default:
+                    throw new IOException("unknown scroll trace event: " + event);
+            }
+        }
+    }
+
+    private static long readVarint(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = input.read();
+            if (b == -1) {
+                throw new EOFException("truncated varint");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static int readSignedVarint(DataInputStream input) throws IOException {
+        final int value = (int) readVarint(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -8,6 +8,13 @@ import com.alibaba.android.vlayout.VirtualLayoutManager;
 
 import java.util.HashMap;
 
+/**
+ * Scan all children for status changes on each call, and keep status of every view seen.
+ *
+ * @deprecated VirtualLayoutManager uses {@link ExposureTracker}, which only checks moved children and keeps status
+ * in view tags
+ */
+@Deprecated
 public class ViewLifeCycleHelper {
     public enum STATUS {
         APPEARING,
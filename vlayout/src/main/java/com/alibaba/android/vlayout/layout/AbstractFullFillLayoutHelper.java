@@ -195,16 +195,17 @@ public abstract class AbstractFullFillLayoutHelper extends BaseLayoutHelper {
     @Override
     public boolean isRecyclable(int childPos, int startIndex, int endIndex, LayoutManagerHelper helper, boolean fromStart) {
         Range<Integer> range = getRange();
-        if (range.contains(childPos)) {
+        if (!isOutOfRange(childPos)) {
             if (hasHeader && childPos == getRange().getLower()) {
                 return true;
             }
             if (hasFooter && childPos == getRange().getUpper()) {
                 return true;
             }
-            Range<Integer> childRange = Range.create(range.getLower() + (hasHeader ? 1 : 0),
-                range.getUpper() - (hasFooter ? 1 : 0));
-            return Range.create(startIndex, endIndex).contains(childRange);
+            // children of this layout are recycled together, only when [startIndex, endIndex] covers all of them
+            final int childLower = range.getLower() + (hasHeader ? 1 : 0);
+            final int childUpper = range.getUpper() - (hasFooter ? 1 : 0);
+            return startIndex <= childLower && childUpper <= endIndex;
         } else {
             Log.w(TAG, "Child item not match");
             return true;
@@ -0,0 +1,402 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+import static com.alibaba.android.vlayout.VirtualLayoutManager.VERTICAL;
+
+/**
+ * LayoutHelper layouts items as masonry, whose sizes are known from aspect ratios before binding, for example
+ * images with sizes from server metadata. Lanes and offsets of items are computed up front, each item goes to
+ * the shortest lane, so children are measured once with exact specs and there are never gaps to fix.
+ * <p/>
+ * Aspect ratios are provided by {@link AspectRatioProvider}, set to this helper or implemented by the adapter.
+ * Only vertical VirtualLayoutManager is supported, and item decorations in main axis are ignored.
+ */
+public class AspectRatioMasonryLayoutHelper extends BaseLayoutHelper {
+
+    private static final String TAG = "AspectRatioMasonry";
+
+    /**
+     * Number of placements computed at a time ahead of the position being laid out
+     */
+    private static final int PLACEMENT_BATCH = 64;
+
+    /**
+     * Provides aspect ratio of each item
+     */
+    public interface AspectRatioProvider {
+
+        /**
+         * @param position adapter position
+         * @return width / height of the item, items with an invalid ratio are laid out as squares
+         */
+        float getAspectRatio(int position);
+    }
+
+    private int mLaneCount = 2;
+
+    private int mHGap = 0;
+
+    private int mVGap = 0;
+
+    private AspectRatioProvider mAspectRatioProvider;
+
+    private int mLaneWidth = -1;
+
+    private int mPlacedCount = 0;
+
+    private int[] mLanes = new int[0];
+
+    /**
+     * tops of items relative to the content top, which never decrease with position
+     */
+    private int[] mTops = new int[0];
+
+    private int[] mHeights = new int[0];
+
+    /**
+     * max bottom of items up to each position
+     */
+    private int[] mMaxBottoms = new int[0];
+
+    private int[] mLaneEnds = new int[2];
+
+    private View mReferenceView;
+
+    private int mReferencePosition = -1;
+
+    public AspectRatioMasonryLayoutHelper() {
+        this(2);
+    }
+
+    public AspectRatioMasonryLayoutHelper(int laneCount) {
+        this(laneCount, 0);
+    }
+
+    public AspectRatioMasonryLayoutHelper(int laneCount, int gap) {
+        setLaneCount(laneCount);
+        setGap(gap);
+    }
+
+    public void setLaneCount(int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count should be at least 1. Provided " + laneCount);
+        }
+        if (laneCount != mLaneCount) {
+            mLaneCount = laneCount;
+            invalidatePlacements(0);
+        }
+    }
+
+    public int getLaneCount() {
+        return mLaneCount;
+    }
+
+    public void setGap(int gap) {
+        setHGap(gap);
+        setVGap(gap);
+    }
+
+    public void setHGap(int hGap) {
+        if (hGap < 0) {
+            hGap = 0;
+        }
+        if (hGap != mHGap) {
+            mHGap = hGap;
+            invalidatePlacements(0);
+        }
+    }
+
+    public void setVGap(int vGap) {
+        if (vGap < 0) {
+            vGap = 0;
+        }
+        if (vGap != mVGap) {
+            mVGap = vGap;
+            invalidatePlacements(0);
+        }
+    }
+
+    /**
+     * @param provider provides aspect ratios, if null the adapter is used when it implements {@link AspectRatioProvider}
+     */
+    public void setAspectRatioProvider(AspectRatioProvider provider) {
+        mAspectRatioProvider = provider;
+        invalidatePlacements(0);
+    }
+
+    @Override
+    public void onRangeChange(int start, int end) {
+        invalidatePlacements(0);
+    }
+
+    @Override
+    public void onItemsChanged(LayoutManagerHelper helper) {
+        invalidatePlacements(0);
+    }
+
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        invalidatePlacements(positionStart - getRange().getLower());
+    }
+
+    @Override
+    public void layoutViews(RecyclerView.Recycler recycler, RecyclerView.State state,
+            LayoutStateWrapper layoutState, LayoutChunkResult result, LayoutManagerHelper helper) {
+        // reach the end of this layout
+        if (isOutOfRange(layoutState.getCurrentPosition())) {
+            return;
+        }
+
+        if (helper.getOrientation() != VERTICAL) {
+            throw new IllegalStateException("AspectRatioMasonryLayoutHelper only supports vertical VirtualLayoutManager");
+        }
+
+        final int position = layoutState.getCurrentPosition();
+        final int index = position - getRange().getLower();
+        final int lastIndex = getItemCount() - 1;
+        final boolean isLayoutEnd = layoutState.getLayoutDirection() == LayoutStateWrapper.LAYOUT_END;
+        ensurePlaced(Math.min(index + 1, lastIndex), helper);
+
+        // resolve before adding the view, the new child has no valid bounds yet
+        final int contentTop = resolveContentTop(index, layoutState, helper);
+
+        View view = nextView(recycler, layoutState, helper, result);
+        if (view == null) {
+            return;
+        }
+
+        // all sizes are known, measure once with exact specs
+        final ViewGroup.MarginLayoutParams params = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        final int height = mHeights[index];
+        helper.measureChildWithMargins(view,
+                View.MeasureSpec.makeMeasureSpec(mLaneWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(Math.max(0, height - params.topMargin - params.bottomMargin),
+                        View.MeasureSpec.EXACTLY));
+
+        final int left = getContentLeft(helper) + mLanes[index] * (mLaneWidth + mHGap);
+        final int top = contentTop + mTops[index];
+        layoutChildWithMargin(view, left, top, left + mLaneWidth, top + height, helper);
+        mReferenceView = view;
+        mReferencePosition = position;
+
+        // move the offset to the line from which the next item in this direction is laid out
+        final int next;
+        if (isLayoutEnd) {
+            next = index == lastIndex
+                    ? contentTop + mMaxBottoms[lastIndex] + computeEndSpace(helper, true, true, false)
+                    : contentTop + mTops[index + 1];
+            result.mConsumed = Math.max(0, next - layoutState.getOffset());
+        } else {
+            next = index == 0
+                    ? contentTop - computeStartSpace(helper, true, false, false)
+                    : contentTop + mMaxBottoms[index - 1];
+            result.mConsumed = Math.max(0, layoutState.getOffset() - next);
+        }
+
+        handleStateOnResult(result, view);
+    }
+
+    @Override
+    public int computeAlignOffset(int offset, boolean isLayoutEnd, boolean useAnchor, LayoutManagerHelper helper) {
+        if (offset < 0 || offset >= getItemCount() || helper.getOrientation() != VERTICAL) {
+            return super.computeAlignOffset(offset, isLayoutEnd, useAnchor, helper);
+        }
+
+        final int lastIndex = getItemCount() - 1;
+        ensurePlaced(Math.min(offset + 1, lastIndex), helper);
+        if (offset >= mPlacedCount) {
+            return super.computeAlignOffset(offset, isLayoutEnd, useAnchor, helper);
+        }
+
+        final int bottom = mTops[offset] + mHeights[offset];
+        if (isLayoutEnd) {
+            if (offset == lastIndex) {
+                return mMaxBottoms[lastIndex] - bottom + computeEndSpace(helper, true, true, false);
+            }
+            // anchor fills towards start from this item, otherwise continue with the next item
+            return (useAnchor ? mMaxBottoms[offset] : mTops[offset + 1]) - bottom;
+        } else {
+            if (offset == 0) {
+                return -computeStartSpace(helper, true, true, false);
+            }
+            // anchor fills towards end from this item, otherwise continue with the previous items
+            return useAnchor ? 0 : mMaxBottoms[offset - 1] - mTops[offset];
+        }
+    }
+
+    @Override
+    public int computeOffsetToPosition(int position, LayoutManagerHelper helper) {
+        if (helper.getOrientation() != VERTICAL || getItemCount() == 0) {
+            return -1;
+        }
+
+        final int index = position - getRange().getLower();
+        final int lastIndex = getItemCount() - 1;
+        ensurePlaced(Math.min(index, lastIndex), helper);
+        if (Math.min(index, lastIndex) >= mPlacedCount) {
+            return -1;
+        }
+
+        final int startSpace = computeStartSpace(helper, true, true, false);
+        if (index <= lastIndex) {
+            return startSpace + mTops[index];
+        }
+        return startSpace + mMaxBottoms[lastIndex] + computeEndSpace(helper, true, true, false);
+    }
+
+    @Override
+    protected void onClear(LayoutManagerHelper helper) {
+        super.onClear(helper);
+        mReferenceView = null;
+        mReferencePosition = -1;
+    }
+
+    /**
+     * Find the top of content area on screen, from a laid out item of this helper or from the offset of the
+     * layout state when no item is laid out in this pass yet
+     */
+    private int resolveContentTop(int index, LayoutStateWrapper layoutState, LayoutManagerHelper helper) {
+        View reference = mReferenceView;
+        int referencePosition = mReferencePosition;
+        if (reference == null || reference.getParent() == null || helper.getPosition(reference) != referencePosition
+                || referencePosition - getRange().getLower() >= mPlacedCount) {
+            reference = null;
+            for (int i = 0, size = helper.getChildCount(); i < size; i++) {
+                final View child = helper.getChildAt(i);
+                final int position = helper.getPosition(child);
+                if (!isOutOfRange(position) && position - getRange().getLower() < mPlacedCount) {
+                    reference = child;
+                    referencePosition = position;
+                    break;
+                }
+            }
+        }
+
+        if (reference != null) {
+            final int top = helper.getDecoratedTop(reference)
+                    - ((ViewGroup.MarginLayoutParams) reference.getLayoutParams()).topMargin;
+            return top - mTops[referencePosition - getRange().getLower()];
+        }
+
+        final int offset = layoutState.getOffset();
+        if (layoutState.getLayoutDirection() == LayoutStateWrapper.LAYOUT_END) {
+            return index == 0 ? offset + computeStartSpace(helper, true, true, false) : offset - mTops[index];
+        } else {
+            // placements up to index are enough, they are ensured before resolving
+            final int lastIndex = getItemCount() - 1;
+            return index == lastIndex
+                    ? offset - computeEndSpace(helper, true, true, false) - mMaxBottoms[lastIndex]
+                    : offset - mMaxBottoms[index];
+        }
+    }
+
+    private int getContentLeft(LayoutManagerHelper helper) {
+        return helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
+    }
+
+    /**
+     * Compute placements up to <code>index</code>, in batches so they are ready for the next items
+     */
+    private void ensurePlaced(int index, LayoutManagerHelper helper) {
+        final int count = getItemCount();
+        final int laneWidth = Math.max(0, (helper.getContentWidth() - helper.getPaddingLeft() - helper.getPaddingRight()
+                - getHorizontalMargin() - getHorizontalPadding() - mHGap * (mLaneCount - 1)) / mLaneCount);
+        if (laneWidth != mLaneWidth || mLanes.length != count) {
+            mLaneWidth = laneWidth;
+            mLanes = Arrays.copyOf(mLanes, count);
+            mTops = Arrays.copyOf(mTops, count);
+            mHeights = Arrays.copyOf(mHeights, count);
+            mMaxBottoms = Arrays.copyOf(mMaxBottoms, count);
+            mPlacedCount = 0;
+        }
+
+        if (index < mPlacedCount || index >= count) {
+            return;
+        }
+
+        AspectRatioProvider provider = mAspectRatioProvider;
+        if (provider == null) {
+            RecyclerView recyclerView = helper.getRecyclerView();
+            RecyclerView.Adapter adapter = recyclerView == null ? null : recyclerView.getAdapter();
+            if (adapter instanceof AspectRatioProvider) {
+                provider = (AspectRatioProvider) adapter;
+            }
+        }
+
+        if (mLaneEnds.length != mLaneCount) {
+            mLaneEnds = new int[mLaneCount];
+        }
+        // restore lane ends from the last placed item of each lane
+        Arrays.fill(mLaneEnds, -1);
+        for (int i = mPlacedCount - 1, found = 0; i >= 0 && found < mLaneCount; i--) {
+            final int lane = mLanes[i];
+            if (mLaneEnds[lane] < 0) {
+                mLaneEnds[lane] = mTops[i] + mHeights[i] + mVGap;
+                found++;
+            }
+        }
+        for (int l = 0; l < mLaneCount; l++) {
+            if (mLaneEnds[l] < 0) {
+                mLaneEnds[l] = 0;
+            }
+        }
+
+        final int lower = getRange().getLower();
+        final int end = Math.min(count, Math.max(index + 1, mPlacedCount + PLACEMENT_BATCH));
+        for (int i = mPlacedCount; i < end; i++) {
+            int lane = 0;
+            for (int l = 1; l < mLaneCount; l++) {
+                if (mLaneEnds[l] < mLaneEnds[lane]) {
+                    lane = l;
+                }
+            }
+
+            final float ratio = provider == null ? Float.NaN : provider.getAspectRatio(lower + i);
+            final int height = !Float.isNaN(ratio) && ratio > 0 ? (int) (laneWidth / ratio + 0.5f) : laneWidth;
+            mLanes[i] = lane;
+            mTops[i] = mLaneEnds[lane];
+            mHeights[i] = height;
+            mMaxBottoms[i] = Math.max(i > 0 ? mMaxBottoms[i - 1] : 0, mTops[i] + height);
+            mLaneEnds[lane] = mTops[i] + height + mVGap;
+        }
+        mPlacedCount = end;
+    }
+
+    private void invalidatePlacements(int index) {
+        mPlacedCount = Math.max(0, Math.min(mPlacedCount, index));
+    }
+}
@@ -31,7 +31,10 @@ import com.alibaba.android.vlayout.R;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
 
+import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
@@ -53,6 +56,8 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
     int mBgColor;
 
+    Drawable mBgDrawable;
+
     float mAspectRatio = Float.NaN;
 
     public BaseLayoutHelper() {
@@ -138,7 +143,7 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
         }
 
 
-        if (requireLayoutView()) {
+        if (requireLayoutView() && !isBackgroundOnCanvas(helper)) {
             if (mLayoutView != null) {
                 // TODO: recycle LayoutView
                 // helper.detachChildView(mLayoutView);
@@ -175,7 +180,13 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
         }
 
 
-        if (requireLayoutView()) {
+        if (isBackgroundOnCanvas(helper)) {
+            // region is computed again by adjustLayout() right before the background is drawn on canvas
+            mLayoutRegion.setEmpty();
+            if (mBgDrawable != null && (endPosition < getRange().getLower() || startPosition > getRange().getUpper())) {
+                unbindBgDrawable();
+            }
+        } else if (requireLayoutView()) {
             if (isValidScrolled(scrolled) && mLayoutView != null) {
                 // initial layout do reset
                 mLayoutRegion.union(mLayoutView.getLeft(), mLayoutView.getTop(), mLayoutView.getRight(), mLayoutView.getBottom());
@@ -230,37 +241,29 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
     }
 
+    private final Rect mChildrenRegion = new Rect();
+
     @Override
     public void adjustLayout(int startPosition, int endPosition, LayoutManagerHelper helper) {
-        if (requireLayoutView()) {
-            View refer = null;
-            Rect tempRect = new Rect();
-            final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        if (requireLayoutView() || mLayoutDrawableBindListener != null) {
+            mChildrenRegion.setEmpty();
             for (int i = 0; i < helper.getChildCount(); i++) {
-                refer = helper.getChildAt(i);
+                View refer = helper.getChildAt(i);
                 int anchorPos = helper.getPosition(refer);
-                if (getRange().contains(anchorPos)) {
-                    if (refer.getVisibility() == View.GONE) {
-                        tempRect.setEmpty();
-                    } else {
-                        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams)
-                            refer.getLayoutParams();
-                        if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
-                            tempRect.union(helper.getDecoratedLeft(refer) - params.leftMargin,
-                                orientationHelper.getDecoratedStart(refer),
-                                helper.getDecoratedRight(refer) + params.rightMargin,
-                                orientationHelper.getDecoratedEnd(refer));
-                        } else {
-                            tempRect.union(orientationHelper.getDecoratedStart(refer),
-                                helper.getDecoratedTop(refer) - params.topMargin, orientationHelper.getDecoratedEnd(refer),
-                                helper.getDecoratedBottom(refer) + params.bottomMargin);
-                        }
-                    }
+                if (!isOutOfRange(anchorPos)) {
+                    unionChildRegion(mChildrenRegion, refer, helper);
                 }
             }
-            if (!tempRect.isEmpty()) {
-                mLayoutRegion.set(tempRect.left - mPaddingLeft, tempRect.top - mPaddingTop,
-                    tempRect.right + mPaddingRight, tempRect.bottom + mPaddingBottom);
+            adjustLayout(startPosition, endPosition, mChildrenRegion, helper);
+        }
+    }
+
+    @Override
+    public void adjustLayout(int startPosition, int endPosition, @NonNull Rect childrenRegion, LayoutManagerHelper helper) {
+        if (requireLayoutView() || mLayoutDrawableBindListener != null) {
+            if (!childrenRegion.isEmpty()) {
+                mLayoutRegion.set(childrenRegion.left - mPaddingLeft, childrenRegion.top - mPaddingTop,
+                    childrenRegion.right + mPaddingRight, childrenRegion.bottom + mPaddingBottom);
             } else {
                 mLayoutRegion.setEmpty();
             }
@@ -270,6 +273,34 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
         }
     }
 
+    /**
+     * Union decorated bounds of a child, including its margins in secondary direction, into region.
+     * A gone child resets the region.
+     *
+     * @param region region to union into
+     * @param child  child view
+     * @param helper LayoutManagerHelper
+     */
+    public static void unionChildRegion(@NonNull Rect region, @NonNull View child, LayoutManagerHelper helper) {
+        if (child.getVisibility() == View.GONE) {
+            region.setEmpty();
+            return;
+        }
+
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+        if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
+            region.union(helper.getDecoratedLeft(child) - params.leftMargin,
+                orientationHelper.getDecoratedStart(child),
+                helper.getDecoratedRight(child) + params.rightMargin,
+                orientationHelper.getDecoratedEnd(child));
+        } else {
+            region.union(orientationHelper.getDecoratedStart(child),
+                helper.getDecoratedTop(child) - params.topMargin, orientationHelper.getDecoratedEnd(child),
+                helper.getDecoratedBottom(child) + params.bottomMargin);
+        }
+    }
+
     /**
      * Called when {@link com.alibaba.android.vlayout.LayoutHelper} get dropped
      * Do default clean jobs defined by framework
@@ -286,6 +317,7 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
             helper.removeChildView(mLayoutView);
             mLayoutView = null;
         }
+        unbindBgDrawable();
 
         // call user defined
         onClear(helper);
@@ -308,6 +340,75 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
         return mBgColor != 0 || mLayoutViewBindListener != null;
     }
 
+    /**
+     * Whether background of this layoutHelper should be drawn on RecyclerView's canvas
+     * by {@link VirtualLayoutManager#setDrawBackgroundOnCanvas(boolean)} instead of a LayoutView
+     *
+     * @param helper LayoutManagerHelper
+     * @return true if there is a background to draw on canvas
+     */
+    public boolean requireBackgroundOnCanvas(LayoutManagerHelper helper) {
+        return isBackgroundOnCanvas(helper) && (mBgColor != 0 || mLayoutDrawableBindListener != null);
+    }
+
+    /**
+     * A layoutHelper with a {@link LayoutViewBindListener} keeps its LayoutView, as the app binds its background to it
+     */
+    private boolean isBackgroundOnCanvas(LayoutManagerHelper helper) {
+        return !isFixLayout() && mLayoutViewBindListener == null && helper.isBackgroundDrawnOnCanvas();
+    }
+
+    /**
+     * Draw background into current layout region, which must be updated by {@link #adjustLayout(int, int, Rect, LayoutManagerHelper)} before.
+     * Like LayoutView, the background fills the whole content space in secondary direction.
+     *
+     * @param canvas   canvas of RecyclerView
+     * @param paint    shared paint to draw bgColor
+     * @param callback callback set to the bound drawable to invalidate RecyclerView
+     * @param helper   LayoutManagerHelper
+     */
+    public void drawLayoutBackground(@NonNull Canvas canvas, @NonNull Paint paint, Drawable.Callback callback,
+                                     LayoutManagerHelper helper) {
+        if (mLayoutRegion.isEmpty()) {
+            return;
+        }
+
+        if (helper.getOrientation() == VirtualLayoutManager.VERTICAL) {
+            mLayoutRegion.left = helper.getPaddingLeft() + mMarginLeft;
+            mLayoutRegion.right = helper.getContentWidth() - helper.getPaddingRight() - mMarginRight;
+        } else {
+            mLayoutRegion.top = helper.getPaddingTop() + mMarginTop;
+            mLayoutRegion.bottom = helper.getContentHeight() - helper.getPaddingBottom() - mMarginBottom;
+        }
+
+        if (mBgColor != 0) {
+            paint.setColor(mBgColor);
+            canvas.drawRect(mLayoutRegion, paint);
+        }
+
+        if (mBgDrawable == null && mLayoutDrawableBindListener != null) {
+            mBgDrawable = mLayoutDrawableBindListener.onBind(this);
+            if (mBgDrawable != null) {
+                mBgDrawable.setCallback(callback);
+            }
+        }
+
+        if (mBgDrawable != null) {
+            mBgDrawable.setBounds(mLayoutRegion);
+            mBgDrawable.draw(canvas);
+        }
+    }
+
+    private void unbindBgDrawable() {
+        if (mBgDrawable != null) {
+            mBgDrawable.setCallback(null);
+            if (mLayoutDrawableBindListener != null) {
+                mLayoutDrawableBindListener.onUnbind(mBgDrawable, this);
+            }
+            mBgDrawable = null;
+        }
+    }
+
     public abstract void layoutViews(RecyclerView.Recycler recycler, RecyclerView.State state,
                                      LayoutStateWrapper layoutState, LayoutChunkResult result,
                                      LayoutManagerHelper helper);
@@ -392,6 +493,27 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
     }
 
 
+    /**
+     * Listener to provide background drawable, like bgImage, when backgrounds are drawn on canvas
+     * via {@link VirtualLayoutManager#setDrawBackgroundOnCanvas(boolean)}
+     */
+    public interface LayoutDrawableBindListener {
+
+        /**
+         * Called when the background becomes visible
+         *
+         * @param baseLayoutHelper layoutHelper whose background will be drawn
+         * @return drawable drawn over bgColor until {@link #onUnbind(Drawable, BaseLayoutHelper)}, null if nothing to draw
+         */
+        @Nullable
+        Drawable onBind(BaseLayoutHelper baseLayoutHelper);
+
+        /**
+         * Called when the background is out of screen or layoutHelper is dropped
+         */
+        void onUnbind(Drawable drawable, BaseLayoutHelper baseLayoutHelper);
+    }
+
     public interface LayoutViewHelper {
 
         /**
@@ -406,6 +528,8 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
 
     private LayoutViewBindListener mLayoutViewBindListener;
 
+    private LayoutDrawableBindListener mLayoutDrawableBindListener;
+
     /**
      * Helper to decide whether call {@link LayoutViewBindListener#onBind(View, BaseLayoutHelper)}.
      * Here is a performance issue: {@link LayoutViewBindListener#onBind(View, BaseLayoutHelper)} is called during layout phase,
@@ -473,6 +597,16 @@ public abstract class BaseLayoutHelper extends MarginLayoutHelper {
         mLayoutViewUnBindListener = layoutViewUnBindListener;
     }
 
+    /**
+     * Only works when backgrounds are drawn on canvas, see {@link VirtualLayoutManager#setDrawBackgroundOnCanvas(boolean)}
+     * @param drawableBindListener provides the background drawable when the section becomes visible, and releases it
+     *                             when the section scrolls out or this layoutHelper is cleared
+     */
+    public void setLayoutDrawableBindListener(LayoutDrawableBindListener drawableBindListener) {
+        unbindBgDrawable();
+        mLayoutDrawableBindListener = drawableBindListener;
+    }
+
     @Override
     public void bindLayoutView(@NonNull final View layoutView) {
         layoutView.measure(View.MeasureSpec.makeMeasureSpec(mLayoutRegion.width(), View.MeasureSpec.EXACTLY),
@@ -0,0 +1,790 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.OrientationHelperEx;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.VirtualLayoutManager.AnchorInfoWrapper;
+import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
+
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.Scroller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static com.alibaba.android.vlayout.VirtualLayoutManager.VERTICAL;
+
+/**
+ * LayoutHelper layouts all its items in one horizontally scrollable row, the items are children
+ * of the outer {@link VirtualLayoutManager} directly, so no nested RecyclerView or ViewPager is
+ * needed. Only vertical VirtualLayoutManager is supported.
+ * <p>
+ * Horizontal drag, fling and snapping are handled by an
+ * {@link android.support.v7.widget.RecyclerView.OnItemTouchListener} registered on the
+ * RecyclerView. Scrolling offsets the attached items, fills the row edges with items from the
+ * recycler and recycles items scrolled out, so the rest of the page is not laid out again. A
+ * layout pass is only requested when the row can not be filled in place, such as when adapter
+ * updates are pending or an item is taller than the row.
+ */
+public class CarouselLayoutHelper extends BaseLayoutHelper {
+
+    private static final String TAG = "CarouselLayoutHelper";
+
+    private static final int SNAP_DURATION = 250;
+
+    private int mItemGap = 0;
+
+    private boolean mSnapToItem = false;
+
+    private int mScrollOffset = 0;
+
+    private int mRowHeight = 0;
+
+    /**
+     * decorated widths with margins of items measured, indexed by position in range, 0 if unknown
+     */
+    private int[] mItemWidths = new int[0];
+
+    private long mKnownWidthSum = 0;
+
+    private int mKnownWidthCount = 0;
+
+    private final ArrayList<View> mRowViews = new ArrayList<>();
+
+    private LayoutManagerHelper mLayoutManagerHelper;
+
+    private RecyclerView.Recycler mRecycler;
+
+    private RecyclerView mRecyclerView;
+
+    private final CarouselTouchHandler mTouchHandler = new CarouselTouchHandler();
+
+    public CarouselLayoutHelper() {
+        this(0);
+    }
+
+    public CarouselLayoutHelper(int itemGap) {
+        this(itemGap, 0);
+    }
+
+    public CarouselLayoutHelper(int itemGap, int itemCount) {
+        setItemCount(itemCount);
+        setItemGap(itemGap);
+    }
+
+    /**
+     * @param itemGap horizontal gap between items
+     */
+    public void setItemGap(int itemGap) {
+        if (itemGap < 0) {
+            itemGap = 0;
+        }
+        this.mItemGap = itemGap;
+    }
+
+    public int getItemGap() {
+        return mItemGap;
+    }
+
+    /**
+     * @param snapToItem whether to settle at the start of an item after dragging or flinging
+     */
+    public void setSnapToItem(boolean snapToItem) {
+        this.mSnapToItem = snapToItem;
+    }
+
+    public boolean isSnapToItem() {
+        return mSnapToItem;
+    }
+
+    /**
+     * @return horizontal scroll offset of the row in pixels
+     */
+    public int getScrollOffset() {
+        return mScrollOffset;
+    }
+
+    /**
+     * Set horizontal scroll offset of the row, takes effect in the next layout pass
+     */
+    public void setScrollOffset(int scrollOffset) {
+        mTouchHandler.stopScroll();
+        mScrollOffset = Math.max(0, scrollOffset);
+        requestRowLayout();
+    }
+
+    /**
+     * Scroll the row horizontally by dx pixels
+     *
+     * @return the distance actually scrolled
+     */
+    public int scrollHorizontallyBy(int dx) {
+        final LayoutManagerHelper helper = mLayoutManagerHelper;
+        if (helper == null || dx == 0) {
+            return 0;
+        }
+
+        final int target = Math.max(0, Math.min(mScrollOffset + dx, computeMaxScrollOffset(helper)));
+        final int consumed = target - mScrollOffset;
+        if (consumed == 0) {
+            return 0;
+        }
+        mScrollOffset = target;
+
+        boolean attached = false;
+        for (int i = 0, size = helper.getChildCount(); i < size; i++) {
+            final View child = helper.getChildAt(i);
+            if (!isOutOfRange(helper.getPosition(child))) {
+                child.offsetLeftAndRight(-consumed);
+                attached = true;
+            }
+        }
+
+        if (!attached || !fillRow(helper)) {
+            // let layout pass fill the row
+            requestRowLayout();
+        } else if (mRecyclerView != null) {
+            mRecyclerView.invalidate();
+        }
+        return consumed;
+    }
+
+    /**
+     * Fill the row edges uncovered by scrolling with items from the recycler, then recycle items
+     * scrolled out of the visible area, as a layout pass would
+     *
+     * @return false if the row can not be filled without a layout pass
+     */
+    private boolean fillRow(LayoutManagerHelper helper) {
+        final RecyclerView.Recycler recycler = mRecycler;
+        if (recycler == null || mRecyclerView == null || mRecyclerView.hasPendingAdapterUpdates()) {
+            return false;
+        }
+
+        int firstPos = -1, lastPos = -1, firstIndex = -1, lastIndex = -1;
+        int firstLeft = 0, lastRight = 0, rowTop = 0;
+        for (int i = 0, size = helper.getChildCount(); i < size; i++) {
+            final View child = helper.getChildAt(i);
+            final int position = helper.getPosition(child);
+            if (isOutOfRange(position)) {
+                continue;
+            }
+            final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) child.getLayoutParams();
+            if (firstPos < 0 || position < firstPos) {
+                firstPos = position;
+                firstIndex = i;
+                firstLeft = helper.getDecoratedLeft(child) - lp.leftMargin;
+                rowTop = helper.getDecoratedTop(child) - lp.topMargin;
+            }
+            if (lastPos < 0 || position > lastPos) {
+                lastPos = position;
+                lastIndex = i;
+                lastRight = helper.getDecoratedRight(child) + lp.rightMargin;
+            }
+        }
+        if (firstPos < 0) {
+            return false;
+        }
+
+        final int lower = getRange().getLower();
+        final int upper = getRange().getUpper();
+        final int visibleLeft = getVisibleLeft(helper);
+        final int visibleRight = getVisibleRight(helper);
+        final boolean isOverLapMargin = helper.isEnableMarginOverLap();
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        boolean fitsRow = true;
+
+        while (firstPos > lower && firstLeft - mItemGap > visibleLeft) {
+            final View view = recycler.getViewForPosition(--firstPos);
+            measureItem(view, helper, isOverLapMargin);
+            final int width = orientationHelper.getDecoratedMeasurementInOther(view);
+            final int height = orientationHelper.getDecoratedMeasurement(view);
+            setItemWidth(firstPos - lower, width);
+            // row items keep position order in children
+            helper.addChildView(view, firstIndex);
+            lastIndex++;
+            final int right = firstLeft - mItemGap;
+            layoutChildWithMargin(view, right - width, rowTop, right, rowTop + height, helper);
+            firstLeft = right - width;
+            fitsRow &= height <= mRowHeight;
+        }
+
+        while (lastPos < upper && lastRight + mItemGap < visibleRight) {
+            final View view = recycler.getViewForPosition(++lastPos);
+            measureItem(view, helper, isOverLapMargin);
+            final int width = orientationHelper.getDecoratedMeasurementInOther(view);
+            final int height = orientationHelper.getDecoratedMeasurement(view);
+            setItemWidth(lastPos - lower, width);
+            helper.addChildView(view, ++lastIndex);
+            final int left = lastRight + mItemGap;
+            layoutChildWithMargin(view, left, rowTop, left + width, rowTop + height, helper);
+            lastRight = left + width;
+            fitsRow &= height <= mRowHeight;
+        }
+
+        for (int i = lastIndex; i >= firstIndex; i--) {
+            final View child = helper.getChildAt(i);
+            if (isOutOfRange(helper.getPosition(child))) {
+                continue;
+            }
+            final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) child.getLayoutParams();
+            if (helper.getDecoratedRight(child) + lp.rightMargin <= visibleLeft
+                    || helper.getDecoratedLeft(child) - lp.leftMargin >= visibleRight) {
+                helper.removeChildView(child);
+                recycler.recycleView(child);
+            }
+        }
+        return fitsRow;
+    }
+
+    @Override
+    public void onRangeChange(int start, int end) {
+        final int count = end - start + 1;
+        if (count != mItemWidths.length) {
+            mItemWidths = Arrays.copyOf(mItemWidths, Math.max(count, 0));
+            recountKnownWidths();
+        }
+    }
+
+    @Override
+    public void onItemsChanged(LayoutManagerHelper helper) {
+        super.onItemsChanged(helper);
+        Arrays.fill(mItemWidths, 0);
+        recountKnownWidths();
+        mRowHeight = 0;
+    }
+
+    @Override
+    public void checkAnchorInfo(RecyclerView.State state, AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
+        // the whole row is laid out in one chunk, so anchor at the edge of the range
+        if (anchorInfo.layoutFromEnd) {
+            anchorInfo.position = getRange().getUpper();
+        } else {
+            anchorInfo.position = getRange().getLower();
+        }
+    }
+
+    @Override
+    public int computeAlignOffset(int offset, boolean isLayoutEnd, boolean useAnchor, LayoutManagerHelper helper) {
+        // all items share the row, align to the row edges whatever the item is
+        if (isLayoutEnd) {
+            int extra = 0;
+            final View child = helper.findViewByPosition(getRange().getLower() + offset);
+            if (child != null) {
+                // items are top aligned, shorter ones end above the row
+                final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) child.getLayoutParams();
+                extra = mRowHeight - (helper.getDecoratedBottom(child) + lp.bottomMargin
+                        - helper.getDecoratedTop(child) + lp.topMargin);
+            }
+            return Math.max(extra, 0) + mMarginBottom + mPaddingBottom;
+        } else {
+            return -mMarginTop - mPaddingTop;
+        }
+    }
+
+    @Override
+    public boolean isRecyclable(int childPos, int startIndex, int endIndex, LayoutManagerHelper helper, boolean fromStart) {
+        final View child = helper.findViewByPosition(childPos);
+        if (child == null) {
+            return true;
+        }
+
+        // recycle the row as a whole once it's out of screen, shorter items may be out earlier
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        final int rowTop = helper.getDecoratedTop(child)
+                - ((ViewGroup.MarginLayoutParams) child.getLayoutParams()).topMargin;
+        if (fromStart) {
+            return rowTop + mRowHeight <= orientationHelper.getStartAfterPadding();
+        } else {
+            return rowTop >= orientationHelper.getEndAfterPadding();
+        }
+    }
+
+    @Override
+    public void layoutViews(RecyclerView.Recycler recycler, RecyclerView.State state,
+            LayoutStateWrapper layoutState, LayoutChunkResult result, LayoutManagerHelper helper) {
+        // reach the end of this layout
+        if (isOutOfRange(layoutState.getCurrentPosition())) {
+            return;
+        }
+
+        if (helper.getOrientation() != VERTICAL) {
+            throw new IllegalStateException("CarouselLayoutHelper only supports vertical VirtualLayoutManager");
+        }
+
+        mLayoutManagerHelper = helper;
+        mRecycler = recycler;
+        attachTouchHandler(helper.getRecyclerView());
+
+        final int lower = getRange().getLower();
+        final int count = mItemWidths.length;
+        final int visibleLeft = getVisibleLeft(helper);
+        final int visibleRight = getVisibleRight(helper);
+        mScrollOffset = Math.min(mScrollOffset, computeMaxScrollOffset(helper));
+
+        // find the first item reaching the visible area, keep one more item before it
+        int first = 0;
+        int firstLeft = getRowLeft(helper) - mScrollOffset;
+        while (first < count - 1) {
+            final int width = getItemWidth(first);
+            if (firstLeft + width > visibleLeft) {
+                break;
+            }
+            firstLeft += width + mItemGap;
+            first++;
+        }
+        if (first > 0) {
+            first--;
+            firstLeft -= getItemWidth(first) + mItemGap;
+        }
+
+        // measure items until one more item beyond the visible area
+        final boolean isOverLapMargin = helper.isEnableMarginOverLap();
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        int rowHeight = mRowHeight;
+        int left = firstLeft;
+        for (int i = first; i < count; i++) {
+            final View view = layoutState.retrieve(recycler, lower + i);
+            if (view == null) {
+                break;
+            }
+            measureItem(view, helper, isOverLapMargin);
+            setItemWidth(i, orientationHelper.getDecoratedMeasurementInOther(view));
+            rowHeight = Math.max(rowHeight, orientationHelper.getDecoratedMeasurement(view));
+            mRowViews.add(view);
+            left += mItemWidths[i] + mItemGap;
+            if (left - mItemGap >= visibleRight) {
+                break;
+            }
+        }
+
+        // the whole range is consumed in this chunk
+        while (!isOutOfRange(layoutState.getCurrentPosition())) {
+            layoutState.skipCurrentPosition();
+        }
+
+        if (mRowViews.isEmpty()) {
+            result.mFinished = true;
+            return;
+        }
+
+        mRowHeight = rowHeight;
+        final boolean isLayoutEnd = layoutState.getLayoutDirection() == LayoutStateWrapper.LAYOUT_END;
+        final int startSpace = computeStartSpace(helper, true, isLayoutEnd, isOverLapMargin);
+        final int endSpace = computeEndSpace(helper, true, isLayoutEnd, isOverLapMargin);
+        result.mConsumed = rowHeight + startSpace + endSpace;
+
+        final int top;
+        if (isLayoutEnd) {
+            top = layoutState.getOffset() + startSpace;
+        } else {
+            top = layoutState.getOffset() - startSpace - rowHeight;
+        }
+
+        final int size = mRowViews.size();
+        for (int i = 0; i < size; i++) {
+            // views are prepended in LAYOUT_START, so add them backwards to keep position order
+            final View view = mRowViews.get(isLayoutEnd ? i : size - 1 - i);
+            helper.addChildView(layoutState, view);
+        }
+
+        left = firstLeft;
+        for (int i = 0; i < size; i++) {
+            final View view = mRowViews.get(i);
+            final int width = mItemWidths[first + i];
+            layoutChildWithMargin(view, left, top, left + width,
+                    top + orientationHelper.getDecoratedMeasurement(view), helper);
+            left += width + mItemGap;
+            handleStateOnResult(result, view);
+        }
+        mRowViews.clear();
+    }
+
+    @Override
+    protected void onClear(LayoutManagerHelper helper) {
+        super.onClear(helper);
+        attachTouchHandler(null);
+        mLayoutManagerHelper = null;
+        mRecycler = null;
+    }
+
+    private void measureItem(View view, LayoutManagerHelper helper, boolean isOverLapMargin) {
+        final VirtualLayoutManager.LayoutParams params = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
+        final int widthSize = getVisibleRight(helper) - getVisibleLeft(helper)
+                - getHorizontalMargin() - getHorizontalPadding();
+        // items can be as wide as they want, except match_parent ones which take the whole row
+        final int widthSpec = helper.getChildMeasureSpec(widthSize, params.width,
+                params.width == ViewGroup.LayoutParams.WRAP_CONTENT);
+        final int heightSpec;
+        if (params.width != ViewGroup.LayoutParams.WRAP_CONTENT
+                && !Float.isNaN(params.mAspectRatio) && params.mAspectRatio > 0) {
+            heightSpec = View.MeasureSpec.makeMeasureSpec(
+                    (int) (View.MeasureSpec.getSize(widthSpec) / params.mAspectRatio + 0.5f),
+                    View.MeasureSpec.EXACTLY);
+        } else {
+            heightSpec = helper.getChildMeasureSpec(
+                    helper.getContentHeight() - helper.getPaddingTop() - helper.getPaddingBottom()
+                            - getVerticalMargin() - getVerticalPadding(), params.height, true);
+        }
+
+        if (!isOverLapMargin) {
+            helper.measureChildWithMargins(view, widthSpec, heightSpec);
+        } else {
+            helper.measureChild(view, widthSpec, heightSpec);
+        }
+    }
+
+    private int getRowLeft(LayoutManagerHelper helper) {
+        return helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
+    }
+
+    private int getVisibleLeft(LayoutManagerHelper helper) {
+        return helper.getPaddingLeft();
+    }
+
+    private int getVisibleRight(LayoutManagerHelper helper) {
+        return helper.getContentWidth() - helper.getPaddingRight();
+    }
+
+    private int computeMaxScrollOffset(LayoutManagerHelper helper) {
+        final int count = mItemWidths.length;
+        if (count == 0) {
+            return 0;
+        }
+        long contentWidth = (long) mItemGap * (count - 1);
+        for (int i = 0; i < count; i++) {
+            contentWidth += getItemWidth(i);
+        }
+        final int rowWidth = getVisibleRight(helper) - getVisibleLeft(helper)
+                - getHorizontalMargin() - getHorizontalPadding();
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, contentWidth - rowWidth));
+    }
+
+    /**
+     * @return measured width of item, or the average of measured items if it's not measured yet
+     */
+    private int getItemWidth(int index) {
+        final int width = mItemWidths[index];
+        if (width > 0 || mKnownWidthCount == 0) {
+            return width;
+        }
+        return (int) (mKnownWidthSum / mKnownWidthCount);
+    }
+
+    private void setItemWidth(int index, int width) {
+        final int old = mItemWidths[index];
+        if (old > 0) {
+            mKnownWidthSum -= old;
+            mKnownWidthCount--;
+        }
+        mItemWidths[index] = width;
+        if (width > 0) {
+            mKnownWidthSum += width;
+            mKnownWidthCount++;
+        }
+    }
+
+    private void recountKnownWidths() {
+        mKnownWidthSum = 0;
+        mKnownWidthCount = 0;
+        for (int width : mItemWidths) {
+            if (width > 0) {
+                mKnownWidthSum += width;
+                mKnownWidthCount++;
+            }
+        }
+    }
+
+    /**
+     * @return scroll offset aligning the start of the item nearest to the given offset
+     */
+    private int findSnapOffset(int offset) {
+        final int count = mItemWidths.length;
+        int start = 0;
+        int snap = 0;
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(start - offset) < Math.abs(snap - offset)) {
+                snap = start;
+            }
+            if (start > offset) {
+                break;
+            }
+            start += getItemWidth(i) + mItemGap;
+        }
+        return snap;
+    }
+
+    private void requestRowLayout() {
+        if (mLayoutManagerHelper instanceof VirtualLayoutManager) {
+            ((VirtualLayoutManager) mLayoutManagerHelper).requestLayoutFor(this);
+        } else if (mRecyclerView != null) {
+            mRecyclerView.requestLayout();
+        }
+    }
+
+    private void attachTouchHandler(RecyclerView recyclerView) {
+        if (recyclerView == mRecyclerView) {
+            return;
+        }
+        if (mRecyclerView != null) {
+            mTouchHandler.stopScroll();
+            mRecyclerView.removeOnItemTouchListener(mTouchHandler);
+        }
+        mRecyclerView = recyclerView;
+        if (mRecyclerView != null) {
+            mRecyclerView.addOnItemTouchListener(mTouchHandler);
+        }
+    }
+
+    /**
+     * @return whether y in RecyclerView falls in the row of this helper
+     */
+    private boolean isInRow(float y) {
+        final LayoutManagerHelper helper = mLayoutManagerHelper;
+        if (helper == null) {
+            return false;
+        }
+        for (int i = 0, size = helper.getChildCount(); i < size; i++) {
+            final View child = helper.getChildAt(i);
+            if (!isOutOfRange(helper.getPosition(child))) {
+                final int top = helper.getDecoratedTop(child)
+                        - ((ViewGroup.MarginLayoutParams) child.getLayoutParams()).topMargin;
+                return y >= top && y < top + mRowHeight;
+            }
+        }
+        return false;
+    }
+
+    private final class CarouselTouchHandler implements RecyclerView.OnItemTouchListener, Runnable {
+
+        private Scroller mScroller;
+
+        private VelocityTracker mVelocityTracker;
+
+        private int mTouchSlop;
+
+        private int mMinFlingVelocity;
+
+        private int mMaxFlingVelocity;
+
+        private boolean mTracking;
+
+        private boolean mDragging;
+
+        private float mDownX;
+
+        private float mDownY;
+
+        private int mLastX;
+
+        private int mLastFlingX;
+
+        @Override
+        public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+            switch (e.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    mDragging = false;
+                    mTracking = isInRow(e.getY());
+                    if (mTracking) {
+                        init(rv);
+                        final boolean wasFlinging = !mScroller.isFinished();
+                        stopScroll();
+                        mDownX = e.getX();
+                        mDownY = e.getY();
+                        mLastX = (int) e.getX();
+                        mVelocityTracker.clear();
+                        mVelocityTracker.addMovement(e);
+                        if (wasFlinging) {
+                            // catch the row like a nested scrolling view does
+                            startDrag(rv);
+                            return true;
+                        }
+                    }
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    if (!mTracking) {
+                        break;
+                    }
+                    mVelocityTracker.addMovement(e);
+                    final float dx = Math.abs(e.getX() - mDownX);
+                    final float dy = Math.abs(e.getY() - mDownY);
+                    if (dx > mTouchSlop && dx > dy) {
+                        mLastX = (int) e.getX();
+                        startDrag(rv);
+                        return true;
+                    } else if (dy > mTouchSlop) {
+                        mTracking = false;
+                        recycleVelocityTracker();
+                    }
+                    break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    if (!mDragging) {
+                        // gesture ends without a drag
+                        mTracking = false;
+                        recycleVelocityTracker();
+                    }
+                    break;
+            }
+            return false;
+        }
+
+        @Override
+        public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+            if (!mDragging) {
+                return;
+            }
+            mVelocityTracker.addMovement(e);
+            switch (e.getActionMasked()) {
+                case MotionEvent.ACTION_MOVE:
+                    final int x = (int) e.getX();
+                    scrollHorizontallyBy(mLastX - x);
+                    mLastX = x;
+                    break;
+                case MotionEvent.ACTION_UP:
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+                    final int velocity = (int) mVelocityTracker.getXVelocity();
+                    endDrag();
+                    if (Math.abs(velocity) > mMinFlingVelocity) {
+                        fling(-velocity);
+                    } else {
+                        settle();
+                    }
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    endDrag();
+                    settle();
+                    break;
+            }
+        }
+
+        @Override
+        public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+
+        }
+
+        @Override
+        public void run() {
+            if (mScroller == null || !mScroller.computeScrollOffset()) {
+                return;
+            }
+            final int x = mScroller.getCurrX();
+            final int dx = x - mLastFlingX;
+            mLastFlingX = x;
+            if (dx != 0 && scrollHorizontallyBy(dx) == 0) {
+                // reach the edge
+                mScroller.abortAnimation();
+                return;
+            }
+            if (!mScroller.isFinished() && mRecyclerView != null) {
+                ViewCompat.postOnAnimation(mRecyclerView, this);
+            }
+        }
+
+        void stopScroll() {
+            if (mScroller != null && !mScroller.isFinished()) {
+                mScroller.abortAnimation();
+            }
+            if (mRecyclerView != null) {
+                mRecyclerView.removeCallbacks(this);
+            }
+        }
+
+        private void init(RecyclerView rv) {
+            if (mScroller == null) {
+                final ViewConfiguration configuration = ViewConfiguration.get(rv.getContext());
+                mTouchSlop = configuration.getScaledTouchSlop();
+                mMinFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+                mMaxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+                mScroller = new Scroller(rv.getContext());
+            }
+            if (mVelocityTracker == null) {
+                mVelocityTracker = VelocityTracker.obtain();
+            }
+        }
+
+        private void startDrag(RecyclerView rv) {
+            mDragging = true;
+            mTracking = false;
+            final ViewParent parent = rv.getParent();
+            if (parent != null) {
+                parent.requestDisallowInterceptTouchEvent(true);
+            }
+        }
+
+        private void endDrag() {
+            mDragging = false;
+            recycleVelocityTracker();
+        }
+
+        private void recycleVelocityTracker() {
+            if (mVelocityTracker != null) {
+                mVelocityTracker.recycle();
+                mVelocityTracker = null;
+            }
+        }
+
+        private void fling(int velocity) {
+            if (mLayoutManagerHelper == null) {
+                return;
+            }
+            final int maxOffset = computeMaxScrollOffset(mLayoutManagerHelper);
+            mScroller.fling(mScrollOffset, 0, velocity, 0, 0, maxOffset, 0, 0);
+            if (mSnapToItem) {
+                mScroller.setFinalX(Math.min(findSnapOffset(mScroller.getFinalX()), maxOffset));
+            }
+            startScroller();
+        }
+
+        private void settle() {
+            if (!mSnapToItem || mLayoutManagerHelper == null) {
+                return;
+            }
+            final int target = Math.min(findSnapOffset(mScrollOffset),
+                    computeMaxScrollOffset(mLayoutManagerHelper));
+            if (target != mScrollOffset) {
+                mScroller.startScroll(mScrollOffset, 0, target - mScrollOffset, 0, SNAP_DURATION);
+                startScroller();
+            }
+        }
+
+        private void startScroller() {
+            mLastFlingX = mScrollOffset;
+            if (mRecyclerView != null) {
+                ViewCompat.postOnAnimation(mRecyclerView, this);
+            }
+        }
+    }
+}
@@ -25,8 +25,10 @@
 package com.alibaba.android.vlayout.layout;
 
 import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.R;
 
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewPropertyAnimator;
 
 /**
@@ -37,6 +39,12 @@ public abstract class FixAreaLayoutHelper extends BaseLayoutHelper {
 
     protected FixViewAnimatorHelper mFixViewAnimatorHelper;
 
+    private View mMeasuredFixView;
+
+    private int mMeasuredWidthSpec;
+
+    private int mMeasuredHeightSpec;
+
     public void setAdjuster(FixAreaAdjuster adjuster) {
         this.mAdjuster = adjuster;
     }
@@ -55,6 +63,126 @@ public abstract class FixAreaLayoutHelper extends BaseLayoutHelper {
         return true;
     }
 
+    @Override
+    protected void onClear(LayoutManagerHelper helper) {
+        super.onClear(helper);
+        clearFixViewMeasure();
+    }
+
+    /**
+     * Measure fix view only if it has a pending layout request or the specs changed since it was
+     * last measured by this helper, so animating or dragging fix views is not measured again on
+     * every layout pass.
+     *
+     * @param withMargins whether to measure with {@link LayoutManagerHelper#measureChildWithMargins}
+     * @return true if the view was measured
+     */
+    protected boolean measureFixView(View view, int widthSpec, int heightSpec, boolean withMargins,
+            LayoutManagerHelper helper) {
+        if (view == mMeasuredFixView && !view.isLayoutRequested()
+                && widthSpec == mMeasuredWidthSpec && heightSpec == mMeasuredHeightSpec) {
+            return false;
+        }
+
+        if (withMargins) {
+            helper.measureChildWithMargins(view, widthSpec, heightSpec);
+        } else {
+            helper.measureChild(view, widthSpec, heightSpec);
+        }
+        mMeasuredFixView = view;
+        mMeasuredWidthSpec = widthSpec;
+        mMeasuredHeightSpec = heightSpec;
+        return true;
+    }
+
+    /**
+     * Forget the specs of the last measured fix view, should be called once it is recycled
+     */
+    protected void clearFixViewMeasure() {
+        mMeasuredFixView = null;
+    }
+
+    /**
+     * Layout fix view with margins. If it keeps its size and has no pending layout request, it is
+     * only offset to the new position, which won't layout its children again.
+     */
+    protected void layoutFixView(View view, int left, int top, int right, int bottom,
+            LayoutManagerHelper helper) {
+        if (view.isLayoutRequested() || view.getParent() == null) {
+            layoutChildWithMargin(view, left, top, right, bottom, helper);
+            return;
+        }
+
+        final ViewGroup.MarginLayoutParams lp = (ViewGroup.MarginLayoutParams) view.getLayoutParams();
+        final int curLeft = helper.getDecoratedLeft(view) - lp.leftMargin;
+        final int curTop = helper.getDecoratedTop(view) - lp.topMargin;
+        final int curRight = helper.getDecoratedRight(view) + lp.rightMargin;
+        final int curBottom = helper.getDecoratedBottom(view) + lp.bottomMargin;
+        if (curRight - curLeft != right - left || curBottom - curTop != bottom - top) {
+            layoutChildWithMargin(view, left, top, right, bottom, helper);
+            return;
+        }
+
+        if (left != curLeft) {
+            view.offsetLeftAndRight(left - curLeft);
+        }
+        if (top != curTop) {
+            view.offsetTopAndBottom(top - curTop);
+        }
+    }
+
+    /**
+     * Render fix view into a hardware layer while it's animated or dragged, animations only change
+     * its translation and alpha so the layer is not redrawn on each frame. Calls can be nested,
+     * the original layer type is restored by the matching {@link #endFixViewLayer(View)}.
+     * Fix view is not measured or laid out while the layer is active, it is requested to layout
+     * again when the layer ends only if a layout was skipped meanwhile.
+     */
+    protected static void startFixViewLayer(View view) {
+        int[] layer = (int[]) view.getTag(R.id.tag_fix_view_layer);
+        if (layer == null) {
+            // original layer type, nesting depth, and whether a layout was skipped
+            layer = new int[]{view.getLayerType(), 0, 0};
+            view.setTag(R.id.tag_fix_view_layer, layer);
+            if (layer[0] != View.LAYER_TYPE_HARDWARE) {
+                view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+        }
+        layer[1]++;
+    }
+
+    protected static void endFixViewLayer(View view) {
+        final int[] layer = (int[]) view.getTag(R.id.tag_fix_view_layer);
+        if (layer == null) {
+            return;
+        }
+        if (--layer[1] <= 0) {
+            view.setTag(R.id.tag_fix_view_layer, null);
+            if (layer[0] != View.LAYER_TYPE_HARDWARE) {
+                view.setLayerType(layer[0], null);
+            }
+            if (layer[2] != 0 && view.getParent() != null) {
+                // catch up with size changes and layout requests skipped while the layer was active
+                view.requestLayout();
+            }
+        }
+    }
+
+    /**
+     * Called instead of measuring and laying out fix view in a layout pass
+     *
+     * @return true if fix view is running an animation or being dragged, its layout is then skipped
+     * until the layer ends
+     */
+    protected static boolean skipFixViewLayout(View view) {
+        final int[] layer = view == null ? null : (int[]) view.getTag(R.id.tag_fix_view_layer);
+        if (layer == null) {
+            return false;
+        }
+        layer[2] = 1;
+        return true;
+    }
+
     public interface FixViewAnimatorHelper {
 
         ViewPropertyAnimator onGetFixViewAppearAnimator(View fixView);
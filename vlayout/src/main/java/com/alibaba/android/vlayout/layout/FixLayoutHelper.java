@@ -222,6 +222,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
             helper.removeChildView(mFixView);
             recycler.recycleView(mFixView);
             mFixView = null;
+            clearFixViewMeasure();
             isAddFixViewImmediately = true;
         }
 
@@ -248,6 +249,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
             }
 
             mFixView = null;
+            clearFixViewMeasure();
             return;
         }
 
@@ -289,6 +291,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
             if (mFixView != null) {
                 removeFixViewWithAnimator(recycler, helper, mFixView);
                 mFixView = null;
+                clearFixViewMeasure();
             }
         }
 
@@ -358,9 +361,10 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
     public void onClear(LayoutManagerHelper helper) {
         super.onClear(helper);
         if (mFixView != null) {
+            // cancel first so that the animation listener restores layer type before recycling
+            mFixView.animate().cancel();
             helper.removeChildView(mFixView);
             helper.recycleView(mFixView);
-            mFixView.animate().cancel();
             mFixView = null;
             isAddFixViewImmediately = false;
         }
@@ -371,6 +375,11 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
             return;
         }
 
+        if (skipFixViewLayout(view)) {
+            // keep bounds while animating, the animator only changes translation
+            return;
+        }
+
         final VirtualLayoutManager.LayoutParams params = (VirtualLayoutManager.LayoutParams) view
                 .getLayoutParams();
 
@@ -406,7 +415,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
             }
 
             // do measurement
-            helper.measureChildWithMargins(view, widthSpec, heightSpec);
+            measureFixView(view, widthSpec, heightSpec, true, helper);
         } else {
             final int heightSpec = helper.getChildMeasureSpec(
                     helper.getContentHeight() - helper.getPaddingTop() - helper.getPaddingBottom(),
@@ -439,7 +448,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
 
 
             // do measurement
-            helper.measureChildWithMargins(view, widthSpec, heightSpec);
+            measureFixView(view, widthSpec, heightSpec, true, helper);
         }
 
         int left, top, right, bottom;
@@ -469,7 +478,7 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
                     : orientationHelper.getDecoratedMeasurementInOther(view));
         }
 
-        layoutChildWithMargin(view, left, top, right, bottom, helper);
+        layoutFixView(view, left, top, right, bottom, helper);
     }
 
     private static class FixViewAppearAnimatorListener extends AnimatorListenerAdapter {
@@ -485,11 +494,13 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
 
         @Override
         public void onAnimationStart(Animator animation) {
+            startFixViewLayer(mFixView);
             mFixView.setVisibility(View.VISIBLE);
         }
 
         @Override
         public void onAnimationEnd(Animator animation) {
+            endFixViewLayer(mFixView);
         }
     }
 
@@ -515,11 +526,14 @@ public class FixLayoutHelper extends FixAreaLayoutHelper {
 
         @Override
         public void onAnimationStart(Animator animation) {
+            startFixViewLayer(mFixView);
         }
 
         @Override
         public void onAnimationEnd(Animator animation) {
             mLayoutManagerHelper.removeChildView(mFixView);
+            // restored once removed, so a view going away is not requested to layout
+            endFixViewLayer(mFixView);
             mRecycler.recycleView(mFixView);
             isAnimating = false;
             if (mEndAction != null) {
@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.OrientationHelperEx;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+import com.alibaba.android.vlayout.VirtualLayoutManager.AnchorInfoWrapper;
+
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.RecyclerView.State;
+import android.view.View;
+
+import static android.support.v7.widget.LinearLayoutManager.VERTICAL;
+
+/**
+ * LayoutHelper layouts views as linear/ListView whose items share the same extent in main axis, such as settings
+ * rows. Items are measured with an exact main axis spec, and the offset of any item is computed arithmetically,
+ * so {@link VirtualLayoutManager#getOffsetToStart()} stays exact after jumping with
+ * {@link VirtualLayoutManager#scrollToPositionWithOffset(int, int)}.
+ * <p/>
+ * The extent is either declared or taken from the first measured item. Item margins in main axis are not
+ * collapsed even when margin overlap is enabled, otherwise the extent would not be uniform.
+ */
+public class FixedExtentLinearLayoutHelper extends BaseLayoutHelper {
+
+    private static final String TAG = "FixedExtentLinearLayoutHelper";
+
+    private int mItemExtent = 0;
+
+    private int mDividerHeight = 0;
+
+    /**
+     * main axis length of a laid out item, with decorations and margins, 0 if no item is laid out yet. Until then the
+     * declared extent is used as the stride
+     */
+    private int mItemStride = 0;
+
+    /**
+     * main axis size of the first measured item, used when no extent is declared
+     */
+    private int mPrototypeExtent = 0;
+
+    private boolean mLayoutWithAnchor = false;
+
+    public FixedExtentLinearLayoutHelper() {
+        this(0);
+    }
+
+    /**
+     * @param itemExtent main axis size of each item, 0 to use the size of the first measured item
+     */
+    public FixedExtentLinearLayoutHelper(int itemExtent) {
+        this(itemExtent, 0);
+    }
+
+    public FixedExtentLinearLayoutHelper(int itemExtent, int dividerHeight) {
+        this(itemExtent, dividerHeight, 0);
+    }
+
+    public FixedExtentLinearLayoutHelper(int itemExtent, int dividerHeight, int itemCount) {
+        setItemCount(itemCount);
+        setItemExtent(itemExtent);
+        setDividerHeight(dividerHeight);
+    }
+
+    /**
+     * @param itemExtent main axis size of each item, without decorations and margins. 0 means the size of the
+     *                   first measured item is used
+     */
+    public void setItemExtent(int itemExtent) {
+        if (itemExtent < 0) {
+            itemExtent = 0;
+        }
+        if (itemExtent != mItemExtent) {
+            mItemExtent = itemExtent;
+            mItemStride = 0;
+            mPrototypeExtent = 0;
+        }
+    }
+
+    public int getItemExtent() {
+        return mItemExtent;
+    }
+
+    public void setDividerHeight(int dividerHeight) {
+        if (dividerHeight < 0) {
+            dividerHeight = 0;
+        }
+        this.mDividerHeight = dividerHeight;
+    }
+
+    @Override
+    public void layoutViews(RecyclerView.Recycler recycler, RecyclerView.State state,
+            VirtualLayoutManager.LayoutStateWrapper layoutState, LayoutChunkResult result,
+            LayoutManagerHelper helper) {
+        // reach the end of this layout
+        if (isOutOfRange(layoutState.getCurrentPosition())) {
+            return;
+        }
+        int currentPosition = layoutState.getCurrentPosition();
+
+        // find corresponding layout container
+        View view = nextView(recycler, layoutState, helper, result);
+        if (view == null) {
+            return;
+        }
+
+        VirtualLayoutManager.LayoutParams params = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+        final boolean isLayoutEnd = layoutState.getLayoutDirection() == VirtualLayoutManager.LayoutStateWrapper.LAYOUT_END;
+        final boolean isStartLine = isLayoutEnd
+                ? currentPosition == getRange().getLower().intValue()
+                : currentPosition == getRange().getUpper().intValue();
+        final boolean isEndLine = isLayoutEnd
+                ? currentPosition == getRange().getUpper().intValue()
+                : currentPosition == getRange().getLower().intValue();
+
+        final int startSpace = isStartLine ? computeStartSpace(helper, layoutInVertical, isLayoutEnd, false) : 0;
+        final int endSpace = isEndLine ? computeEndSpace(helper, layoutInVertical, isLayoutEnd, false) : 0;
+        final int gap = isStartLine || mLayoutWithAnchor ? 0 : mDividerHeight;
+
+        // main axis size is known, so the item never measures its content to find it
+        final int extent = mItemExtent > 0 ? mItemExtent : mPrototypeExtent;
+        final int widthSpec, heightSpec;
+        if (layoutInVertical) {
+            widthSpec = helper.getChildMeasureSpec(helper.getContentWidth() - helper.getPaddingLeft()
+                    - helper.getPaddingRight() - getHorizontalMargin() - getHorizontalPadding(), params.width, false);
+            heightSpec = extent > 0 ? View.MeasureSpec.makeMeasureSpec(extent, View.MeasureSpec.EXACTLY)
+                    : helper.getChildMeasureSpec(helper.getContentHeight() - helper.getPaddingTop()
+                            - helper.getPaddingBottom() - getVerticalMargin() - getVerticalPadding(), params.height, true);
+        } else {
+            heightSpec = helper.getChildMeasureSpec(helper.getContentHeight() - helper.getPaddingTop()
+                    - helper.getPaddingBottom() - getVerticalMargin() - getVerticalPadding(), params.height, false);
+            widthSpec = extent > 0 ? View.MeasureSpec.makeMeasureSpec(extent, View.MeasureSpec.EXACTLY)
+                    : helper.getChildMeasureSpec(helper.getContentWidth() - helper.getPaddingLeft()
+                            - helper.getPaddingRight() - getHorizontalMargin() - getHorizontalPadding(), params.width, true);
+        }
+        helper.measureChildWithMargins(view, widthSpec, heightSpec);
+        if (extent <= 0) {
+            mPrototypeExtent = layoutInVertical ? view.getMeasuredHeight() : view.getMeasuredWidth();
+        }
+
+        OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        final int stride = orientationHelper.getDecoratedMeasurement(view);
+        mItemStride = stride;
+        result.mConsumed = stride + startSpace + endSpace + gap;
+
+        int left, top, right, bottom;
+        if (layoutInVertical) {
+            if (helper.isDoLayoutRTL()) {
+                right = helper.getContentWidth() - helper.getPaddingRight() - mMarginRight - mPaddingRight;
+                left = right - orientationHelper.getDecoratedMeasurementInOther(view);
+            } else {
+                left = helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
+                right = left + orientationHelper.getDecoratedMeasurementInOther(view);
+            }
+
+            if (isLayoutEnd) {
+                top = layoutState.getOffset() + startSpace + gap;
+                bottom = top + stride;
+            } else {
+                bottom = layoutState.getOffset() - startSpace - gap;
+                top = bottom - stride;
+            }
+        } else {
+            top = helper.getPaddingTop() + mMarginTop + mPaddingTop;
+            bottom = top + orientationHelper.getDecoratedMeasurementInOther(view);
+
+            if (isLayoutEnd) {
+                left = layoutState.getOffset() + startSpace + gap;
+                right = left + stride;
+            } else {
+                right = layoutState.getOffset() - startSpace - gap;
+                left = right - stride;
+            }
+        }
+        layoutChildWithMargin(view, left, top, right, bottom, helper);
+
+        handleStateOnResult(result, view);
+        mLayoutWithAnchor = false;
+    }
+
+    @Override
+    public void checkAnchorInfo(State state, AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
+        super.checkAnchorInfo(state, anchorInfo, helper);
+        mLayoutWithAnchor = true;
+    }
+
+    @Override
+    public int computeAlignOffset(int offset, boolean isLayoutEnd, boolean useAnchor, LayoutManagerHelper helper) {
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+
+        if (isLayoutEnd) {
+            if (offset == getItemCount() - 1) {
+                return layoutInVertical ? mMarginBottom + mPaddingBottom : mMarginRight + mPaddingRight;
+            }
+        } else {
+            if (offset == 0) {
+                return layoutInVertical ? -mMarginTop - mPaddingTop : -mMarginLeft - mPaddingLeft;
+            }
+        }
+
+        return super.computeAlignOffset(offset, isLayoutEnd, useAnchor, helper);
+    }
+
+    @Override
+    public int computeOffsetToPosition(int position, LayoutManagerHelper helper) {
+        // decorations and margins are only known once an item is laid out, assume none before that
+        final int itemStride = mItemStride > 0 ? mItemStride : mItemExtent;
+        if (itemStride <= 0) {
+            return -1;
+        }
+
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+        // same spaces as the ones consumed in layoutViews
+        final int startSpace = computeStartSpace(helper, layoutInVertical, true, false);
+        final int index = position - getRange().getLower();
+        final int count = getItemCount();
+        if (index < count) {
+            return startSpace + index * (itemStride + mDividerHeight);
+        }
+
+        final int endSpace = computeEndSpace(helper, layoutInVertical, true, false);
+        return startSpace + count * itemStride + Math.max(count - 1, 0) * mDividerHeight + endSpace;
+    }
+
+}
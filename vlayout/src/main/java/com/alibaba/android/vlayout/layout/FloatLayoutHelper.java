@@ -28,6 +28,8 @@ import com.alibaba.android.vlayout.LayoutManagerHelper;
 import com.alibaba.android.vlayout.OrientationHelperEx;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.graphics.Rect;
 import android.support.annotation.Nullable;
@@ -176,6 +178,7 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
             helper.recycleView(mFixView);
             mFixView.setOnTouchListener(null);
             mFixView = null;
+            clearFixViewMeasure();
         }
 
         mDoNormalHandle = false;
@@ -192,6 +195,7 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
 
         if (mDoNormalHandle) {
             mFixView = null;
+            clearFixViewMeasure();
             return;
         }
 
@@ -256,6 +260,9 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
     private void doMeasureAndLayout(View view, LayoutManagerHelper helper) {
         if (view == null || helper == null) return;
 
+        // keep bounds while dragging or pulling over, translation is relative to them
+        if (skipFixViewLayout(view)) return;
+
         final VirtualLayoutManager.LayoutParams params = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
         final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
         if (layoutInVertical) {
@@ -276,7 +283,7 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
                         params.height, layoutInVertical);
             }
             // do measurement, measure child without taking off margins, see https://github.com/alibaba/Tangram-Android/issues/81
-            helper.measureChild(view, widthSpec, heightSpec);
+            measureFixView(view, widthSpec, heightSpec, false, helper);
         } else {
             int widthSpec;
             final int heightSpec = helper.getChildMeasureSpec(
@@ -295,7 +302,7 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
                         params.width, !layoutInVertical);
             }
             // do measurement,  measure child without taking off margins, see https://github.com/alibaba/Tangram-Android/issues/81
-            helper.measureChild(view, widthSpec, heightSpec);
+            measureFixView(view, widthSpec, heightSpec, false, helper);
         }
 
 
@@ -345,13 +352,15 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
             top = bottom - (layoutInVertical ? orientationHelper.getDecoratedMeasurement(view) : orientationHelper.getDecoratedMeasurementInOther(view));
         }
 
-        layoutChildWithMargin(view, left, top, right, bottom, helper);
+        layoutFixView(view, left, top, right, bottom, helper);
     }
 
 
     private final View.OnTouchListener touchDragListener = new View.OnTouchListener() {
         private boolean isDrag;
 
+        private boolean isLayerStarted;
+
         private int mTouchSlop;
 
         private int lastPosX;
@@ -370,6 +379,14 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
 
         private final Rect parentLoction = new Rect();
 
+        // shared by pull over animations, the layer is released on the animated view
+        private final AnimatorListenerAdapter pullOverListener = new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                endFixViewLayer((View) ((ObjectAnimator) animation).getTarget());
+            }
+        };
+
         @Override
         public boolean onTouch(View v, MotionEvent event) {
             // 做初始化
@@ -405,6 +422,10 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
                             || Math.abs(event.getY() - lastPosY) > mTouchSlop) {
                         isDrag = true;
                     }
+                    if (isDrag && !isLayerStarted) {
+                        isLayerStarted = true;
+                        startFixViewLayer(v);
+                    }
                     if (isDrag) {
                         int posX = (int) event.getRawX();
                         int posY = (int) event.getRawY();
@@ -430,6 +451,10 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
                     doPullOverAnimation(v);
+                    if (isLayerStarted) {
+                        isLayerStarted = false;
+                        endFixViewLayer(v);
+                    }
                     (v.getParent()).requestDisallowInterceptTouchEvent(false);
                     v.setPressed(false);
                     break;
@@ -437,7 +462,7 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
             return isDrag;
         }
 
-        private void doPullOverAnimation(final View v) {
+        private void doPullOverAnimation(View v) {
             ObjectAnimator animator;
             if (v.getTranslationX() + v.getWidth() / 2 + v.getLeft() > parentViewWidth / 2) {
                 animator = ObjectAnimator.ofFloat(v, "translationX",
@@ -452,6 +477,9 @@ public class FloatLayoutHelper extends FixAreaLayoutHelper {
 
             mTransitionY = (int) v.getTranslationY();
             animator.setDuration(200);
+            // promote before start so the layer is kept when the drag releases its own
+            startFixViewLayer(v);
+            animator.addListener(pullOverListener);
             animator.start();
         }
     };
@@ -0,0 +1,536 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+import com.alibaba.android.vlayout.OrientationHelperEx;
+import com.alibaba.android.vlayout.VirtualLayoutManager.AnchorInfoWrapper;
+import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.alibaba.android.vlayout.VirtualLayoutManager.VERTICAL;
+
+/**
+ * LayoutHelper places items of various widths from left to right and wraps them into lines, like tag clouds or
+ * chip groups, with every item as a child of RecyclerView. Each layout chunk is a line, so lines out of screen
+ * are recycled as a whole and lines are laid out incrementally in both directions.
+ * <p/>
+ * Widths of items and line breaks are cached for the available width, so scrolling back reuses them. Lines are
+ * broken from the line layout starts at: towards end from the first item of a line, towards start from the last one.
+ * So jumping to an item never measures the items before it, and lines scrolled to agree with the ones laid out
+ * before. After a jump the first line may hold fewer items than fit. The item found not to fit in a line is held
+ * and laid out in the next one without binding it again.
+ * Only vertical VirtualLayoutManager is supported.
+ */
+public class FlowLayoutHelper extends BaseLayoutHelper {
+
+    private int mHGap = 0;
+
+    private int mVGap = 0;
+
+    private boolean mLayoutWithAnchor = false;
+
+    private int mAvailableWidth = -1;
+
+    /**
+     * decorated widths with margins of items, -1 if not measured
+     */
+    private int[] mItemWidths = new int[0];
+
+    /**
+     * height of the line where each item was laid out last time
+     */
+    private int[] mItemLineHeights = new int[0];
+
+    /**
+     * first item of each line, for items from {@link #mBrokenStart} to {@link #mBrokenEnd}, starting at
+     * {@link #mFirstLine} so lines can be prepended
+     */
+    private int[] mLineStarts = new int[16];
+
+    private int mFirstLine = 8;
+
+    private int mLineCount = 0;
+
+    private int mBrokenStart = 0;
+
+    private int mBrokenEnd = 0;
+
+    private final ArrayList<View> mLineViews = new ArrayList<>();
+
+    /**
+     * measured view of the item at {@link #mHeldIndex}, which didn't fit in the line laid out last, null once taken.
+     * It's recycled after layout if not used.
+     */
+    private View mHeldView;
+
+    private int mHeldIndex = -1;
+
+    public FlowLayoutHelper() {
+        this(0, 0);
+    }
+
+    public FlowLayoutHelper(int hGap, int vGap) {
+        this(hGap, vGap, 0);
+    }
+
+    public FlowLayoutHelper(int hGap, int vGap, int itemCount) {
+        setItemCount(itemCount);
+        setHGap(hGap);
+        setVGap(vGap);
+    }
+
+    /**
+     * @param hGap horizontal gap between items in a line
+     */
+    public void setHGap(int hGap) {
+        if (hGap < 0) {
+            hGap = 0;
+        }
+        if (hGap != mHGap) {
+            mHGap = hGap;
+            invalidateLines(0);
+        }
+    }
+
+    /**
+     * @param vGap vertical gap between lines
+     */
+    public void setVGap(int vGap) {
+        if (vGap < 0) {
+            vGap = 0;
+        }
+        this.mVGap = vGap;
+    }
+
+    @Override
+    public void onRangeChange(int start, int end) {
+        // positions are changed, cached widths don't belong to them any more
+        mAvailableWidth = -1;
+    }
+
+    @Override
+    public void onItemsChanged(LayoutManagerHelper helper) {
+        mAvailableWidth = -1;
+    }
+
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        final int index = Math.max(0, positionStart - getRange().getLower());
+        if (index < mItemWidths.length) {
+            Arrays.fill(mItemWidths, index, mItemWidths.length, -1);
+        }
+        invalidateLines(index);
+    }
+
+    @Override
+    public void checkAnchorInfo(RecyclerView.State state, AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
+        final int index = anchorInfo.position - getRange().getLower();
+        if (!state.isPreLayout() && index >= mBrokenStart && index < mBrokenEnd) {
+            // move anchor to the start or end of its line, they share the same top
+            final int line = findLine(index);
+            anchorInfo.position = getRange().getLower() + (anchorInfo.layoutFromEnd ? getLineEnd(line) - 1 : getLineStart(line));
+        }
+        mLayoutWithAnchor = true;
+    }
+
+    @Override
+    public void layoutViews(RecyclerView.Recycler recycler, RecyclerView.State state,
+            LayoutStateWrapper layoutState, LayoutChunkResult result, LayoutManagerHelper helper) {
+        // reach the end of this layout
+        if (isOutOfRange(layoutState.getCurrentPosition())) {
+            return;
+        }
+
+        if (helper.getOrientation() != VERTICAL) {
+            throw new IllegalStateException("FlowLayoutHelper only supports vertical VirtualLayoutManager");
+        }
+
+        ensureCache(helper);
+        final int lower = getRange().getLower();
+        final int index = layoutState.getCurrentPosition() - lower;
+        final boolean isLayoutEnd = layoutState.getLayoutDirection() == LayoutStateWrapper.LAYOUT_END;
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+
+        // collect items of the line in position order
+        int first, last;
+        if (isLayoutEnd) {
+            first = index;
+            last = collectLineToEnd(index, recycler, layoutState, helper);
+        } else {
+            last = index;
+            first = collectLineToStart(index, recycler, layoutState, helper);
+        }
+
+        final int size = mLineViews.size();
+        if (size == 0) {
+            result.mFinished = true;
+            return;
+        }
+
+        // the line is consumed in this chunk
+        for (int i = 0; i < size; i++) {
+            layoutState.skipCurrentPosition();
+            // views are prepended in LAYOUT_START, so add them backwards to keep position order
+            helper.addChildView(layoutState, mLineViews.get(isLayoutEnd ? i : size - 1 - i));
+        }
+
+        int lineHeight = 0;
+        for (int i = 0; i < size; i++) {
+            lineHeight = Math.max(lineHeight, orientationHelper.getDecoratedMeasurement(mLineViews.get(i)));
+        }
+
+        final boolean isFirstLine = first == 0;
+        final boolean isLastLine = last == getItemCount() - 1;
+        final int startSpace = isFirstLine ? computeStartSpace(helper, true, true, false) : 0;
+        final int endSpace = isLastLine ? computeEndSpace(helper, true, true, false) : 0;
+        final int top;
+        if (isLayoutEnd) {
+            // gap above the line, not needed when laying out from anchor
+            final int gap = isFirstLine ? startSpace : (mLayoutWithAnchor ? 0 : mVGap);
+            top = layoutState.getOffset() + gap;
+            result.mConsumed = gap + lineHeight + endSpace;
+        } else {
+            // gap below the line
+            final int gap = isLastLine ? endSpace : mVGap;
+            top = layoutState.getOffset() - gap - lineHeight;
+            result.mConsumed = gap + lineHeight + startSpace;
+        }
+
+        int left = helper.getPaddingLeft() + mMarginLeft + mPaddingLeft;
+        for (int i = 0; i < size; i++) {
+            final View view = mLineViews.get(i);
+            final int width = orientationHelper.getDecoratedMeasurementInOther(view);
+            layoutChildWithMargin(view, left, top, left + width,
+                    top + orientationHelper.getDecoratedMeasurement(view), helper);
+            mItemLineHeights[first + i] = lineHeight;
+            left += width + mHGap;
+            handleStateOnResult(result, view);
+        }
+        mLineViews.clear();
+        mLayoutWithAnchor = false;
+    }
+
+    @Override
+    public void afterLayout(RecyclerView.Recycler recycler, RecyclerView.State state, int startPosition, int endPosition,
+            int scrolled, LayoutManagerHelper helper) {
+        super.afterLayout(recycler, state, startPosition, endPosition, scrolled, helper);
+        releaseHeldView(recycler);
+    }
+
+    @Override
+    protected void onClear(LayoutManagerHelper helper) {
+        super.onClear(helper);
+        final View view = mHeldView;
+        mHeldView = null;
+        mHeldIndex = -1;
+        // a view attached or temporarily detached from RecyclerView is owned by it, only recycle an unused one
+        if (view != null && view.getParent() == null && view.getWindowToken() == null) {
+            final RecyclerView recyclerView = helper.getRecyclerView();
+            final RecyclerView.ViewHolder holder = helper.getChildViewHolder(view);
+            if (recyclerView != null && holder != null) {
+                recyclerView.getRecycledViewPool().putRecycledView(holder);
+            }
+        }
+    }
+
+    @Override
+    public int computeAlignOffset(int offset, boolean isLayoutEnd, boolean useAnchor, LayoutManagerHelper helper) {
+        if (isLayoutEnd) {
+            int extra = 0;
+            final View child = helper.findViewByPosition(getRange().getLower() + offset);
+            if (child != null && offset < mItemLineHeights.length) {
+                // items are top aligned, shorter ones end above the line
+                extra = Math.max(0, mItemLineHeights[offset] - helper.getMainOrientationHelper().getDecoratedMeasurement(child));
+            }
+            if (offset == getItemCount() - 1) {
+                return extra + computeEndSpace(helper, true, true, false);
+            }
+            return extra;
+        } else {
+            if (offset == 0) {
+                return -computeStartSpace(helper, true, true, false);
+            }
+        }
+        return super.computeAlignOffset(offset, isLayoutEnd, useAnchor, helper);
+    }
+
+    @Override
+    public boolean isRecyclable(int childPos, int startIndex, int endIndex, LayoutManagerHelper helper, boolean fromStart) {
+        final int index = childPos - getRange().getLower();
+        final View child = helper.findViewByPosition(childPos);
+        if (child == null || index < 0 || index >= mItemLineHeights.length) {
+            return true;
+        }
+
+        // recycle the line as a whole once it's out of screen, shorter items may be out earlier
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        final int top = orientationHelper.getDecoratedStart(child);
+        if (fromStart) {
+            return top + mItemLineHeights[index] <= orientationHelper.getStartAfterPadding();
+        } else {
+            return top >= orientationHelper.getEndAfterPadding();
+        }
+    }
+
+    /**
+     * Collect items from <code>index</code> until the line is full, using cached line breaks if there are
+     *
+     * @return index of the last item in line
+     */
+    private int collectLineToEnd(int index, RecyclerView.Recycler recycler, LayoutStateWrapper layoutState,
+            LayoutManagerHelper helper) {
+        final int count = getItemCount();
+        int cachedEnd = -1;
+        if (index >= mBrokenStart && index < mBrokenEnd) {
+            final int line = findLine(index);
+            if (getLineStart(line) == index) {
+                cachedEnd = getLineEnd(line);
+            }
+        } else if (index != mBrokenEnd) {
+            // away from cached lines, break lines from here
+            resetLines(index);
+        }
+
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        int lineWidth = 0;
+        int i = index;
+        for (; i < count && (cachedEnd < 0 || i < cachedEnd); i++) {
+            if (cachedEnd < 0 && i > index && mItemWidths[i] >= 0
+                    && lineWidth + mHGap + mItemWidths[i] > mAvailableWidth) {
+                // known not to fit, break before retrieving it
+                break;
+            }
+            final View view = retrieveItem(i, recycler, layoutState, helper);
+            if (view == null) {
+                break;
+            }
+            final int width = orientationHelper.getDecoratedMeasurementInOther(view);
+            mItemWidths[i] = width;
+            if (cachedEnd < 0) {
+                final int needed = i == index ? width : lineWidth + mHGap + width;
+                if (i > index && needed > mAvailableWidth) {
+                    // doesn't fit, it starts the next line, hold it for that line
+                    holdView(i, view, recycler);
+                    break;
+                }
+                lineWidth = needed;
+            }
+            mLineViews.add(view);
+        }
+
+        if (cachedEnd < 0 && index == mBrokenEnd && i > index) {
+            appendLine(index, i);
+        }
+        return i - 1;
+    }
+
+    /**
+     * Collect items from <code>index</code> backwards until the line is full, using cached line breaks if there are
+     *
+     * @return index of the first item in line
+     */
+    private int collectLineToStart(int index, RecyclerView.Recycler recycler, LayoutStateWrapper layoutState,
+            LayoutManagerHelper helper) {
+        int cachedStart = -1;
+        if (index >= mBrokenStart && index < mBrokenEnd) {
+            cachedStart = getLineStart(findLine(index));
+        } else if (index != mBrokenStart - 1) {
+            // away from cached lines, break lines from here
+            resetLines(index + 1);
+        }
+
+        final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
+        int lineWidth = 0;
+        int i = index;
+        for (; i >= 0 && (cachedStart < 0 || i >= cachedStart); i--) {
+            if (cachedStart < 0 && i < index && mItemWidths[i] >= 0
+                    && lineWidth + mHGap + mItemWidths[i] > mAvailableWidth) {
+                // known not to fit, break after it before retrieving it
+                break;
+            }
+            final View view = retrieveItem(i, recycler, layoutState, helper);
+            if (view == null) {
+                break;
+            }
+            final int width = orientationHelper.getDecoratedMeasurementInOther(view);
+            mItemWidths[i] = width;
+            if (cachedStart < 0) {
+                final int needed = i == index ? width : lineWidth + mHGap + width;
+                if (i < index && needed > mAvailableWidth) {
+                    // doesn't fit, it ends the previous line, hold it for that line
+                    holdView(i, view, recycler);
+                    break;
+                }
+                lineWidth = needed;
+            }
+            mLineViews.add(view);
+        }
+
+        if (cachedStart < 0 && index == mBrokenStart - 1 && i < index) {
+            prependLine(i + 1);
+        }
+        // collected backwards
+        Collections.reverse(mLineViews);
+        return i + 1;
+    }
+
+    /**
+     * @return measured view of item at <code>index</code>, the held one or retrieved and measured
+     */
+    private View retrieveItem(int index, RecyclerView.Recycler recycler, LayoutStateWrapper layoutState,
+            LayoutManagerHelper helper) {
+        if (index == mHeldIndex && mHeldView != null) {
+            final View view = mHeldView;
+            mHeldView = null;
+            mHeldIndex = -1;
+            return view;
+        }
+        final View view = layoutState.retrieve(recycler, getRange().getLower() + index);
+        if (view != null) {
+            measureItem(view, helper);
+        }
+        return view;
+    }
+
+    /**
+     * Hold view of the item starting the next line, the view held before is recycled
+     */
+    private void holdView(int index, View view, RecyclerView.Recycler recycler) {
+        releaseHeldView(recycler);
+        if (view.getParent() != null) {
+            // attached child is laid out as it is
+            return;
+        }
+        mHeldView = view;
+        mHeldIndex = index;
+    }
+
+    private void releaseHeldView(RecyclerView.Recycler recycler) {
+        if (mHeldView != null && mHeldView.getParent() == null) {
+            recycler.recycleView(mHeldView);
+        }
+        mHeldView = null;
+        mHeldIndex = -1;
+    }
+
+    private void measureItem(View view, LayoutManagerHelper helper) {
+        final ViewGroup.LayoutParams params = view.getLayoutParams();
+        final int widthSpec = helper.getChildMeasureSpec(mAvailableWidth, params.width, false);
+        final int heightSpec = helper.getChildMeasureSpec(helper.getContentHeight() - helper.getPaddingTop()
+                - helper.getPaddingBottom() - getVerticalMargin() - getVerticalPadding(), params.height, true);
+        helper.measureChildWithMargins(view, widthSpec, heightSpec);
+    }
+
+    private void ensureCache(LayoutManagerHelper helper) {
+        final int count = getItemCount();
+        final int availableWidth = helper.getContentWidth() - helper.getPaddingLeft() - helper.getPaddingRight()
+                - getHorizontalMargin() - getHorizontalPadding();
+        if (availableWidth != mAvailableWidth || mItemWidths.length != count) {
+            // line breaks depend on the width, and widths on items
+            mAvailableWidth = availableWidth;
+            mItemWidths = new int[count];
+            Arrays.fill(mItemWidths, -1);
+            mItemLineHeights = new int[count];
+            invalidateLines(0);
+        }
+    }
+
+    private void resetLines(int start) {
+        mFirstLine = mLineStarts.length / 2;
+        mLineCount = 0;
+        mBrokenStart = start;
+        mBrokenEnd = start;
+    }
+
+    private void appendLine(int start, int end) {
+        if (mFirstLine + mLineCount == mLineStarts.length) {
+            mLineStarts = Arrays.copyOf(mLineStarts, mLineStarts.length * 2);
+        }
+        mLineStarts[mFirstLine + mLineCount++] = start;
+        mBrokenEnd = end;
+    }
+
+    /**
+     * Add the line from <code>start</code> to {@link #mBrokenStart} (exclusive)
+     */
+    private void prependLine(int start) {
+        if (mFirstLine == 0) {
+            final int room = Math.max(mLineCount, 8);
+            final int[] lineStarts = new int[mLineStarts.length + room];
+            System.arraycopy(mLineStarts, 0, lineStarts, room, mLineCount);
+            mLineStarts = lineStarts;
+            mFirstLine = room;
+        }
+        mLineStarts[--mFirstLine] = start;
+        mLineCount++;
+        mBrokenStart = start;
+    }
+
+    private int getLineStart(int line) {
+        return mLineStarts[mFirstLine + line];
+    }
+
+    private int getLineEnd(int line) {
+        return line + 1 < mLineCount ? getLineStart(line + 1) : mBrokenEnd;
+    }
+
+    /**
+     * @return line containing the item at <code>index</code>, which must be from {@link #mBrokenStart} to
+     * {@link #mBrokenEnd}
+     */
+    private int findLine(int index) {
+        int s = 0, e = mLineCount - 1;
+        while (s < e) {
+            final int m = (s + e + 1) >>> 1;
+            if (getLineStart(m) <= index) {
+                s = m;
+            } else {
+                e = m - 1;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Drop cached lines from the one containing the item at <code>index</code>
+     */
+    private void invalidateLines(int index) {
+        if (mLineCount == 0 || index >= mBrokenEnd) {
+            return;
+        }
+        final int line = index <= mBrokenStart ? 0 : findLine(index);
+        mBrokenEnd = getLineStart(line);
+        mLineCount = line;
+    }
+}
@@ -34,7 +34,6 @@ import android.support.annotation.NonNull;
 import android.support.v7.widget.OrientationHelper;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
-import android.util.SparseIntArray;
 import android.view.View;
 import android.widget.TextView;
 
@@ -191,8 +190,14 @@ public class GridLayoutHelper extends BaseLayoutHelper {
      */
     @Override
     public void onRangeChange(int start, int end) {
-        mSpanSizeLookup.setStartPosition(start);
-        mSpanSizeLookup.invalidateSpanIndexCache();
+        if (start != mSpanSizeLookup.getStartPosition()) {
+            // span sizes are looked up by absolute positions, they may all change
+            mSpanSizeLookup.setStartPosition(start);
+            mSpanSizeLookup.invalidateSpanIndexCache();
+        } else {
+            // changes inside range are handled by onItemsChanged(int, LayoutManagerHelper)
+            mSpanSizeLookup.invalidateSpanIndexCache(end + 1);
+        }
     }
 
 
@@ -243,14 +248,17 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         int consumedSpanCount = 0;
         int remainingSpan = mSpanCount;
 
+        // span sizes are all 1 and cells share the same size, skip span lookups and per cell specs
+        final boolean uniform = isUniformGrid() && !state.isPreLayout();
 
         ensureSpanCount();
 
 
         if (!layingOutInPrimaryDirection) {
             // fill the remaining spacing this row
-            int itemSpanIndex = getSpanIndex(recycler, state, layoutState.getCurrentPosition());
-            int itemSpanSize = getSpanSize(recycler, state, layoutState.getCurrentPosition());
+            int itemSpanIndex = uniform ? mSpanSizeLookup.getSpanIndex(layoutState.getCurrentPosition(), mSpanCount)
+                : getSpanIndex(recycler, state, layoutState.getCurrentPosition());
+            int itemSpanSize = uniform ? 1 : getSpanSize(recycler, state, layoutState.getCurrentPosition());
 
 
             remainingSpan = itemSpanIndex + itemSpanSize;
@@ -265,7 +273,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                     if (isOutOfRange(index)) {
                         break;
                     }
-                    final int spanSize = getSpanSize(recycler, state, index);
+                    final int spanSize = uniform ? 1 : getSpanSize(recycler, state, index);
                     if (spanSize > mSpanCount) {
                         throw new IllegalArgumentException("Item at position " + index + " requires " +
                             spanSize + " spans but GridLayoutManager has only " + mSpanCount
@@ -316,7 +324,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                 break;
             }
 
-            final int spanSize = getSpanSize(recycler, state, pos);
+            final int spanSize = uniform ? 1 : getSpanSize(recycler, state, pos);
             if (spanSize > mSpanCount) {
                 throw new IllegalArgumentException("Item at position " + pos + " requires " +
                     spanSize + " spans but GridLayoutManager has only " + mSpanCount
@@ -354,7 +362,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
 
 
         // we should assign spans before item decor offsets are calculated
-        assignSpans(recycler, state, count, consumedSpanCount, layingOutInPrimaryDirection, helper);
+        if (uniform) {
+            assignUniformSpans(count, layingOutInPrimaryDirection, helper);
+        } else {
+            assignSpans(recycler, state, count, consumedSpanCount, layingOutInPrimaryDirection, helper);
+        }
 
         if (remainingSpan > 0 && (count == consumedSpanCount) && mIsAutoExpand) {
             //autoExpand only support when each cell occupy one span.
@@ -409,10 +421,30 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         }
 
 
+        // all cells share the same specs in uniform grid, unless a view defines its own aspect ratio
+        final int uniformSpec = View.MeasureSpec.makeMeasureSpec(mSizePerSpan, View.MeasureSpec.EXACTLY);
+        final int uniformMainSpec = getMainDirSpec(0, mTotalSize, mSizePerSpan, Float.NaN);
+
         for (int i = 0; i < count; i++) {
             View view = mSet[i];
             helper.addChildView(layoutState, view, layingOutInPrimaryDirection ? -1 : 0);
 
+            final VirtualLayoutManager.LayoutParams lp = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
+            if (uniform) {
+                final int mainSpec = Float.isNaN(lp.mAspectRatio) ? uniformMainSpec
+                    : getMainDirSpec(0, mTotalSize, mSizePerSpan, lp.mAspectRatio);
+                if (layoutInVertical) {
+                    helper.measureChildWithMargins(view, uniformSpec, mainSpec);
+                } else {
+                    helper.measureChildWithMargins(view, mainSpec, uniformSpec);
+                }
+                final int size = orientationHelper.getDecoratedMeasurement(view);
+                if (size > maxSize) {
+                    maxSize = size;
+                }
+                continue;
+            }
+
             int spanSize = getSpanSize(recycler, state, helper.getPosition(view)), spec;
             if (weighted) {
                 final int index = mSpanIndices[i];
@@ -427,7 +459,6 @@ public class GridLayoutHelper extends BaseLayoutHelper {
                         Math.max(0, spanSize - 1) * (layoutInVertical ? mHGap : mVGap),
                     View.MeasureSpec.EXACTLY);
             }
-            final VirtualLayoutManager.LayoutParams lp = (VirtualLayoutManager.LayoutParams) view.getLayoutParams();
 
             if (helper.getOrientation() == VERTICAL) {
                 helper.measureChildWithMargins(view, spec, getMainDirSpec(lp.height, mTotalSize,
@@ -448,7 +479,7 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         for (int i = 0; i < count; i++) {
             final View view = mSet[i];
             if (orientationHelper.getDecoratedMeasurement(view) != maxSize) {
-                int spanSize = getSpanSize(recycler, state, helper.getPosition(view)), spec;
+                int spanSize = uniform ? 1 : getSpanSize(recycler, state, helper.getPosition(view)), spec;
                 if (weighted) {
                     final int index = mSpanIndices[i];
                     int spanLength = 0;
@@ -595,6 +626,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         mSpanSizeLookup.invalidateSpanIndexCache();
     }
 
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        mSpanSizeLookup.invalidateSpanIndexCache(positionStart);
+    }
+
     private static final int MAIN_DIR_SPEC =
             View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
 
@@ -611,6 +647,23 @@ public class GridLayoutHelper extends BaseLayoutHelper {
     }
 
 
+    /**
+     * Grid is uniform when every item occupies one span, no weights are set and cells have a fixed aspect ratio.
+     * Then all cells share the same size, span index is computed arithmetically and rows do not need to be scanned.
+     */
+    private boolean isUniformGrid() {
+        return mSpanSizeLookup instanceof DefaultSpanSizeLookup && mWeights.length == 0
+            && !Float.isNaN(mAspectRatio) && mAspectRatio > 0;
+    }
+
+    private void assignUniformSpans(int count, boolean layingOutInPrimaryDirection, LayoutManagerHelper helper) {
+        // views are collected from the anchor, so they are in reverse order when laying out towards start
+        final boolean rtl = helper.getOrientation() == VERTICAL && helper.isDoLayoutRTL();
+        for (int i = 0; i < count; i++) {
+            mSpanIndices[i] = (layingOutInPrimaryDirection ^ rtl) ? i : count - 1 - i;
+        }
+    }
+
     private void ensureSpanCount() {
 
         if (mSet == null || mSet.length != mSpanCount) {
@@ -631,18 +684,25 @@ public class GridLayoutHelper extends BaseLayoutHelper {
 
     @Override
     public void checkAnchorInfo(RecyclerView.State state, VirtualLayoutManager.AnchorInfoWrapper anchorInfo, LayoutManagerHelper helper) {
-        if (state.getItemCount() > 0 && !state.isPreLayout()) {
-            int span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
+        if (state.getItemCount() > 0 && !state.isPreLayout() && isUniformGrid()) {
+            // move anchor to the start or end of its row directly
+            final int span = mSpanSizeLookup.getSpanIndex(anchorInfo.position, mSpanCount);
             if (anchorInfo.layoutFromEnd) {
+                anchorInfo.position = Math.min(anchorInfo.position + mSpanCount - 1 - span, getRange().getUpper());
+            } else {
+                anchorInfo.position = Math.max(anchorInfo.position - span, 0);
+            }
+            mLayoutWithAnchor = true;
+        } else if (state.getItemCount() > 0 && !state.isPreLayout()) {
+            if (anchorInfo.layoutFromEnd) {
+                int span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
                 while (span < mSpanCount - 1 && anchorInfo.position < getRange().getUpper()) {
                     anchorInfo.position++;
                     span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
                 }
             } else {
-                while (span > 0 && anchorInfo.position > 0) {
-                    anchorInfo.position--;
-                    span = mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, mSpanCount);
-                }
+                // jump to the start of span group directly
+                anchorInfo.position = Math.max(mSpanSizeLookup.getCachedSpanGroupStart(anchorInfo.position, mSpanCount), 0);
             }
 
             mLayoutWithAnchor = true;
@@ -736,17 +796,47 @@ public class GridLayoutHelper extends BaseLayoutHelper {
         public int getSpanIndex(int span, int spanCount) {
             return (span - mStartPosition) % spanCount;
         }
+
+        @Override
+        int getCachedSpanIndex(int position, int spanCount) {
+            return getSpanIndex(position, spanCount);
+        }
+
+        @Override
+        public int getCachedSpanGroupIndex(int position, int spanCount) {
+            return (position - mStartPosition) / spanCount;
+        }
+
+        @Override
+        int getCachedSpanGroupStart(int position, int spanCount) {
+            return position - getSpanIndex(position, spanCount);
+        }
     }
 
 
     public static abstract class SpanSizeLookup {
 
-        final SparseIntArray mSpanIndexCache = new SparseIntArray();
+        private static final int INITIAL_GROUP_CAPACITY = 16;
 
         private boolean mCacheSpanIndices = false;
 
         int mStartPosition = 0;
 
+        /*
+         * Span group index, mGroupStarts[i] is the first position of span group (row) i.
+         * Positions from mStartPosition to mIndexedEnd (exclusive) are indexed, and mIndexedSpan
+         * spans are consumed in the last group, which may still be open.
+         */
+        private int[] mGroupStarts = new int[INITIAL_GROUP_CAPACITY];
+
+        private int mGroupCount = 0;
+
+        private int mIndexedEnd = 0;
+
+        private int mIndexedSpan = 0;
+
+        private int mIndexedSpanCount = 0;
+
         /**
          * Returns the number of span occupied by the item at <code>position</code>.
          *
@@ -779,7 +869,37 @@ public class GridLayoutHelper extends BaseLayoutHelper {
          * adapter changes occur.
          */
         public void invalidateSpanIndexCache() {
-            mSpanIndexCache.clear();
+            mGroupCount = 0;
+            mIndexedEnd = mStartPosition;
+            mIndexedSpan = 0;
+        }
+
+        /**
+         * Clears the span index cache from <code>position</code> onward, span groups before it are kept.
+         *
+         * @param position the first position whose span size may have changed
+         */
+        public void invalidateSpanIndexCache(int position) {
+            // indexing resumes at mIndexedEnd as a group start, which depends on the item there
+            if (position > mIndexedEnd) {
+                return;
+            }
+
+            int group = findSpanGroup(position);
+            // the first changed item may move into previous group if it is a group start
+            if (group >= 0 && mGroupStarts[group] == position) {
+                group--;
+            }
+
+            if (group <= 0) {
+                invalidateSpanIndexCache();
+                return;
+            }
+
+            // resume indexing from the start of the first invalid group
+            mIndexedEnd = mGroupStarts[group];
+            mIndexedSpan = 0;
+            mGroupCount = group;
         }
 
         /**
@@ -795,13 +915,115 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             if (!mCacheSpanIndices) {
                 return getSpanIndex(position, spanCount);
             }
-            final int existing = mSpanIndexCache.get(position, -1);
-            if (existing != -1) {
-                return existing;
+            return getIndexedSpanIndex(position, spanCount);
+        }
+
+        /**
+         * Returns the index of span group (row) the position belongs to, counted from the start of this layoutHelper.
+         * When span index cache is enabled, it is found by binary search over indexed span groups.
+         *
+         * @param position  The position of the item
+         * @param spanCount The total number of spans in the grid
+         * @return The index of the span group including the item at the given position
+         */
+        public int getCachedSpanGroupIndex(int position, int spanCount) {
+            if (!mCacheSpanIndices) {
+                return getSpanGroupIndex(position, spanCount);
+            }
+            ensureIndexed(position, spanCount);
+            return findSpanGroup(position);
+        }
+
+        /**
+         * Returns the first position in span group of the position
+         */
+        int getCachedSpanGroupStart(int position, int spanCount) {
+            if (!mCacheSpanIndices) {
+                return position - getSpanIndexOfGroup(position, spanCount);
+            }
+            ensureIndexed(position, spanCount);
+            final int group = findSpanGroup(position);
+            return group < 0 ? position : mGroupStarts[group];
+        }
+
+        private int getSpanIndexOfGroup(int position, int spanCount) {
+            int start = position;
+            int span = getSpanIndex(position, spanCount);
+            while (span > 0 && start > mStartPosition) {
+                start--;
+                span = getSpanIndex(start, spanCount);
+            }
+            return position - start;
+        }
+
+        private int getIndexedSpanIndex(int position, int spanCount) {
+            ensureIndexed(position, spanCount);
+            final int group = findSpanGroup(position);
+            if (group < 0) {
+                return 0;
+            }
+
+            // items in one group do not wrap, sum up spans before the position
+            int span = 0;
+            for (int i = mGroupStarts[group]; i < position; i++) {
+                span += getSpanSize(i);
             }
-            final int value = getSpanIndex(position, spanCount);
-            mSpanIndexCache.put(position, value);
-            return value;
+            return span;
+        }
+
+        /**
+         * Index span groups until <code>position</code> is covered
+         */
+        private void ensureIndexed(int position, int spanCount) {
+            if (spanCount != mIndexedSpanCount) {
+                mIndexedSpanCount = spanCount;
+                invalidateSpanIndexCache();
+            }
+
+            if (mIndexedEnd < mStartPosition) {
+                invalidateSpanIndexCache();
+            }
+
+            while (mIndexedEnd <= position) {
+                final int size = getSpanSize(mIndexedEnd);
+                if (mIndexedSpan == 0 || mIndexedSpan + size > spanCount) {
+                    // item starts a new group
+                    appendSpanGroup(mIndexedEnd);
+                    mIndexedSpan = size;
+                } else {
+                    mIndexedSpan += size;
+                }
+
+                if (mIndexedSpan == spanCount) {
+                    mIndexedSpan = 0;
+                }
+                mIndexedEnd++;
+            }
+        }
+
+        private void appendSpanGroup(int position) {
+            if (mGroupCount == mGroupStarts.length) {
+                mGroupStarts = Arrays.copyOf(mGroupStarts, mGroupCount * 2);
+            }
+            mGroupStarts[mGroupCount++] = position;
+        }
+
+        /**
+         * @return index of the last span group starting at or before position, -1 if none
+         */
+        private int findSpanGroup(int position) {
+            int lo = 0;
+            int hi = mGroupCount - 1;
+
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (mGroupStarts[mid] <= position) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo - 1;
         }
 
         /**
@@ -811,8 +1033,8 @@ public class GridLayoutHelper extends BaseLayoutHelper {
          * this method. Otherwise, you should enable span index cache
          * ({@link #setSpanIndexCacheEnabled(boolean)}) for better performance. When caching is
          * disabled, default implementation traverses all items from 0 to
-         * <code>position</code>. When caching is enabled, it calculates from the closest cached
-         * value before the <code>position</code>.
+         * <code>position</code>. When caching is enabled, it finds the span group of the position
+         * by binary search and only sums up spans in that group.
          * <p/>
          * If you override this method, you need to make sure it is consistent with
          * {@link #getSpanSize(int)}. GridLayoutManager does not call this method for
@@ -832,17 +1054,11 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             if (positionSpanSize == spanCount) {
                 return 0; // quick return for full-span items
             }
-            int span = 0;
-            int startPos = mStartPosition;
-            // If caching is enabled, try to jump
-            if (mCacheSpanIndices && mSpanIndexCache.size() > 0) {
-                int prevKey = findReferenceIndexFromCache(position);
-                if (prevKey >= 0) {
-                    span = mSpanIndexCache.get(prevKey) + getSpanSize(prevKey);
-                    startPos = prevKey + 1;
-                }
+            if (mCacheSpanIndices) {
+                return getIndexedSpanIndex(position, spanCount);
             }
-            for (int i = startPos; i < position; i++) {
+            int span = 0;
+            for (int i = mStartPosition; i < position; i++) {
                 int size = getSpanSize(i);
                 span += size;
                 if (span == spanCount) {
@@ -858,26 +1074,6 @@ public class GridLayoutHelper extends BaseLayoutHelper {
             return 0;
         }
 
-        int findReferenceIndexFromCache(int position) {
-            int lo = 0;
-            int hi = mSpanIndexCache.size() - 1;
-
-            while (lo <= hi) {
-                final int mid = (lo + hi) >>> 1;
-                final int midVal = mSpanIndexCache.keyAt(mid);
-                if (midVal < position) {
-                    lo = mid + 1;
-                } else {
-                    hi = mid - 1;
-                }
-            }
-            int index = lo - 1;
-            if (index >= 0 && index < mSpanIndexCache.size()) {
-                return mSpanIndexCache.keyAt(index);
-            }
-            return -1;
-        }
-
         /**
          * Returns the index of the group this position belongs.
          * <p/>
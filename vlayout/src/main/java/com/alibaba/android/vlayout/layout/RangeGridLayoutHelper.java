@@ -24,6 +24,7 @@
 
 package com.alibaba.android.vlayout.layout;
 
+import android.graphics.Rect;
 import android.support.annotation.NonNull;
 import android.support.v4.util.ArrayMap;
 import android.support.v7.widget.RecyclerView;
@@ -42,8 +43,6 @@ import com.alibaba.android.vlayout.layout.GridLayoutHelper.DefaultSpanSizeLookup
 import com.alibaba.android.vlayout.layout.GridLayoutHelper.SpanSizeLookup;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 import static android.support.v7.widget.LinearLayoutManager.VERTICAL;
 
@@ -213,6 +212,12 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         return mRangeStyle.requireLayoutView();
     }
 
+    @Override
+    public boolean requireBackgroundOnCanvas(LayoutManagerHelper helper) {
+        // backgrounds of nested range styles are still rendered by LayoutViews
+        return false;
+    }
+
     @Override
     public void beforeLayout(RecyclerView.Recycler recycler, RecyclerView.State state,
         LayoutManagerHelper helper) {
@@ -704,6 +709,12 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
     public void adjustLayout(int startPosition, int endPosition, LayoutManagerHelper helper) {
         mRangeStyle.adjustLayout(startPosition, endPosition, helper);
     }
+
+    @Override
+    public void adjustLayout(int startPosition, int endPosition, @NonNull Rect childrenRegion, LayoutManagerHelper helper) {
+        // nested range styles collect their own regions
+        mRangeStyle.adjustLayout(startPosition, endPosition, helper);
+    }
     
     @Override
     public int computeAlignOffset(int offset, boolean isLayoutEnd, boolean useAnchor, LayoutManagerHelper helper) {
@@ -734,6 +745,11 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         mRangeStyle.onInvalidateSpanIndexCache();
     }
 
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        mRangeStyle.onInvalidateSpanIndexCache(positionStart);
+    }
+
     private static final int MAIN_DIR_SPEC =
         View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
 
@@ -761,11 +777,9 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
                     anchorInfo.position++;
                     span = rangeStyle.mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, rangeStyle.mSpanCount);
                 }
-            } else {
-                while (span > 0 && anchorInfo.position > 0) {
-                    anchorInfo.position--;
-                    span = rangeStyle.mSpanSizeLookup.getCachedSpanIndex(anchorInfo.position, rangeStyle.mSpanCount);
-                }
+            } else if (span > 0) {
+                // jump to the start of span group directly
+                anchorInfo.position = Math.max(rangeStyle.mSpanSizeLookup.getCachedSpanGroupStart(anchorInfo.position, rangeStyle.mSpanCount), 0);
             }
 
             mLayoutWithAnchor = true;
@@ -919,14 +933,13 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         }
 
         private GridRangeStyle findRangeStyle(GridRangeStyle rangeStyle, int position){
-            for (Map.Entry<Range<Integer>, GridRangeStyle> entry : rangeStyle.mChildren.entrySet()) {
-                GridRangeStyle childRangeStyle = entry.getValue();
-                Range range = entry.getKey();
-                if (!childRangeStyle.isChildrenEmpty()){
-                    return findRangeStyle(childRangeStyle, position);
-                } else if (range.contains(position)) {
-                    return childRangeStyle;
+            // find the deepest style containing position
+            while (!rangeStyle.isChildrenEmpty()) {
+                final int index = rangeStyle.mChildren.indexOfPosition(position);
+                if (index < 0) {
+                    break;
                 }
+                rangeStyle = rangeStyle.mChildren.valueAt(index);
             }
             return rangeStyle;
         }
@@ -934,15 +947,12 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         public GridRangeStyle findSiblingStyleByPosition(int position) {
             GridRangeStyle rangeStyle = null;
             if (mParent != null) {
-                HashMap<Range<Integer>, GridRangeStyle> siblings = mParent.mChildren;
-                for (Map.Entry<Range<Integer>, GridRangeStyle> entry : siblings.entrySet()) {
-                    Range range = entry.getKey();
-                    if (range.contains(position)) {
-                        GridRangeStyle childRangeStyle = entry.getValue();
-                        if (!childRangeStyle.equals(this)) {
-                            rangeStyle = childRangeStyle;
-                        }
-                        break;
+                RangeMap<GridRangeStyle> siblings = mParent.mChildren;
+                final int index = siblings.indexOfPosition(position);
+                if (index >= 0) {
+                    GridRangeStyle childRangeStyle = siblings.valueAt(index);
+                    if (!childRangeStyle.equals(this)) {
+                        rangeStyle = childRangeStyle;
                     }
                 }
             }
@@ -951,17 +961,25 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
 
         public void onInvalidateSpanIndexCache() {
             mSpanSizeLookup.invalidateSpanIndexCache();
-            for (Map.Entry<Range<Integer>, GridRangeStyle> entry : mChildren.entrySet()) {
-                GridRangeStyle rangeStyle = entry.getValue();
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                GridRangeStyle rangeStyle = mChildren.valueAt(i);
                 rangeStyle.onInvalidateSpanIndexCache();
             }
         }
 
+        public void onInvalidateSpanIndexCache(int position) {
+            mSpanSizeLookup.invalidateSpanIndexCache(position);
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                GridRangeStyle rangeStyle = mChildren.valueAt(i);
+                rangeStyle.onInvalidateSpanIndexCache(position);
+            }
+        }
+
         public static int computeEndAlignOffset(GridRangeStyle rangeStyle, boolean layoutInVertical) {
             int offset = layoutInVertical ? rangeStyle.mMarginBottom + rangeStyle.mPaddingBottom : rangeStyle.mMarginRight + rangeStyle.mPaddingRight;
             int endPosition = rangeStyle.getRange().getUpper().intValue();
-            for (Map.Entry<Range<Integer>, GridRangeStyle> entry : rangeStyle.mChildren.entrySet()) {
-                GridRangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+                GridRangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
                 if (!childRangeStyle.isChildrenEmpty()){
                     offset += computeEndAlignOffset(childRangeStyle, layoutInVertical);
                 }else if (childRangeStyle.mRange.getUpper().intValue() == endPosition) {
@@ -976,8 +994,8 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         public static int computeStartAlignOffset(GridRangeStyle rangeStyle, boolean layoutInVertical) {
             int offset = layoutInVertical ? -rangeStyle.mMarginTop - rangeStyle.mPaddingTop : -rangeStyle.mMarginLeft - rangeStyle.mPaddingLeft;
             int startPosition = rangeStyle.getRange().getLower().intValue();
-            for (Map.Entry<Range<Integer>, GridRangeStyle> entry : rangeStyle.mChildren.entrySet()) {
-                GridRangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+                GridRangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
                 if (!childRangeStyle.isChildrenEmpty()){
                     //FIXME may compute the wrong start space here
                     offset += computeStartAlignOffset(childRangeStyle, layoutInVertical);
@@ -1002,8 +1020,12 @@ public class RangeGridLayoutHelper extends BaseLayoutHelper {
         @Override
         public void setRange(int start, int end) {
             super.setRange(start, end);
-            mSpanSizeLookup.setStartPosition(start);
-            mSpanSizeLookup.invalidateSpanIndexCache();
+            if (start != mSpanSizeLookup.getStartPosition()) {
+                mSpanSizeLookup.setStartPosition(start);
+                mSpanSizeLookup.invalidateSpanIndexCache();
+            } else {
+                mSpanSizeLookup.invalidateSpanIndexCache(end + 1);
+            }
         }
 
         public void setGap(int gap) {
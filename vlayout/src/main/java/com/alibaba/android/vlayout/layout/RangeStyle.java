@@ -1,8 +1,6 @@
 package com.alibaba.android.vlayout.layout;
 
-import java.lang.reflect.Array;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import com.alibaba.android.vlayout.LayoutManagerHelper;
 import com.alibaba.android.vlayout.OrientationHelperEx;
@@ -45,7 +43,7 @@ public class RangeStyle<T extends RangeStyle> {
     protected Range<Integer> mRange;
 
     //TODO update data structure
-    protected HashMap<Range<Integer>, T> mChildren = new HashMap<>();
+    protected RangeMap<T> mChildren = new RangeMap<>();
 
     protected int mPaddingLeft;
 
@@ -65,6 +63,8 @@ public class RangeStyle<T extends RangeStyle> {
 
     protected Rect mLayoutRegion = new Rect();
 
+    private final Rect mTempRect = new Rect();
+
     private View mLayoutView;
 
     private int mBgColor;
@@ -86,7 +86,7 @@ public class RangeStyle<T extends RangeStyle> {
             rangeStyle.setOriginStartOffset(start);
             rangeStyle.setOriginEndOffset(end);
             rangeStyle.setRange(start, end);
-            mChildren.put(rangeStyle.getRange(), rangeStyle);
+            mChildren.put(rangeStyle);
         }
     }
 
@@ -388,7 +388,7 @@ public class RangeStyle<T extends RangeStyle> {
     }
 
     public boolean isOutOfRange(int position) {
-        return mRange != null ? !mRange.contains(position) : true;
+        return mRange != null ? position < mRange.getLower() || position > mRange.getUpper() : true;
     }
 
     public boolean isFirstPosition(int position) {
@@ -406,25 +406,22 @@ public class RangeStyle<T extends RangeStyle> {
     public void setRange(int start, int end) {
         mRange = Range.create(start, end);
         if (!mChildren.isEmpty()) {
-            HashMap<Range<Integer>, T> newMap = new HashMap<>();
-            for (Map.Entry<Range<Integer>, T> entry : mChildren.entrySet()) {
-                T rangeStyle = entry.getValue();
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                T rangeStyle = mChildren.valueAt(i);
                 int newStart = rangeStyle.getOriginStartOffset() + start;
                 int newEnd = rangeStyle.getOriginEndOffset() + start;
-                Range<Integer> newRange = Range.create(newStart, newEnd);
-                newMap.put(newRange, rangeStyle);
                 rangeStyle.setRange(newStart, newEnd);
             }
-            mChildren.clear();
-            mChildren.putAll(newMap);
+            // all children shift together, order is kept
+            mChildren.updateRanges();
         }
     }
 
     public void beforeLayout(RecyclerView.Recycler recycler, RecyclerView.State state,
         LayoutManagerHelper helper) {
         if (!isChildrenEmpty()) {
-            for (Map.Entry<Range<Integer>, T> entry : mChildren.entrySet()) {
-                RangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                RangeStyle childRangeStyle = mChildren.valueAt(i);
                 childRangeStyle.beforeLayout(recycler, state, helper);
             }
         }
@@ -454,8 +451,8 @@ public class RangeStyle<T extends RangeStyle> {
         LayoutManagerHelper helper) {
 
         if (!isChildrenEmpty()) {
-            for (Map.Entry<Range<Integer>, T> entry : mChildren.entrySet()) {
-                RangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                RangeStyle childRangeStyle = mChildren.valueAt(i);
                 childRangeStyle.afterLayout(recycler, state, startPosition, endPosition, scrolled, helper);
             }
         }
@@ -523,8 +520,8 @@ public class RangeStyle<T extends RangeStyle> {
 
     private void unionChildRegion(RangeStyle<T> rangeStyle) {
         if (!rangeStyle.isChildrenEmpty()) {
-            for (Map.Entry<Range<Integer>, T> entry : rangeStyle.mChildren.entrySet()) {
-                RangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+                RangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
                 unionChildRegion(childRangeStyle);
                 if (childRangeStyle.mLayoutView != null) {
                     rangeStyle.mLayoutRegion.union(childRangeStyle.mLayoutView.getLeft(), childRangeStyle.mLayoutView.getTop(),
@@ -536,8 +533,8 @@ public class RangeStyle<T extends RangeStyle> {
 
     private void removeChildViews(LayoutManagerHelper helper, RangeStyle<T> rangeStyle) {
         if (!rangeStyle.isChildrenEmpty()) {
-            for (Map.Entry<Range<Integer>, T> entry : rangeStyle.mChildren.entrySet()) {
-                RangeStyle childRangeStyle = entry.getValue();
+            for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+                RangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
                 removeChildViews(helper, childRangeStyle);
             }
         }
@@ -553,19 +550,20 @@ public class RangeStyle<T extends RangeStyle> {
 
     public void adjustLayout(int startPosition, int endPosition, LayoutManagerHelper helper) {
         if (!isChildrenEmpty()) {
-            for (Map.Entry<Range<Integer>, T> entry : mChildren.entrySet()) {
-                RangeStyle rangeStyle = entry.getValue();
+            for (int i = 0, size = mChildren.size(); i < size; i++) {
+                RangeStyle rangeStyle = mChildren.valueAt(i);
                 rangeStyle.adjustLayout(startPosition, endPosition, helper);
             }
         }
         if (requireLayoutView()) {
             View refer = null;
-            Rect tempRect = new Rect();
+            final Rect tempRect = mTempRect;
+            tempRect.setEmpty();
             final OrientationHelperEx orientationHelper = helper.getMainOrientationHelper();
             for (int i = 0; i < helper.getChildCount(); i++) {
                 refer = helper.getChildAt(i);
                 int anchorPos = helper.getPosition(refer);
-                if (getRange().contains(anchorPos)) {
+                if (anchorPos >= getRange().getLower() && anchorPos <= getRange().getUpper()) {
                     if (refer.getVisibility() == View.GONE) {
                         tempRect.setEmpty();
                     } else {
@@ -607,8 +605,8 @@ public class RangeStyle<T extends RangeStyle> {
     }
 
     private void hideChildLayoutViews(LayoutManagerHelper helper, RangeStyle<T> rangeStyle) {
-        for (Map.Entry<Range<Integer>, T> entry : rangeStyle.mChildren.entrySet()) {
-            RangeStyle childRangeStyle = entry.getValue();
+        for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+            RangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
             if (!childRangeStyle.isChildrenEmpty()) {
                 hideChildLayoutViews(helper, childRangeStyle);
             }
@@ -630,8 +628,8 @@ public class RangeStyle<T extends RangeStyle> {
     private boolean requireChildLayoutView(RangeStyle<T> rangeStyle) {
         boolean self = rangeStyle.mBgColor != 0 || rangeStyle.mLayoutViewBindListener != null;
 
-        for (Map.Entry<Range<Integer>, T> entry : rangeStyle.mChildren.entrySet()) {
-            RangeStyle childRangeStyle = entry.getValue();
+        for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+            RangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
             if (!childRangeStyle.isChildrenEmpty()) {
                 self |= requireChildLayoutView(childRangeStyle);
             } else {
@@ -690,8 +688,8 @@ public class RangeStyle<T extends RangeStyle> {
             return;
         }
 
-        for (Map.Entry<Range<Integer>, T> entry : rangeStyle.mChildren.entrySet()) {
-            RangeStyle childRangeStyle = entry.getValue();
+        for (int i = 0, size = rangeStyle.mChildren.size(); i < size; i++) {
+            RangeStyle childRangeStyle = rangeStyle.mChildren.valueAt(i);
             clearChild(helper, childRangeStyle);
         }
     }
@@ -721,49 +719,106 @@ public class RangeStyle<T extends RangeStyle> {
         }
     }
 
-    private static class RangeMap<T> {
+    /**
+     * Child styles sorted by start position, their ranges are kept in primitive arrays,
+     * so that the child containing a position is found by binary search without allocation.
+     */
+    public static class RangeMap<T extends RangeStyle> {
 
-        private final static int CAPACITY = 64;
+        private final static int CAPACITY = 8;
 
-        private Class<T> mClass;
+        private int[] mStarts = new int[CAPACITY];
 
-        private int lastIndex = -1;
+        private int[] mEnds = new int[CAPACITY];
 
-        private int[] mOffsetMap = new int[CAPACITY];
+        private Object[] mStyles = new Object[CAPACITY];
 
-        private T[] mCardMap = (T[])Array.newInstance(mClass, CAPACITY);
+        private int mSize = 0;
 
-        public RangeMap(Class<T> type) {
-            this.mClass = type;
+        public int size() {
+            return mSize;
         }
 
-        public void addChild(int startOffset, int endOffset, T t) {
-            int index = lastIndex + 1;
-            if (index < mCardMap.length) {
-                mCardMap[index] = t;
-            } else {
-                int oldLength = mCardMap.length;
-                T[] newCardMap = (T[])Array.newInstance(mClass, oldLength * 2);
-                System.arraycopy(mCardMap, 0, newCardMap, 0, oldLength);
-                mCardMap = newCardMap;
-                mCardMap[oldLength] = t;
-                index = oldLength;
-
-                oldLength = mOffsetMap.length;
-                int[] newOffsetMap = new int[oldLength * 2];
-                System.arraycopy(mOffsetMap, 0, newOffsetMap, 0, oldLength);
-                mOffsetMap = newOffsetMap;
+        public boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T valueAt(int index) {
+            return (T) mStyles[index];
+        }
+
+        /**
+         * Add a child style, the one with the same range is replaced
+         */
+        public void put(T rangeStyle) {
+            final int start = rangeStyle.getRange().getLower().intValue();
+            final int end = rangeStyle.getRange().getUpper().intValue();
+
+            // insert after children starting at or before start
+            int index = indexOfStart(start) + 1;
+            if (index > 0 && mStarts[index - 1] == start && mEnds[index - 1] == end) {
+                mStyles[index - 1] = rangeStyle;
+                return;
             }
-            lastIndex = index;
-            for (int i = startOffset; i <= endOffset; i++) {
-                mOffsetMap[i] = index;
+
+            if (mSize == mStyles.length) {
+                mStarts = Arrays.copyOf(mStarts, mSize * 2);
+                mEnds = Arrays.copyOf(mEnds, mSize * 2);
+                mStyles = Arrays.copyOf(mStyles, mSize * 2);
             }
+            System.arraycopy(mStarts, index, mStarts, index + 1, mSize - index);
+            System.arraycopy(mEnds, index, mEnds, index + 1, mSize - index);
+            System.arraycopy(mStyles, index, mStyles, index + 1, mSize - index);
+            mStarts[index] = start;
+            mEnds[index] = end;
+            mStyles[index] = rangeStyle;
+            mSize++;
         }
 
-        public T getChild(int offset) {
-            return mCardMap[mOffsetMap[offset]];
+        /**
+         * @return index of the child containing position, -1 if none
+         */
+        public int indexOfPosition(int position) {
+            final int index = indexOfStart(position);
+            if (index >= 0 && mEnds[index] >= position) {
+                return index;
+            }
+            return -1;
         }
 
+        /**
+         * Read ranges from child styles again after they are changed
+         */
+        public void updateRanges() {
+            for (int i = 0; i < mSize; i++) {
+                Range<Integer> range = valueAt(i).getRange();
+                mStarts[i] = range.getLower().intValue();
+                mEnds[i] = range.getUpper().intValue();
+            }
+        }
+
+        public void clear() {
+            Arrays.fill(mStyles, 0, mSize, null);
+            mSize = 0;
+        }
+
+        /**
+         * @return index of the last child starting at or before position, -1 if none
+         */
+        private int indexOfStart(int position) {
+            int lo = 0;
+            int hi = mSize - 1;
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (mStarts[mid] <= position) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo - 1;
+        }
     }
 
 }
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import com.alibaba.android.vlayout.BuildConfig;
 import com.alibaba.android.vlayout.LayoutHelper;
@@ -38,6 +39,7 @@ import com.alibaba.android.vlayout.Range;
 import com.alibaba.android.vlayout.VirtualLayoutManager;
 import com.alibaba.android.vlayout.VirtualLayoutManager.LayoutStateWrapper;
 
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.v4.view.ViewCompat;
@@ -86,6 +88,9 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
     private LazySpanLookup mLazySpanLookup = new LazySpanLookup();
 
+    // range spans in mLazySpanLookup were assigned for before onClear, they are dropped if range changed since
+    private Range<Integer> mClearedRange;
+
     private List<View> prelayoutViewList = new ArrayList<>();
 
     private boolean mLayoutWithAnchor;
@@ -94,6 +99,28 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
     private WeakReference<VirtualLayoutManager> mLayoutManager = null;
 
+    // align line of last gap check, spans not changed since then need not to be checked again
+    private int mLastGapCheckLine = INVALID_LINE;
+
+    private SizeHintProvider mSizeHintProvider = null;
+
+    private Executor mSizeHintExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    // increased when items change, size hint index being built then is dropped
+    private int mSizeHintGeneration = 0;
+
+    // last index built, items from mSizeHintValidCount on may have changed since
+    private SizeHintIndex mSizeHintIndex = null;
+
+    private int mSizeHintValidCount = 0;
+
+    private SizeHintIndex mPendingSizeHintIndex = null;
+
+    // handed over from background, taken on main thread
+    private volatile SizeHintIndex mBuiltSizeHintIndex = null;
+
+    private int[] mHintLaneEnds = null;
+
     private final Runnable checkForGapsRunnable = new Runnable() {
         @Override
         public void run() {
@@ -137,6 +164,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
     public void setLane(int lane) {
         this.mNumLanes = lane;
+        mLazySpanLookup.setLanes(lane);
         ensureLanes();
     }
 
@@ -151,6 +179,48 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
         return this.mColLength;
     }
 
+    /**
+     * Set provider of item size hints. With it, lane ends are indexed in background, and once indexed, a jump to
+     * any position, by scrollToPosition or state restore, places lanes as if items before it are laid out.
+     *
+     * @param sizeHintProvider provider of aspect ratio of items, null to disable size hints
+     */
+    public void setSizeHintProvider(SizeHintProvider sizeHintProvider) {
+        this.mSizeHintProvider = sizeHintProvider;
+        invalidateSizeHints();
+    }
+
+    /**
+     * @param executor executor to build size hint index, {@link AsyncTask#THREAD_POOL_EXECUTOR} by default
+     */
+    public void setSizeHintExecutor(@NonNull Executor executor) {
+        this.mSizeHintExecutor = executor;
+    }
+
+    /**
+     * Drop indexed lane ends, call it when aspect ratios provided by {@link SizeHintProvider} change
+     */
+    public void invalidateSizeHints() {
+        mSizeHintGeneration++;
+        mSizeHintIndex = null;
+        mSizeHintValidCount = 0;
+        mPendingSizeHintIndex = null;
+        mBuiltSizeHintIndex = null;
+    }
+
+    /**
+     * Drop indexed lane ends from <code>position</code>, lane ends before it are reused by next index
+     */
+    private void invalidateSizeHints(int position) {
+        takeBuiltSizeHintIndex();
+        mSizeHintGeneration++;
+        mPendingSizeHintIndex = null;
+        if (mSizeHintIndex != null) {
+            // counted from start of items, which only moves when items before them change
+            mSizeHintValidCount = Math.min(mSizeHintValidCount, Math.max(position - getRange().getLower(), 0));
+        }
+    }
+
     private void ensureLanes() {
         if (mSpans == null || mSpans.length != mNumLanes || mRemainingSpans == null) {
             mRemainingSpans = new BitSet(mNumLanes);
@@ -183,11 +253,22 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             mEachGap = mLastGap = helper.getOrientation() == VERTICAL ? mHGap : mVGap;
         }
 
+        if (mClearedRange != null) {
+            if (!mClearedRange.equals(getRange())) {
+                mLazySpanLookup.clear();
+            }
+            mClearedRange = null;
+        }
+
         if (mLayoutManager == null || mLayoutManager.get() == null || mLayoutManager.get() != helper) {
             if (helper instanceof VirtualLayoutManager) {
                 mLayoutManager = new WeakReference<VirtualLayoutManager>((VirtualLayoutManager) helper);
             }
         }
+
+        if (mSizeHintProvider != null && !state.isPreLayout()) {
+            requestSizeHintIndex(helper);
+        }
     }
 
     @Override
@@ -480,9 +561,11 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
     @Override
     public void onClear(LayoutManagerHelper helper) {
         super.onClear(helper);
-        mLazySpanLookup.clear();
+        // keep assigned spans, items stay in their lanes when this layoutHelper is used again for the same range
+        mClearedRange = getRange();
         mSpans = null;
         mLayoutManager = null;
+        mLastGapCheckLine = INVALID_LINE;
     }
 
     /**
@@ -591,8 +674,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             return;
         }
 
-        View gapView = hasGapsToFix(layoutManager, viewAnchor, alignLine);
-        if (gapView != null) {
+        if (fixGaps(layoutManager, viewAnchor, alignLine)) {
             //FIXME do not clear loopup, may cause lane error while scroll
             //mLazySpanLookup.clear();
 
@@ -603,53 +685,114 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 }
             }
 
+            mLastGapCheckLine = INVALID_LINE;
             layoutManager.requestSimpleAnimationsInNextLayout();
-            layoutManager.requestLayout();
+            layoutManager.requestLayoutFor(this);
+        } else {
+            mLastGapCheckLine = alignLine;
         }
     }
 
     /**
-     * Checks for gaps if we've reached to the top of the list.
-     * <p/>
-     * Intermediate gaps created by full span items are tracked via mLaidOutInvalidFullSpan field.
+     * Checks for gaps if we've reached to the top of the list. Only spans changed since last check are checked,
+     * unless align line moves. A gap is fixed by offsetting views of its span if the span still fills the
+     * visible area and the end of this layoutHelper does not change, otherwise a relayout is needed.
+     *
+     * @return true if there is a gap to be fixed by relayout
      */
-    private View hasGapsToFix(VirtualLayoutManager layoutManager, final int position, final int alignLine) {
+    private boolean fixGaps(VirtualLayoutManager layoutManager, final int position, final int alignLine) {
         View view = layoutManager.findViewByPosition(position);
 
-        if (view == null) {
-            return null;
+        if (view == null || mSpans == null) {
+            return false;
         }
 
+        final boolean checkAll = alignLine != mLastGapCheckLine;
+        final OrientationHelperEx orientationHelper = layoutManager.getMainOrientationHelper();
+        for (int i = 0, size = mSpans.length; i < size; i++) {
+            Span span = mSpans[i];
+            if (!checkAll && !span.mGapCheckDirty) {
+                continue;
+            }
+
+            span.mGapCheckDirty = false;
+            if (span.mViews.size() == 0) {
+                continue;
+            }
 
-        BitSet mSpansToCheck = new BitSet(mNumLanes);
-        mSpansToCheck.set(0, mNumLanes, true);
+            final int gap = getSpanGap(span, layoutManager, alignLine);
+            if (gap == 0) {
+                continue;
+            }
 
-        if (mSpans != null) {
-            for (int i = 0, size = mSpans.length; i < size; i++) {
-                Span span = mSpans[i];
-                if (span.mViews.size() != 0 && checkSpanForGap(span, layoutManager, alignLine)) {
-                    return layoutManager.getReverseLayout() ? span.mViews.get(span.mViews.size() - 1) : span.mViews.get(0);
-                }
+            if (!canOffsetSpan(span, gap, layoutManager.getReverseLayout(), orientationHelper)) {
+                return true;
             }
+            offsetSpan(span, gap, layoutManager.getOrientation() == VERTICAL);
         }
 
         // everything looks good
-        return null;
+        return false;
     }
 
-
-    private boolean checkSpanForGap(Span span, VirtualLayoutManager layoutManager, int line) {
+    /**
+     * @return offset to move span to align line, 0 if there is no gap
+     */
+    private int getSpanGap(Span span, VirtualLayoutManager layoutManager, int line) {
         OrientationHelperEx orientationHelper = layoutManager.getMainOrientationHelper();
         if (layoutManager.getReverseLayout()) {
-            if (span.getEndLine(orientationHelper) < line) {
-                return true;
+            final int endLine = span.getEndLine(orientationHelper);
+            if (endLine < line) {
+                return line - endLine;
+            }
+        } else {
+            final int startLine = span.getStartLine(orientationHelper);
+            if (startLine > line) {
+                return line - startLine;
+            }
+        }
+        return 0;
+    }
+
+    private boolean canOffsetSpan(Span span, int offset, boolean reverseLayout, OrientationHelperEx orientationHelper) {
+        if (reverseLayout) {
+            final int start = span.getStartLine(orientationHelper);
+            if (start + offset > orientationHelper.getStartAfterPadding()) {
+                return false;
+            }
+            // other span decides start of this layoutHelper
+            for (int i = 0, size = mSpans.length; i < size; i++) {
+                if (mSpans[i] != span && mSpans[i].mViews.size() != 0 && mSpans[i].getStartLine(orientationHelper) <= start) {
+                    return true;
+                }
+            }
+        } else {
+            final int end = span.getEndLine(orientationHelper);
+            if (end + offset < orientationHelper.getEndAfterPadding()) {
+                return false;
+            }
+            // other span decides end of this layoutHelper
+            for (int i = 0, size = mSpans.length; i < size; i++) {
+                if (mSpans[i] != span && mSpans[i].mViews.size() != 0 && mSpans[i].getEndLine(orientationHelper) >= end) {
+                    return true;
+                }
             }
-        } else if (span.getStartLine(orientationHelper) > line) {
-            return true;
         }
         return false;
     }
 
+    private void offsetSpan(Span span, int offset, boolean layoutInVertical) {
+        for (int i = 0, size = span.mViews.size(); i < size; i++) {
+            View view = span.mViews.get(i);
+            if (layoutInVertical) {
+                view.offsetTopAndBottom(offset);
+            } else {
+                view.offsetLeftAndRight(offset);
+            }
+        }
+        span.onOffset(offset);
+    }
+
 
     private void recycle(RecyclerView.Recycler recycler, LayoutStateWrapper layoutState,
                          Span updatedSpan, int recycleLine, LayoutManagerHelper helper) {
@@ -973,6 +1116,10 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             if (BuildConfig.DEBUG) {
                 Log.d(TAG, "checkAnchorInfo span.clear()");
             }
+            if (mSpans != null && mSizeHintProvider != null && !anchorInfo.layoutFromEnd && !helper.getReverseLayout()
+                    && placeLanesBySizeHints(anchorInfo.position, anchorInfo.coordinate, helper)) {
+                return;
+            }
             if (mSpans != null) {
                 for (int i = 0, size = mSpans.length; i < size; i++) {
                     Span span = mSpans[i];
@@ -1052,17 +1199,53 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 //        mLazySpanLookup.clear();
     }
 
+    @Override
+    public void onItemsChanged(int positionStart, LayoutManagerHelper helper) {
+        if (positionStart <= getRange().getUpper()) {
+            invalidateSizeHints(positionStart);
+        }
+    }
+
+    @Override
+    public void onItemsAdded(int positionStart, int itemCount, LayoutManagerHelper helper) {
+        mLazySpanLookup.offsetForAddition(positionStart, itemCount);
+        if (positionStart < getRange().getLower()) {
+            // items of this layoutHelper are only shifted, lane ends relative to its start still hold
+            invalidateSizeHints(Integer.MAX_VALUE);
+        } else {
+            invalidateSizeHints(positionStart);
+        }
+    }
+
+    @Override
+    public void onItemsRemoved(int positionStart, int itemCount, LayoutManagerHelper helper) {
+        mLazySpanLookup.offsetForRemoval(positionStart, itemCount);
+        if (positionStart < getRange().getLower()) {
+            invalidateSizeHints(Integer.MAX_VALUE);
+        } else {
+            invalidateSizeHints(positionStart);
+        }
+    }
+
+    @Override
+    public void onItemsMoved(int from, int to, int itemCount, LayoutManagerHelper helper) {
+        // moved items are assigned span again, others keep theirs
+        mLazySpanLookup.offsetForRemoval(from, itemCount);
+        mLazySpanLookup.offsetForAddition(to, itemCount);
+        invalidateSizeHints(Math.min(from, to));
+    }
+
     @Override
     public void onSaveState(Bundle bundle) {
         super.onSaveState(bundle);
-        bundle.putIntArray(LOOKUP_BUNDLE_KEY, mLazySpanLookup.mData);
+        bundle.putIntArray(LOOKUP_BUNDLE_KEY, mLazySpanLookup.saveState());
         // TODO: store span info
     }
 
     @Override
     public void onRestoreInstanceState(Bundle bundle) {
         super.onRestoreInstanceState(bundle);
-        mLazySpanLookup.mData = bundle.getIntArray(LOOKUP_BUNDLE_KEY);
+        mLazySpanLookup.restoreState(bundle.getIntArray(LOOKUP_BUNDLE_KEY));
     }
 
 
@@ -1074,6 +1257,9 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 Span span = mSpans[i];
                 span.onOffset(dy);
             }
+            if (mLastGapCheckLine != INVALID_LINE) {
+                mLastGapCheckLine += dy;
+            }
         }
     }
 
@@ -1085,6 +1271,234 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 Span span = mSpans[i];
                 span.onOffset(dx);
             }
+            if (mLastGapCheckLine != INVALID_LINE) {
+                mLastGapCheckLine += dx;
+            }
+        }
+    }
+
+
+    private boolean preferLastSpan(LayoutManagerHelper helper) {
+        // same as the order of spans in getNextSpan when laying out to end
+        return helper.getOrientation() == VERTICAL && helper.isDoLayoutRTL() != helper.getReverseLayout();
+    }
+
+    private boolean isSizeHintIndexFor(SizeHintIndex index, LayoutManagerHelper helper) {
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+        return index != null && index.matches(getRange().getLower(), getRange().getUpper(), mNumLanes, mColLength,
+                layoutInVertical ? mVGap : mHGap, layoutInVertical, preferLastSpan(helper));
+    }
+
+    /**
+     * Take the index built in background if no item changed since it was requested
+     */
+    private void takeBuiltSizeHintIndex() {
+        final SizeHintIndex built = mBuiltSizeHintIndex;
+        if (built == null) {
+            return;
+        }
+        mBuiltSizeHintIndex = null;
+        if (built.mGeneration == mSizeHintGeneration) {
+            mSizeHintIndex = built;
+            mSizeHintValidCount = built.getCount();
+            mPendingSizeHintIndex = null;
+        }
+    }
+
+    private void requestSizeHintIndex(LayoutManagerHelper helper) {
+        takeBuiltSizeHintIndex();
+        if (mNumLanes <= 0 || mColLength <= 0 || isOutOfRange(getRange().getLower())) {
+            return;
+        }
+
+        if (isSizeHintIndexFor(mSizeHintIndex, helper) && mSizeHintValidCount >= mSizeHintIndex.getCount()) {
+            return;
+        }
+        if (isSizeHintIndexFor(mPendingSizeHintIndex, helper)) {
+            // requested in the same generation, pending index is dropped when items change
+            return;
+        }
+
+        final boolean layoutInVertical = helper.getOrientation() == VERTICAL;
+        final SizeHintIndex index = new SizeHintIndex(mSizeHintGeneration, getRange().getLower(), getRange().getUpper(),
+                mNumLanes, mColLength, layoutInVertical ? mVGap : mHGap, layoutInVertical, preferLastSpan(helper));
+        final SizeHintIndex base = mSizeHintIndex;
+        final int validCount = mSizeHintValidCount;
+        mPendingSizeHintIndex = index;
+        final SizeHintProvider provider = mSizeHintProvider;
+        mSizeHintExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                index.build(provider, base, validCount);
+                mBuiltSizeHintIndex = index;
+            }
+        });
+    }
+
+    /**
+     * Place lanes for a layout starting at <code>position</code>, whose start is aligned to <code>coordinate</code>,
+     * lane ends before it are resolved from the nearest checkpoint of size hint index.
+     *
+     * @return false if lanes can not be resolved, or the index is still being built
+     */
+    private boolean placeLanesBySizeHints(int position, int coordinate, LayoutManagerHelper helper) {
+        if (mColLength <= 0 || isOutOfRange(position)) {
+            return false;
+        }
+
+        takeBuiltSizeHintIndex();
+        final SizeHintIndex index = mSizeHintIndex;
+        if (!isSizeHintIndexFor(index, helper) || mSizeHintValidCount < index.getCount()) {
+            // lay out from anchor as without hints, lanes are placed by hints once the index is built in background
+            requestSizeHintIndex(helper);
+            return false;
+        }
+
+        if (mHintLaneEnds == null || mHintLaneEnds.length != mNumLanes) {
+            mHintLaneEnds = new int[mNumLanes];
+        }
+        final int[] ends = mHintLaneEnds;
+
+        // replay from one checkpoint earlier, so that items laid out above the position keep their spans too
+        final int offset = position - index.mStart;
+        final int checkpoint = Math.max(offset / SizeHintIndex.CHECKPOINT_INTERVAL - 1, 0);
+        index.copyCheckpoint(checkpoint, ends);
+        for (int i = checkpoint * SizeHintIndex.CHECKPOINT_INTERVAL; i < offset; i++) {
+            mLazySpanLookup.setSpan(index.mStart + i, mSpans[index.place(mSizeHintProvider, i, ends)]);
+        }
+
+        final int lane = index.nextLane(ends);
+        mLazySpanLookup.setSpan(position, mSpans[lane]);
+        final int base = ends[lane];
+        for (int i = 0, size = mSpans.length; i < size; i++) {
+            Span span = mSpans[i];
+            span.clear();
+            span.setLine(coordinate + ends[i] - base);
+        }
+        return true;
+    }
+
+
+    /**
+     * Provides size hint of items for {@link StaggeredGridLayoutHelper}. Layout after a jump matches the one by scrolling
+     * when aspect ratios are exact and items have no decorations, otherwise lanes are estimated.
+     */
+    public interface SizeHintProvider {
+
+        /**
+         * Called from a background thread, it should not touch views.
+         *
+         * @param position adapter position of item
+         * @return width / height of item, not greater than 0 if unknown, which is treated as 1
+         */
+        float getAspectRatio(int position);
+    }
+
+
+    /**
+     * Lane ends before every {@link #CHECKPOINT_INTERVAL} positions, computed with the same rules of layoutViews
+     */
+    static final class SizeHintIndex {
+
+        static final int CHECKPOINT_INTERVAL = 32;
+
+        final int mGeneration;
+        final int mStart;
+        final int mEnd;
+        final int mLanes;
+        final int mColLength;
+        final int mGap;
+        final boolean mLayoutInVertical;
+        final boolean mPreferLastSpan;
+
+        private int[] mCheckpoints;
+
+        SizeHintIndex(int generation, int start, int end, int lanes, int colLength, int gap,
+                      boolean layoutInVertical, boolean preferLastSpan) {
+            mGeneration = generation;
+            mStart = start;
+            mEnd = end;
+            mLanes = lanes;
+            mColLength = colLength;
+            mGap = gap;
+            mLayoutInVertical = layoutInVertical;
+            mPreferLastSpan = preferLastSpan;
+        }
+
+        boolean matches(int start, int end, int lanes, int colLength, int gap, boolean layoutInVertical,
+                        boolean preferLastSpan) {
+            return mStart == start && mEnd == end && mLanes == lanes && mColLength == colLength && mGap == gap
+                    && mLayoutInVertical == layoutInVertical && mPreferLastSpan == preferLastSpan;
+        }
+
+        int getCount() {
+            return mEnd - mStart + 1;
+        }
+
+        /**
+         * @param base       index built before, checkpoints covered by its first <code>validCount</code> items are
+         *                   copied from it if it has the same layout
+         * @param validCount number of items from start of base not changed since it was built
+         */
+        void build(SizeHintProvider provider, SizeHintIndex base, int validCount) {
+            final int count = getCount();
+            final int[] checkpoints = new int[((count + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL) * mLanes];
+            final int[] ends = new int[mLanes];
+
+            int from = 0;
+            if (base != null && base.mCheckpoints != null && base.mLanes == mLanes && base.mColLength == mColLength
+                    && base.mGap == mGap && base.mLayoutInVertical == mLayoutInVertical
+                    && base.mPreferLastSpan == mPreferLastSpan) {
+                // checkpoint k holds lane ends of the items before k * CHECKPOINT_INTERVAL
+                final int reused = Math.min(Math.min(validCount, count - 1) / CHECKPOINT_INTERVAL,
+                        base.mCheckpoints.length / mLanes - 1);
+                if (reused > 0) {
+                    System.arraycopy(base.mCheckpoints, 0, checkpoints, 0, (reused + 1) * mLanes);
+                    System.arraycopy(checkpoints, reused * mLanes, ends, 0, mLanes);
+                    from = reused * CHECKPOINT_INTERVAL;
+                }
+            }
+
+            for (int i = from; i < count; i++) {
+                if (i % CHECKPOINT_INTERVAL == 0) {
+                    System.arraycopy(ends, 0, checkpoints, (i / CHECKPOINT_INTERVAL) * mLanes, mLanes);
+                }
+                place(provider, i, ends);
+            }
+            mCheckpoints = checkpoints;
+        }
+
+        void copyCheckpoint(int checkpoint, int[] ends) {
+            System.arraycopy(mCheckpoints, checkpoint * mLanes, ends, 0, mLanes);
+        }
+
+        int nextLane(int[] ends) {
+            int lane = -1;
+            for (int i = 0; i < mLanes; i++) {
+                final int index = mPreferLastSpan ? mLanes - 1 - i : i;
+                if (lane < 0 || ends[index] < ends[lane]) {
+                    lane = index;
+                }
+            }
+            return lane;
+        }
+
+        /**
+         * Place item at <code>offset</code> from start into the lane with min end
+         *
+         * @return lane of the item
+         */
+        int place(SizeHintProvider provider, int offset, int[] ends) {
+            final int lane = nextLane(ends);
+            float aspectRatio = provider.getAspectRatio(mStart + offset);
+            if (!(aspectRatio > 0)) {
+                aspectRatio = 1;
+            }
+            final int size = mLayoutInVertical ? (int) (mColLength / aspectRatio + 0.5f)
+                    : (int) (mColLength * aspectRatio + 0.5f);
+            // items in first row do not have gap before them
+            ends[lane] += (offset < mLanes ? 0 : mGap) + size;
+            return lane;
         }
     }
 
@@ -1100,6 +1514,8 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
         final int mIndex;
         int mLastEdgeStart = INVALID_LINE;
         int mLastEdgeEnd = INVALID_LINE;
+        // whether views in this span are changed since last gap check
+        boolean mGapCheckDirty = true;
 
         private Span(int index) {
             mIndex = index;
@@ -1169,6 +1585,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             LayoutParams lp = getLayoutParams(view);
             mViews.add(0, view);
             mCachedStart = INVALID_LINE;
+            mGapCheckDirty = true;
             if (mViews.size() == 1) {
                 mCachedEnd = INVALID_LINE;
             }
@@ -1181,6 +1598,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             LayoutParams lp = getLayoutParams(view);
             mViews.add(view);
             mCachedEnd = INVALID_LINE;
+            mGapCheckDirty = true;
             if (mViews.size() == 1) {
                 mCachedStart = INVALID_LINE;
             }
@@ -1223,11 +1641,13 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
             mCachedEnd = INVALID_LINE;
             mLastEdgeEnd = INVALID_LINE;
             mLastEdgeStart = INVALID_LINE;
+            mGapCheckDirty = true;
         }
 
         void setLine(int line) {
             mCachedEnd = mCachedStart = line;
             mLastEdgeStart = mLastEdgeEnd = INVALID_LINE;
+            mGapCheckDirty = true;
         }
 
         void popEnd(OrientationHelperEx helper) {
@@ -1241,6 +1661,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 mCachedStart = INVALID_LINE;
             }
             mCachedEnd = INVALID_LINE;
+            mGapCheckDirty = true;
         }
 
         boolean findEnd(View view) {
@@ -1262,6 +1683,7 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
                 mDeletedSize -= helper.getDecoratedMeasurement(start);
             }
             mCachedStart = INVALID_LINE;
+            mGapCheckDirty = true;
         }
 
 
@@ -1342,91 +1764,220 @@ public class StaggeredGridLayoutHelper extends BaseLayoutHelper {
 
 
     /**
-     * An array of mappings from adapter position to span.
-     * This only grows when a write happens and it grows up to the size of the adapter.
+     * Mappings from adapter position to span, each packed to a few bits in an int array.
+     * Only a window of at most {@link #MAX_SIZE} positions around recently laid out items is kept,
+     * spans of positions far from it are dropped and assigned again when they are laid out.
      */
     static class LazySpanLookup {
 
-        private static final int MIN_SIZE = 10;
+        private static final int MIN_SIZE = 16;
+
+        static final int MAX_SIZE = 8192;
+
+        private static final int STATE_VERSION = 1;
+
+        private static final int STATE_HEADER_SIZE = 3;
+
+        /*
+         * bits of each entry, which stores span index + 1, 0 means no span assigned
+         */
+        private int mEntryBits = 4;
+
+        private int mEntryShift = 3;
+
+        private int mEntryMask = 0xF;
+
+        // packed entries for positions from mStart
         int[] mData;
 
+        int mStart = 0;
+
         /**
-         * returns end position for invalidation.
+         * Choose entry size to hold span index of lanes, assigned spans are cleared when entry size changed
          */
-        int invalidateAfter(int position) {
-            if (mData == null) {
-                return RecyclerView.NO_POSITION;
-            }
-            if (position >= mData.length) {
-                return RecyclerView.NO_POSITION;
+        void setLanes(int lanes) {
+            int bits = 2;
+            while (bits < 16 && lanes > (1 << bits) - 1) {
+                bits <<= 1;
+            }
+
+            if (bits != mEntryBits) {
+                mEntryBits = bits;
+                mEntryShift = Integer.numberOfTrailingZeros(32 / bits);
+                mEntryMask = (1 << bits) - 1;
+                mData = null;
+                mStart = 0;
+            } else {
+                clear();
             }
-
-            Arrays.fill(mData, position, mData.length, INVALID_SPAN_ID);
-            return mData.length;
         }
 
         int getSpan(int position) {
-            if (mData == null || position >= mData.length || position < 0) {
+            if (mData == null || position < mStart || position - mStart >= capacity()) {
                 return INVALID_SPAN_ID;
-            } else {
-                return mData[position];
             }
+            final int value = get(position - mStart);
+            return value == 0 ? INVALID_SPAN_ID : value - 1;
         }
 
         void setSpan(int position, Span span) {
-            ensureSize(position);
-            mData[position] = span.mIndex;
-        }
-
-        int sizeForPosition(int position) {
-            int len = mData.length;
-            while (len <= position) {
-                len *= 2;
-            }
-            return len;
+            setSpan(position, span.mIndex);
         }
 
-        void ensureSize(int position) {
-            if (mData == null) {
-                mData = new int[Math.max(position, MIN_SIZE) + 1];
-                Arrays.fill(mData, INVALID_SPAN_ID);
-            } else if (position >= mData.length) {
-                int[] old = mData;
-                mData = new int[sizeForPosition(position)];
-                System.arraycopy(old, 0, mData, 0, old.length);
-                Arrays.fill(mData, old.length, mData.length, INVALID_SPAN_ID);
+        void setSpan(int position, int spanIndex) {
+            if (position < 0 || spanIndex + 1 > mEntryMask) {
+                return;
             }
+            ensureWindow(position);
+            put(position - mStart, spanIndex + 1);
         }
 
         void clear() {
             if (mData != null) {
-                Arrays.fill(mData, INVALID_SPAN_ID);
+                Arrays.fill(mData, 0);
             }
         }
 
+        /**
+         * Drop spans of removed items and shift spans of following items
+         */
         void offsetForRemoval(int positionStart, int itemCount) {
-            if (mData == null || positionStart >= mData.length) {
+            final int capacity = capacity();
+            if (mData == null || itemCount <= 0 || positionStart >= mStart + capacity) {
                 return;
             }
-            ensureSize(positionStart + itemCount);
-            System.arraycopy(mData, positionStart + itemCount, mData, positionStart,
-                    mData.length - positionStart - itemCount);
-            Arrays.fill(mData, mData.length - itemCount, mData.length,
-                    INVALID_SPAN_ID);
-        }
 
+            final int from = Math.max(positionStart, mStart) - mStart;
+            final int to = Math.min(positionStart + itemCount, mStart + capacity) - mStart;
+            final int removed = Math.max(to - from, 0);
+            if (positionStart < mStart) {
+                // items before the window are removed, window shifts backward
+                mStart = Math.max(positionStart, mStart - itemCount);
+            }
 
+            if (removed > 0) {
+                for (int i = to; i < capacity; i++) {
+                    put(i - removed, get(i));
+                }
+                for (int i = capacity - removed; i < capacity; i++) {
+                    put(i, 0);
+                }
+            }
+        }
+
+        /**
+         * Shift spans of items after inserted ones, inserted items have no span assigned
+         */
         void offsetForAddition(int positionStart, int itemCount) {
-            if (mData == null || positionStart >= mData.length) {
+            final int capacity = capacity();
+            if (mData == null || itemCount <= 0 || positionStart >= mStart + capacity) {
+                return;
+            }
+
+            if (positionStart <= mStart) {
+                mStart += itemCount;
+                return;
+            }
+
+            final int index = positionStart - mStart;
+            for (int i = capacity - 1; i >= index + itemCount; i--) {
+                put(i, get(i - itemCount));
+            }
+            for (int i = index, end = Math.min(index + itemCount, capacity); i < end; i++) {
+                put(i, 0);
+            }
+        }
+
+        int[] saveState() {
+            if (mData == null) {
+                return null;
+            }
+            int[] state = new int[STATE_HEADER_SIZE + mData.length];
+            state[0] = STATE_VERSION;
+            state[1] = mEntryBits;
+            state[2] = mStart;
+            System.arraycopy(mData, 0, state, STATE_HEADER_SIZE, mData.length);
+            return state;
+        }
+
+        void restoreState(int[] state) {
+            if (state == null || state.length <= STATE_HEADER_SIZE || state[0] != STATE_VERSION
+                    || state[1] != mEntryBits || state[2] < 0) {
+                // unknown or stale state, spans will be assigned again
+                clear();
                 return;
             }
-            ensureSize(positionStart + itemCount);
-            System.arraycopy(mData, positionStart, mData, positionStart + itemCount,
-                    mData.length - positionStart - itemCount);
-            Arrays.fill(mData, positionStart, positionStart + itemCount,
-                    INVALID_SPAN_ID);
+            mStart = state[2];
+            mData = Arrays.copyOfRange(state, STATE_HEADER_SIZE, state.length);
+        }
+
+        private int capacity() {
+            return mData == null ? 0 : mData.length << mEntryShift;
+        }
+
+        private int get(int index) {
+            return get(mData, index);
         }
 
+        private int get(int[] data, int index) {
+            final int word = data[index >> mEntryShift];
+            return (word >>> ((index & ((1 << mEntryShift) - 1)) * mEntryBits)) & mEntryMask;
+        }
+
+        private void put(int index, int value) {
+            final int shift = (index & ((1 << mEntryShift) - 1)) * mEntryBits;
+            final int wordIndex = index >> mEntryShift;
+            mData[wordIndex] = (mData[wordIndex] & ~(mEntryMask << shift)) | (value << shift);
+        }
+
+        /**
+         * Grow or slide the window to cover position, sliding drops a quarter of the window
+         * more than needed, so that it does not move for every new position
+         */
+        private void ensureWindow(int position) {
+            final int capacity = capacity();
+            if (mData == null) {
+                mStart = position;
+                mData = new int[MIN_SIZE >> mEntryShift];
+                return;
+            }
+
+            if (position >= mStart && position - mStart < capacity) {
+                return;
+            }
+
+            int start;
+            int newCapacity;
+            final int end = mStart + capacity;
+            final int required = position < mStart ? end - position : position + 1 - mStart;
+            if (required <= MAX_SIZE) {
+                newCapacity = capacity;
+                while (newCapacity < required) {
+                    newCapacity <<= 1;
+                }
+                newCapacity = Math.min(newCapacity, MAX_SIZE);
+                start = position < mStart ? Math.max(end - newCapacity, 0) : mStart;
+            } else {
+                newCapacity = MAX_SIZE;
+                if (position < mStart) {
+                    start = Math.max(position - MAX_SIZE / 4, 0);
+                } else {
+                    start = position + 1 + MAX_SIZE / 4 - MAX_SIZE;
+                }
+            }
+
+            final int[] old = mData;
+            final int oldStart = mStart;
+            mData = new int[newCapacity >> mEntryShift];
+            mStart = start;
+
+            // copy spans in both old and new window
+            final int from = Math.max(oldStart, start);
+            final int to = Math.min(end, start + newCapacity);
+            for (int p = from; p < to; p++) {
+                put(p - start, get(old, p - oldStart));
+            }
+        }
     }
 
 }
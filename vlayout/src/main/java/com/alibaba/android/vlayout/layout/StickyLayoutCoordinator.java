@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.LayoutManagerHelper;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coordinates {@link StickyLayoutHelper}s of a LayoutManager. Their positions are kept in a sorted array, the active sticky
+ * helper and the next one are found by binary search over visible range, so that only them do afterLayout in a layout pass.
+ * Sticky helpers sticking to end or stackable ones are not coordinated and always do afterLayout.
+ */
+public final class StickyLayoutCoordinator {
+
+    private static final int CAPACITY = 8;
+
+    private int[] mPositions = new int[CAPACITY];
+
+    private StickyLayoutHelper[] mHelpers = new StickyLayoutHelper[CAPACITY];
+
+    private int mCount = 0;
+
+    // indexes of helpers do afterLayout in current pass, inclusive
+    private int mActiveFrom = 0;
+
+    private int mActiveTo = -1;
+
+    private boolean mEnabled = false;
+
+    /**
+     * Collect sticky helpers, called after ranges of layoutHelpers are set
+     */
+    public void setLayoutHelpers(List<LayoutHelper> helpers) {
+        for (int i = 0; i < mCount; i++) {
+            mHelpers[i].mCoordinatedIndex = -1;
+        }
+        Arrays.fill(mHelpers, 0, mCount, null);
+        mCount = 0;
+
+        if (helpers != null) {
+            for (int i = 0, size = helpers.size(); i < size; i++) {
+                LayoutHelper layoutHelper = helpers.get(i);
+                if (layoutHelper instanceof StickyLayoutHelper && layoutHelper.getRange().getLower() >= 0) {
+                    add((StickyLayoutHelper) layoutHelper);
+                }
+            }
+        }
+
+        // helpers may hold sticky views from before, let all of them run in next pass
+        mActiveFrom = 0;
+        mActiveTo = mCount - 1;
+        mEnabled = false;
+    }
+
+    /**
+     * Find sticky helpers to do afterLayout in this pass, and release sticky views of helpers no longer active
+     *
+     * @param startPosition first visible position
+     * @param endPosition   last visible position
+     * @param helper        LayoutManagerHelper
+     */
+    public void onPostLayout(int startPosition, int endPosition, LayoutManagerHelper helper) {
+        if (mCount == 0) {
+            return;
+        }
+
+        final int from;
+        final int to;
+        if (helper.getReverseLayout() || startPosition < 0) {
+            from = 0;
+            to = mCount - 1;
+            mEnabled = false;
+        } else {
+            // the last one at or before start may stick, and the next one may come to stick
+            final int active = indexOfPosition(startPosition);
+            from = Math.max(active, 0);
+            to = Math.min(active + 1, mCount - 1);
+            mEnabled = true;
+        }
+
+        for (int i = mActiveFrom; i <= mActiveTo; i++) {
+            if ((i < from || i > to) && isCoordinated(mHelpers[i])) {
+                mHelpers[i].releaseFixedView(helper);
+            }
+        }
+        mActiveFrom = from;
+        mActiveTo = to;
+    }
+
+    /**
+     * @return whether afterLayout of the layoutHelper can be skipped in this pass
+     */
+    public boolean shouldSkip(LayoutHelper layoutHelper) {
+        if (!mEnabled || !(layoutHelper instanceof StickyLayoutHelper)) {
+            return false;
+        }
+
+        final StickyLayoutHelper stickyHelper = (StickyLayoutHelper) layoutHelper;
+        final int index = stickyHelper.mCoordinatedIndex;
+        return index >= 0 && (index < mActiveFrom || index > mActiveTo) && isCoordinated(stickyHelper);
+    }
+
+    private boolean isCoordinated(StickyLayoutHelper helper) {
+        return helper.isStickyStart() && !helper.isStackable();
+    }
+
+    private void add(StickyLayoutHelper helper) {
+        if (mCount == mHelpers.length) {
+            mPositions = Arrays.copyOf(mPositions, mCount * 2);
+            mHelpers = Arrays.copyOf(mHelpers, mCount * 2);
+        }
+        // layoutHelpers are in order of positions
+        mPositions[mCount] = helper.getRange().getLower();
+        mHelpers[mCount] = helper;
+        helper.mCoordinatedIndex = mCount;
+        mCount++;
+    }
+
+    /**
+     * @return index of the last sticky helper at or before position, -1 if none
+     */
+    private int indexOfPosition(int position) {
+        int lo = 0;
+        int hi = mCount - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (mPositions[mid] <= position) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo - 1;
+    }
+}
@@ -74,6 +74,9 @@ public class StickyLayoutHelper extends FixAreaLayoutHelper {
     private StickyListener stickyListener;
     private Stackable mStackable;
 
+    // index in StickyLayoutCoordinator, -1 if not coordinated
+    int mCoordinatedIndex = -1;
+
     public StickyLayoutHelper() {
         this(true);
     }
@@ -87,6 +90,14 @@ public class StickyLayoutHelper extends FixAreaLayoutHelper {
         this.mStickyStart = stickyStart;
     }
 
+    public boolean isStickyStart() {
+        return mStickyStart;
+    }
+
+    public boolean isStackable() {
+        return mStackable != null && mStackable.enable();
+    }
+
     public void setOffset(int offset) {
         this.mOffset = offset;
     }
@@ -714,6 +725,25 @@ public class StickyLayoutHelper extends FixAreaLayoutHelper {
         return mFixView;
     }
 
+    /**
+     * Release sticky view when this helper is no longer active in {@link StickyLayoutCoordinator}
+     */
+    void releaseFixedView(LayoutManagerHelper helper) {
+        if (mFixView == null || mDoNormalHandle) {
+            return;
+        }
+
+        View stickyView = mFixView;
+        helper.removeChildView(mFixView);
+        helper.recycleView(mFixView);
+        mFixView = null;
+
+        if (stickyListener != null && isLastStatusSticking) {
+            stickyListener.onUnSticky(mPos, stickyView);
+            isLastStatusSticking = false;
+        }
+    }
+
     @Override
     public void onClear(LayoutManagerHelper helper) {
         super.onClear(helper);
@@ -783,7 +813,8 @@ public class StickyLayoutHelper extends FixAreaLayoutHelper {
         int offset = 0;
         if (helper instanceof VirtualLayoutManager){
             List<LayoutHelper> helperList = ((VirtualLayoutManager) helper).getLayoutHelpers();
-            for (LayoutHelper helperItem : helperList) {
+            for (int i = 0, size = helperList.size(); i < size; i++) {
+                final LayoutHelper helperItem = helperList.get(i);
                 if (helperItem.isFixLayout()) {
                     if (helperItem.getRange().getUpper() < this.getRange().getLower()) {
                         View view = helperItem.getFixedView();
@@ -0,0 +1,290 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import android.support.v7.widget.RecyclerView;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Macro benchmarks scrolling, flinging, jumping and mutating a {@link MixedPage}. Counts of layoutChunk calls and
+ * views created, bound, measured and recycled are checked against baselines in
+ * <code>src/test/resources/macro-benchmark-baselines.properties</code>, wall-clock time and allocated bytes are only
+ * reported, to <code>build/reports/macro-benchmark.txt</code>. A count without baseline fails the test, unless no
+ * baseline is recorded at all: then scenarios only report their counts and are skipped, not passed.
+ * <p/>
+ * Run with <code>./gradlew :vlayout:testReleaseUnitTest -Dvlayout.updateBaselines=true</code> to record baselines
+ * after an intended change or a new scenario.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MacroBenchmarkTest {
+
+    private static final String BASELINES = "src/test/resources/macro-benchmark-baselines.properties";
+
+    private static final String REPORT = "build/reports/macro-benchmark.txt";
+
+    /**
+     * counts may grow this much over baselines before failing
+     */
+    private static final float TOLERANCE = 0.1f;
+
+    private static final Map<String, String> sResults = new TreeMap<>();
+
+    private static Properties sBaselines;
+
+    private MixedPage mPage;
+
+    @Before
+    public void setUp() {
+        mPage = MixedPage.create();
+    }
+
+    @Test
+    public void initialLayout() {
+        mPage.recyclerView.setAdapter(null);
+        mPage.layout();
+        benchmark("initialLayout", new Runnable() {
+            @Override
+            public void run() {
+                mPage.recyclerView.setAdapter(mPage.delegateAdapter);
+                mPage.layout();
+            }
+        });
+    }
+
+    @Test
+    public void scrollDown() {
+        benchmark("scrollDown", new Runnable() {
+            @Override
+            public void run() {
+                mPage.scroll(300, 60);
+            }
+        });
+    }
+
+    @Test
+    public void scrollUp() {
+        mPage.scroll(300, 60);
+        benchmark("scrollUp", new Runnable() {
+            @Override
+            public void run() {
+                mPage.scroll(300, -60);
+            }
+        });
+    }
+
+    @Test
+    public void fling() {
+        benchmark("fling", new Runnable() {
+            @Override
+            public void run() {
+                mPage.recyclerView.fling(0, 12000);
+                runFrames();
+                mPage.recyclerView.fling(0, -12000);
+                runFrames();
+            }
+        });
+    }
+
+    @Test
+    public void jumps() {
+        benchmark("jumps", new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= 20; i++) {
+                    // deterministic spread over the page, back and forth
+                    mPage.recyclerView.scrollToPosition((i * 2477) % MixedPage.ITEM_COUNT);
+                    mPage.layout();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void mutations() {
+        mPage.scroll(100, 60);
+        benchmark("mutations", new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 20; i++) {
+                    final MixedPage.CountingAdapter adapter = mPage.adapters.get(1 + (i * 7) % (mPage.adapters.size() - 1));
+                    switch (i % 3) {
+                        case 0:
+                            adapter.count += 2;
+                            adapter.notifyItemRangeInserted(0, 2);
+                            break;
+                        case 1:
+                            if (adapter.count > 1) {
+                                adapter.count -= 1;
+                                adapter.notifyItemRemoved(adapter.count);
+                            }
+                            break;
+                        default:
+                            adapter.notifyItemRangeChanged(0, adapter.count);
+                            break;
+                    }
+                    mPage.layout();
+                    mPage.scroll(2, 60);
+                }
+            }
+        });
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        File report = new File(REPORT);
+        report.getParentFile().mkdirs();
+        PrintWriter writer = new PrintWriter(new FileWriter(report));
+        try {
+            for (Map.Entry<String, String> entry : sResults.entrySet()) {
+                writer.println(entry.getKey() + "=" + entry.getValue());
+            }
+        } finally {
+            writer.close();
+        }
+
+        if (isUpdatingBaselines()) {
+            Properties baselines = new Properties();
+            for (Map.Entry<String, String> entry : sResults.entrySet()) {
+                if (!entry.getKey().endsWith(".ms") && !entry.getKey().endsWith(".allocatedBytes")) {
+                    baselines.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+            OutputStream out = new FileOutputStream(BASELINES);
+            try {
+                baselines.store(out, "Macro benchmark baselines, recorded by MacroBenchmarkTest");
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Run animation frames until RecyclerView stops scrolling
+     */
+    private void runFrames() {
+        for (int i = 0; i < 1000 && mPage.recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE; i++) {
+            Robolectric.getForegroundThreadScheduler().advanceBy(16, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void benchmark(String scenario, Runnable action) {
+        System.gc();
+        mPage.resetCounters();
+        final long allocated = allocatedBytes();
+        final long start = System.nanoTime();
+        action.run();
+        final long nanos = System.nanoTime() - start;
+        final long allocatedAfter = allocatedBytes();
+
+        check(scenario + ".layoutChunks", mPage.layoutManager.layoutChunks);
+        check(scenario + ".created", mPage.created);
+        check(scenario + ".bound", mPage.bound);
+        check(scenario + ".measured", mPage.measured());
+        check(scenario + ".recycled", mPage.layoutManager.recycled);
+        sResults.put(scenario + ".ms", String.valueOf(TimeUnit.NANOSECONDS.toMillis(nanos)));
+        if (allocated >= 0) {
+            sResults.put(scenario + ".allocatedBytes", String.valueOf(allocatedAfter - allocated));
+        }
+        assumeTrue("no baselines recorded, " + scenario + " is only reported to " + REPORT,
+                isUpdatingBaselines() || !loadBaselines().isEmpty());
+    }
+
+    private void check(String key, long value) {
+        sResults.put(key, String.valueOf(value));
+        if (isUpdatingBaselines() || loadBaselines().isEmpty()) {
+            // nothing to check against, skipped once all counts are reported
+            return;
+        }
+        final String baseline = loadBaselines().getProperty(key);
+        if (baseline == null) {
+            fail("no baseline for " + key + ", record baselines with -Dvlayout.updateBaselines=true");
+        }
+        final long expected = Long.parseLong(baseline);
+        assertTrue(key + " is " + value + ", baseline " + expected, value <= expected + expected * TOLERANCE + 2);
+    }
+
+    private static boolean isUpdatingBaselines() {
+        return Boolean.getBoolean("vlayout.updateBaselines");
+    }
+
+    private static Properties loadBaselines() {
+        if (sBaselines == null) {
+            sBaselines = new Properties();
+            File file = new File(BASELINES);
+            if (file.exists()) {
+                try {
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        sBaselines.load(in);
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("can not read baselines", e);
+                }
+            }
+        }
+        return sBaselines;
+    }
+
+    /**
+     * @return bytes allocated by this thread, -1 if it's not supported by the JVM
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
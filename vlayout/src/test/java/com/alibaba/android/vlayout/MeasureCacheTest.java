@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measure cache of {@link VirtualLayoutManager}, items are bound again in place and request layout as a bind would
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MeasureCacheTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int ITEM_COUNT = 40;
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private VersionedAdapter mAdapter;
+
+    private int mMeasured;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        // rebind changed items in their own views
+        mRecyclerView.setItemAnimator(null);
+        mLayoutManager = new VirtualLayoutManager(activity);
+        mLayoutManager.setMeasureCacheEnabled(true);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+        mAdapter = new VersionedAdapter();
+        DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        delegateAdapter.setAdapters(Collections.<DelegateAdapter.Adapter>singletonList(mAdapter));
+        mRecyclerView.setAdapter(delegateAdapter);
+        activity.setContentView(mRecyclerView);
+        layout();
+        assertTrue(mLayoutManager.getChildCount() > 1);
+    }
+
+    @Test
+    public void hitWhenItemAndVersionAreUnchanged() {
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(0, mMeasured);
+    }
+
+    @Test
+    public void missWhenVersionChanges() {
+        mAdapter.versions[2]++;
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(1, mMeasured);
+    }
+
+    @Test
+    public void missWhenDisabled() {
+        mLayoutManager.setMeasureCacheEnabled(false);
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(mLayoutManager.getChildCount(), mMeasured);
+    }
+
+    @Test
+    public void missAfterInvalidation() {
+        mLayoutManager.invalidateMeasureCache();
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(mLayoutManager.getChildCount(), mMeasured);
+
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(0, mMeasured);
+    }
+
+    @Test
+    public void missWhenMeasuredOutOfLayoutManager() {
+        final View child = mLayoutManager.getChildAt(0);
+        child.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY));
+        mMeasured = 0;
+        rebindAll();
+        assertEquals(1, mMeasured);
+    }
+
+    private void rebindAll() {
+        mAdapter.notifyItemRangeChanged(0, ITEM_COUNT);
+        layout();
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private class CountingView extends View {
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mMeasured++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    private class VersionedAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder>
+            implements VirtualLayoutManager.ContentVersionProvider {
+
+        final long[] versions = new long[ITEM_COUNT];
+
+        VersionedAdapter() {
+            setHasStableIds(true);
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return new LinearLayoutHelper();
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = new CountingView(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            // as setting content would, so View#measure does not skip onMeasure by itself
+            holder.itemView.requestLayout();
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public long getContentVersion(int position) {
+            return versions[position];
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+}
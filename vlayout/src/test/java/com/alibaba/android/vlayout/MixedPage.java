@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import com.alibaba.android.vlayout.extend.PerformanceMetrics;
+import com.alibaba.android.vlayout.layout.FixLayoutHelper;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.LayoutChunkResult;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+import com.alibaba.android.vlayout.layout.OnePlusNLayoutHelper;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
+import com.alibaba.android.vlayout.layout.StickyLayoutHelper;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.Robolectric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A mixed page of 5,000 items in a RecyclerView, with linear, grid, staggered, sticky, fix and OnePlusN helpers,
+ * counting the work done to lay it out.
+ */
+class MixedPage {
+
+    static final int WIDTH = 1080;
+
+    static final int HEIGHT = 1920;
+
+    static final int ITEM_COUNT = 5000;
+
+    /**
+     * items of a section: sticky header, linear, grid, OnePlusN and staggered
+     */
+    private static final int[] SECTION = {1, 10, 24, 5, 16};
+
+    final RecyclerView recyclerView;
+
+    final CountingLayoutManager layoutManager;
+
+    final DelegateAdapter delegateAdapter;
+
+    final List<CountingAdapter> adapters = new ArrayList<>();
+
+    final PerformanceMetrics metrics = new PerformanceMetrics();
+
+    int created;
+
+    int bound;
+
+    MixedPage(Context context) {
+        recyclerView = new RecyclerView(context);
+        layoutManager = new CountingLayoutManager(context);
+        layoutManager.setPerformanceMonitor(metrics);
+        recyclerView.setLayoutManager(layoutManager);
+        delegateAdapter = new DelegateAdapter(layoutManager, true);
+        recyclerView.setAdapter(delegateAdapter);
+
+        int total = 0;
+        adapters.add(new CountingAdapter(new FixLayoutHelper(FixLayoutHelper.BOTTOM_RIGHT, 20, 20), 0, 1, 160, false));
+        total += 1;
+        while (total + sectionSize() <= ITEM_COUNT) {
+            adapters.add(new CountingAdapter(new StickyLayoutHelper(), 1, SECTION[0], 120, false));
+            adapters.add(new CountingAdapter(new LinearLayoutHelper(8), 2, SECTION[1], 200, false));
+            adapters.add(new CountingAdapter(new GridLayoutHelper(4), 3, SECTION[2], 260, false));
+            adapters.add(new CountingAdapter(new OnePlusNLayoutHelper(), 4, SECTION[3], 300, false));
+            adapters.add(new CountingAdapter(new StaggeredGridLayoutHelper(2, 8), 5, SECTION[4], 240, true));
+            total += sectionSize();
+        }
+        adapters.add(new CountingAdapter(new LinearLayoutHelper(), 2, ITEM_COUNT - total, 200, false));
+        delegateAdapter.setAdapters(new ArrayList<DelegateAdapter.Adapter>(adapters));
+    }
+
+    /**
+     * @return a page shown in a new activity and laid out once
+     */
+    static MixedPage create() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        MixedPage page = new MixedPage(activity);
+        activity.setContentView(page.recyclerView);
+        page.layout();
+        return page;
+    }
+
+    private static int sectionSize() {
+        int size = 0;
+        for (int count : SECTION) {
+            size += count;
+        }
+        return size;
+    }
+
+    /**
+     * Measure and lay out RecyclerView at full size, as a frame after layout is requested
+     */
+    void layout() {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Scroll vertically by dy pixels in each of steps frames
+     */
+    void scroll(int steps, int dy) {
+        for (int i = 0; i < steps; i++) {
+            recyclerView.scrollBy(0, dy);
+        }
+    }
+
+    void resetCounters() {
+        created = 0;
+        bound = 0;
+        layoutManager.layoutChunks = 0;
+        layoutManager.recycled = 0;
+        metrics.reset();
+    }
+
+    long measured() {
+        final PerformanceMetrics.Snapshot snapshot = metrics.snapshot();
+        long measured = 0;
+        for (int i = 0; i < snapshot.getHelperSlotCount(); i++) {
+            measured += snapshot.getHelperCount(PerformanceMetrics.PHASE_MEASURE, i);
+        }
+        return measured;
+    }
+
+    static class CountingLayoutManager extends VirtualLayoutManager {
+
+        int layoutChunks;
+
+        int recycled;
+
+        CountingLayoutManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void layoutChunk(RecyclerView.Recycler recycler, RecyclerView.State state,
+                ExposeLinearLayoutManagerEx.LayoutState layoutState, LayoutChunkResult result) {
+            layoutChunks++;
+            super.layoutChunk(recycler, state, layoutState, result);
+        }
+
+        @Override
+        public void removeAndRecycleViewAt(int index, RecyclerView.Recycler recycler) {
+            recycled++;
+            super.removeAndRecycleViewAt(index, recycler);
+        }
+
+        @Override
+        public void removeAndRecycleView(View child, RecyclerView.Recycler recycler) {
+            recycled++;
+            super.removeAndRecycleView(child, recycler);
+        }
+    }
+
+    class CountingAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mViewType;
+
+        private final int mHeight;
+
+        private final boolean mVariableHeight;
+
+        int count;
+
+        /**
+         * @param viewType view type shared by adapters of the same kind, so their views are recycled in between
+         */
+        CountingAdapter(LayoutHelper layoutHelper, int viewType, int count, int height, boolean variableHeight) {
+            mLayoutHelper = layoutHelper;
+            mViewType = viewType;
+            this.count = count;
+            mHeight = height;
+            mVariableHeight = variableHeight;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            created++;
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, mHeight));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            bound++;
+            if (mVariableHeight) {
+                // deterministic heights, so staggered lanes are uneven
+                holder.itemView.getLayoutParams().height = mHeight + (position * 37 % 5) * 40;
+            }
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mViewType;
+        }
+
+        @Override
+        public int getItemCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import com.google.monitoring.runtime.instrumentation.AllocationRecorder;
+import com.google.monitoring.runtime.instrumentation.Sampler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.internal.bytecode.InstrumentationConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scroll a warmed-up {@link MixedPage} through content already laid out once and check that vlayout allocates
+ * nothing on main thread in each frame. Allocations are counted by java-allocation-instrumenter, which is loaded as
+ * an agent by the test's own task in build.gradle, such as <code>./gradlew :vlayout:testReleaseScrollAllocation</code>.
+ * They are attributed to the innermost frame outside of <code>java.*</code>, so allocations in RecyclerView, the
+ * framework or the test adapters are not counted.
+ */
+@RunWith(ScrollAllocationTest.AllocationTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ScrollAllocationTest {
+
+    private static final int WARM_UP_STEPS = 300;
+
+    private static final int STEPS = 300;
+
+    private static final int DY = 60;
+
+    /**
+     * allocations reported in failure message
+     */
+    private static final int MAX_REPORTED = 20;
+
+    private MixedPage mPage;
+
+    private CountingSampler mSampler;
+
+    @Before
+    public void setUp() {
+        assertNotNull("allocation agent is not loaded", AllocationRecorder.getInstrumentation());
+        mPage = MixedPage.create();
+        mSampler = new CountingSampler(Thread.currentThread());
+        AllocationRecorder.addSampler(mSampler);
+    }
+
+    @After
+    public void tearDown() {
+        if (mSampler != null) {
+            AllocationRecorder.removeSampler(mSampler);
+        }
+    }
+
+    @Test
+    public void steadyStateScrollDown() {
+        warmUp();
+        assertNoAllocation(DY);
+    }
+
+    @Test
+    public void steadyStateScrollUp() {
+        warmUp();
+        mPage.scroll(STEPS, DY);
+        assertNoAllocation(-DY);
+    }
+
+    /**
+     * Lay out content to be scrolled once, and fill view pools and caches
+     */
+    private void warmUp() {
+        mPage.scroll(WARM_UP_STEPS, DY);
+        mPage.scroll(WARM_UP_STEPS, -DY);
+        mPage.scroll(WARM_UP_STEPS, DY);
+        mPage.scroll(WARM_UP_STEPS, -DY);
+    }
+
+    private void assertNoAllocation(int dy) {
+        int worstFrame = -1;
+        int worstCount = 0;
+        int total = 0;
+        for (int i = 0; i < STEPS; i++) {
+            mSampler.start();
+            mPage.recyclerView.scrollBy(0, dy);
+            mSampler.stop();
+            if (mSampler.count > worstCount) {
+                worstFrame = i;
+                worstCount = mSampler.count;
+            }
+            total += mSampler.count;
+        }
+        assertTrue(total + " allocations in " + STEPS + " frames, " + worstCount + " in frame " + worstFrame
+                + ", first ones:\n" + mSampler.report(), total == 0);
+    }
+
+    /**
+     * Count allocations made by vlayout on the main thread while started, and keep where the first ones were made
+     */
+    private static class CountingSampler implements Sampler {
+
+        private static final String PACKAGE = "com.alibaba.android.vlayout.";
+
+        private final Thread mThread;
+
+        private final List<String> mReported = new ArrayList<>();
+
+        private volatile boolean mStarted = false;
+
+        int count;
+
+        CountingSampler(Thread thread) {
+            mThread = thread;
+        }
+
+        void start() {
+            count = 0;
+            mStarted = true;
+        }
+
+        void stop() {
+            mStarted = false;
+        }
+
+        @Override
+        public void sampleAllocation(int arrayCount, String desc, Object newObj, long size) {
+            if (!mStarted || Thread.currentThread() != mThread) {
+                return;
+            }
+            final StackTraceElement owner = findOwner(new Throwable().getStackTrace());
+            if (owner == null) {
+                return;
+            }
+            count++;
+            if (mReported.size() < MAX_REPORTED) {
+                mReported.add(desc + (arrayCount >= 0 ? "[" + arrayCount + "]" : "") + " at " + owner);
+            }
+        }
+
+        String report() {
+            final StringBuilder builder = new StringBuilder();
+            for (String allocation : mReported) {
+                builder.append("  ").append(allocation).append('\n');
+            }
+            return builder.toString();
+        }
+
+        /**
+         * @return innermost frame outside of the JDK and the instrumenter if it is in vlayout, null otherwise
+         */
+        private static StackTraceElement findOwner(StackTraceElement[] stack) {
+            for (StackTraceElement element : stack) {
+                final String className = element.getClassName();
+                if (className.startsWith("java.") || className.startsWith("sun.")
+                        || className.startsWith("com.google.monitoring.")
+                        || className.startsWith(ScrollAllocationTest.class.getName())) {
+                    continue;
+                }
+                if (className.startsWith(PACKAGE) && !className.startsWith(MixedPage.class.getName())) {
+                    return element;
+                }
+                return null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Load the instrumenter from the system class loader, where the agent has registered its instrumentation, instead
+     * of acquiring a copy of it in Robolectric's sandbox
+     */
+    public static class AllocationTestRunner extends RobolectricTestRunner {
+
+        public AllocationTestRunner(Class<?> testClass) throws InitializationError {
+            super(testClass);
+        }
+
+        @Override
+        public InstrumentationConfiguration createClassLoaderConfig(FrameworkMethod method) {
+            return InstrumentationConfiguration.newBuilder()
+                    .doNotAcquirePackage("com.google.monitoring")
+                    .withConfig(getConfig(method.getMethod()))
+                    .build();
+        }
+    }
+}
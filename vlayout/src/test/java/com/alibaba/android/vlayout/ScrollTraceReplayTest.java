@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import com.alibaba.android.vlayout.extend.ScrollTraceRecorder;
+import com.alibaba.android.vlayout.layout.FixLayoutHelper;
+import com.alibaba.android.vlayout.layout.GridLayoutHelper;
+import com.alibaba.android.vlayout.layout.LinearLayoutHelper;
+import com.alibaba.android.vlayout.layout.OnePlusNLayoutHelper;
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper;
+import com.alibaba.android.vlayout.layout.StickyLayoutHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Record a session on a {@link MixedPage} and replay it with {@link ScrollTraceReplayer}, counts of the replay are
+ * reported to <code>build/reports/scroll-trace-replay.txt</code>.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ScrollTraceReplayTest {
+
+    private static final String REPORT = "build/reports/scroll-trace-replay.txt";
+
+    private MixedPage mPage;
+
+    @Before
+    public void setUp() {
+        mPage = MixedPage.create();
+    }
+
+    @Test
+    public void replayReachesRecordedPosition() throws IOException {
+        final ScrollTraceRecorder recorder = new ScrollTraceRecorder(1 << 20);
+        mPage.layoutManager.setScrollTraceRecorder(recorder);
+        mPage.scroll(200, 60);
+        for (int i = 0; i < 10; i++) {
+            final MixedPage.CountingAdapter adapter = mPage.adapters.get(1 + (i * 7) % (mPage.adapters.size() - 1));
+            adapter.count += 2;
+            adapter.notifyItemRangeInserted(0, 2);
+            mPage.layout();
+            mPage.scroll(5, -60);
+        }
+        mPage.layoutManager.scrollToPositionWithOffset(2477, 30);
+        mPage.layout();
+        mPage.scroll(50, 60);
+        mPage.layoutManager.setScrollTraceRecorder(null);
+        assertFalse(recorder.isTruncated());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.writeTo(out);
+        assertEquals(recorder.size(), out.size());
+
+        final ScrollTraceReplayer replayer = new ScrollTraceReplayer(mPage.recyclerView.getContext(),
+                new MixedPageFactory(), new MixedPageSizer()).replay(new ByteArrayInputStream(out.toByteArray()));
+        writeReport(replayer);
+
+        assertTrue(replayer.events > 0);
+        assertTrue(replayer.layoutManager.layoutChunks > 0);
+        assertTrue(replayer.created > 0);
+        assertTrue(replayer.bound >= replayer.created);
+        assertTrue(replayer.layoutManager.recycled > 0);
+        assertEquals(mPage.delegateAdapter.getItemCount(), replayer.layoutManager.getItemCount());
+        assertEquals(mPage.layoutManager.findFirstVisibleItemPosition(),
+                replayer.layoutManager.findFirstVisibleItemPosition());
+    }
+
+    private static void writeReport(ScrollTraceReplayer replayer) throws IOException {
+        File report = new File(REPORT);
+        report.getParentFile().mkdirs();
+        PrintWriter writer = new PrintWriter(new FileWriter(report));
+        try {
+            replayer.report(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Helpers configured as in {@link MixedPage}
+     */
+    private static class MixedPageFactory implements ScrollTraceReplayer.HelperFactory {
+
+        @Override
+        public LayoutHelper create(String helperType) {
+            if (helperType.equals(FixLayoutHelper.class.getName())) {
+                return new FixLayoutHelper(FixLayoutHelper.BOTTOM_RIGHT, 20, 20);
+            } else if (helperType.equals(LinearLayoutHelper.class.getName())) {
+                return new LinearLayoutHelper(8);
+            } else if (helperType.equals(GridLayoutHelper.class.getName())) {
+                return new GridLayoutHelper(4);
+            } else if (helperType.equals(StaggeredGridLayoutHelper.class.getName())) {
+                return new StaggeredGridLayoutHelper(2, 8);
+            }
+            return ScrollTraceReplayer.DEFAULT_FACTORY.create(helperType);
+        }
+    }
+
+    /**
+     * Item heights as in {@link MixedPage}
+     */
+    private static class MixedPageSizer implements ScrollTraceReplayer.ItemSizer {
+
+        @Override
+        public int getItemSize(String helperType, int indexInHelper) {
+            if (helperType.equals(FixLayoutHelper.class.getName())) {
+                return 160;
+            } else if (helperType.equals(StickyLayoutHelper.class.getName())) {
+                return 120;
+            } else if (helperType.equals(GridLayoutHelper.class.getName())) {
+                return 260;
+            } else if (helperType.equals(OnePlusNLayoutHelper.class.getName())) {
+                return 300;
+            } else if (helperType.equals(StaggeredGridLayoutHelper.class.getName())) {
+                return 240 + (indexInHelper * 37 % 5) * 40;
+            }
+            return 200;
+        }
+    }
+}
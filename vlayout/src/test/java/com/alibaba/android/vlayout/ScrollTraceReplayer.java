@@ -0,0 +1,300 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout;
+
+import com.alibaba.android.vlayout.extend.PerformanceMetrics;
+import com.alibaba.android.vlayout.extend.ScrollTraceRecorder;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-drive a trace written by {@link ScrollTraceRecorder} against current code and count the work done. LayoutHelpers
+ * are created by a {@link HelperFactory} from their class names and keep their identity through the trace, items are
+ * plain views sized by an {@link ItemSizer}, sharing a view type per helper class. Adapter notifications are posted
+ * when they are recorded and take effect in the next recorded layout pass, as in the recorded session.
+ */
+class ScrollTraceReplayer implements ScrollTraceRecorder.Visitor {
+
+    interface HelperFactory {
+
+        /**
+         * @return a new layoutHelper for the class recorded, configured as in the recorded session
+         */
+        LayoutHelper create(String helperType);
+    }
+
+    interface ItemSizer {
+
+        /**
+         * @return size of the item along orientation
+         */
+        int getItemSize(String helperType, int indexInHelper);
+    }
+
+    /**
+     * Creates helpers through their constructor without arguments
+     */
+    static final HelperFactory DEFAULT_FACTORY = new HelperFactory() {
+        @Override
+        public LayoutHelper create(String helperType) {
+            try {
+                return (LayoutHelper) Class.forName(helperType).newInstance();
+            } catch (Exception e) {
+                throw new IllegalArgumentException("can't create " + helperType + ", register it in a factory", e);
+            }
+        }
+    };
+
+    final RecyclerView recyclerView;
+
+    final MixedPage.CountingLayoutManager layoutManager;
+
+    final PerformanceMetrics metrics = new PerformanceMetrics();
+
+    int events;
+
+    int created;
+
+    int bound;
+
+    private final HelperFactory mFactory;
+
+    private final ItemSizer mSizer;
+
+    private final ReplayAdapter mAdapter = new ReplayAdapter();
+
+    private final SparseArray<LayoutHelper> mHelpers = new SparseArray<>();
+
+    private final Map<String, Integer> mViewTypes = new HashMap<>();
+
+    private int mWidth = MixedPage.WIDTH;
+
+    private int mHeight = MixedPage.HEIGHT;
+
+    ScrollTraceReplayer(Context context, HelperFactory factory, ItemSizer sizer) {
+        mFactory = factory;
+        mSizer = sizer;
+        recyclerView = new RecyclerView(context);
+        layoutManager = new MixedPage.CountingLayoutManager(context);
+        layoutManager.setPerformanceMonitor(metrics);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(mAdapter);
+    }
+
+    ScrollTraceReplayer replay(InputStream in) throws IOException {
+        ScrollTraceRecorder.read(in, this);
+        return this;
+    }
+
+    long measured() {
+        final PerformanceMetrics.Snapshot snapshot = metrics.snapshot();
+        long measured = 0;
+        for (int i = 0; i < snapshot.getHelperSlotCount(); i++) {
+            measured += snapshot.getHelperCount(PerformanceMetrics.PHASE_MEASURE, i);
+        }
+        return measured;
+    }
+
+    void report(PrintWriter writer) {
+        writer.println("events=" + events);
+        writer.println("layoutChunks=" + layoutManager.layoutChunks);
+        writer.println("created=" + created);
+        writer.println("bound=" + bound);
+        writer.println("measured=" + measured());
+        writer.println("recycled=" + layoutManager.recycled);
+        writer.flush();
+    }
+
+    @Override
+    public void onOrientation(long time, int orientation) {
+        events++;
+        layoutManager.setOrientation(orientation);
+    }
+
+    @Override
+    public void onLayoutHelpers(long time, int[] helperIds, String[] helperTypes, int[] itemCounts) {
+        events++;
+        final List<LayoutHelper> helpers = new ArrayList<>(helperIds.length);
+        for (int i = 0; i < helperIds.length; i++) {
+            LayoutHelper helper = mHelpers.get(helperIds[i]);
+            if (helper == null) {
+                helper = mFactory.create(helperTypes[i]);
+                mHelpers.put(helperIds[i], helper);
+            }
+            helper.setItemCount(itemCounts[i]);
+            helpers.add(helper);
+        }
+        mAdapter.setHelpers(helpers, helperTypes);
+        layoutManager.setLayoutHelpers(helpers);
+    }
+
+    @Override
+    public void onItemsAdded(long time, int positionStart, int itemCount) {
+        events++;
+        mAdapter.notifyItemRangeInserted(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemsRemoved(long time, int positionStart, int itemCount) {
+        events++;
+        mAdapter.notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemsUpdated(long time, int positionStart, int itemCount) {
+        events++;
+        mAdapter.notifyItemRangeChanged(positionStart, itemCount);
+    }
+
+    @Override
+    public void onItemsMoved(long time, int from, int to, int itemCount) {
+        events++;
+        // RecyclerView moves one item at a time
+        mAdapter.notifyItemMoved(from, to);
+    }
+
+    @Override
+    public void onItemsChanged(long time) {
+        events++;
+        mAdapter.notifyDataSetChanged();
+    }
+
+    @Override
+    public void onScroll(long time, int delta) {
+        events++;
+        if (layoutManager.getOrientation() == VirtualLayoutManager.VERTICAL) {
+            recyclerView.scrollBy(0, delta);
+        } else {
+            recyclerView.scrollBy(delta, 0);
+        }
+    }
+
+    @Override
+    public void onScrollToPosition(long time, int position, int offset) {
+        events++;
+        if (offset == ExposeLinearLayoutManagerEx.INVALID_OFFSET) {
+            layoutManager.scrollToPosition(position);
+        } else {
+            layoutManager.scrollToPositionWithOffset(position, offset);
+        }
+    }
+
+    @Override
+    public void onLayout(long time, int width, int height) {
+        events++;
+        mWidth = width;
+        mHeight = height;
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(mWidth, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(mHeight, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, mWidth, mHeight);
+    }
+
+    /**
+     * One item per position of the recorded helpers
+     */
+    private class ReplayAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private int[] mStarts = new int[0];
+
+        private String[] mTypes = new String[0];
+
+        private int mCount = 0;
+
+        void setHelpers(List<LayoutHelper> helpers, String[] types) {
+            mStarts = new int[helpers.size()];
+            mTypes = types;
+            mCount = 0;
+            for (int i = 0; i < helpers.size(); i++) {
+                mStarts[i] = mCount;
+                mCount += helpers.get(i).getItemCount();
+                if (!mViewTypes.containsKey(types[i])) {
+                    mViewTypes.put(types[i], mViewTypes.size());
+                }
+            }
+        }
+
+        private int findHelper(int position) {
+            int low = 0;
+            int high = mStarts.length - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (mStarts[mid] <= position) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            created++;
+            View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.MATCH_PARENT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            bound++;
+            final int index = findHelper(position);
+            final int size = mSizer.getItemSize(mTypes[index], position - mStarts[index]);
+            final ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+            if (layoutManager.getOrientation() == VirtualLayoutManager.VERTICAL) {
+                params.width = ViewGroup.LayoutParams.MATCH_PARENT;
+                params.height = size;
+            } else {
+                params.width = size;
+                params.height = ViewGroup.LayoutParams.MATCH_PARENT;
+            }
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mViewTypes.get(mTypes[findHelper(position)]);
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
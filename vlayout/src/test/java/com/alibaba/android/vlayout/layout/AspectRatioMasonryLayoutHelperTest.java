@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.BuildConfig;
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lane assignment and offsets of {@link AspectRatioMasonryLayoutHelper}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class AspectRatioMasonryLayoutHelperTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int LANES = 3;
+
+    private static final int GAP = 30;
+
+    private static final int LANE_WIDTH = (WIDTH - GAP * (LANES - 1)) / LANES;
+
+    private static final int MARGIN_TOP = 50;
+
+    private static final int MARGIN_BOTTOM = 60;
+
+    private static final float[] RATIO_PATTERN = {1f, 0.5f, 2f, 1f, 1f, 0.75f, 1.5f};
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private AspectRatioMasonryLayoutHelper mLayoutHelper;
+
+    private float[] mRatios;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        mLayoutManager = new VirtualLayoutManager(activity);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+
+        mRatios = new float[200];
+        for (int i = 0; i < mRatios.length; i++) {
+            mRatios[i] = RATIO_PATTERN[i % RATIO_PATTERN.length];
+        }
+        mLayoutHelper = new AspectRatioMasonryLayoutHelper(LANES, GAP);
+        mLayoutHelper.setMarginTop(MARGIN_TOP);
+        mLayoutHelper.setMarginBottom(MARGIN_BOTTOM);
+        mLayoutHelper.setAspectRatioProvider(new AspectRatioMasonryLayoutHelper.AspectRatioProvider() {
+            @Override
+            public float getAspectRatio(int position) {
+                return mRatios[position];
+            }
+        });
+
+        final DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        delegateAdapter.setAdapters(Arrays.<DelegateAdapter.Adapter>asList(
+                new ItemAdapter(mLayoutHelper, mRatios.length), new ItemAdapter(new LinearLayoutHelper(), 20)));
+        mRecyclerView.setAdapter(delegateAdapter);
+        activity.setContentView(mRecyclerView);
+        layout();
+    }
+
+    @Test
+    public void itemsGoToShortestLane() {
+        // heights 340, 680, 170, 340, 340
+        assertItem(0, 0, 0, 340);
+        assertItem(1, 1, 0, 680);
+        assertItem(2, 2, 0, 170);
+        // lane 2 ends at 170 + gap
+        assertItem(3, 2, 200, 340);
+        // lane 0 ends at 340 + gap, before lane 2 at 540 + gap
+        assertItem(4, 0, 370, 340);
+    }
+
+    @Test
+    public void laidOutItemsMatchPlacements() {
+        final int[][] placements = place(mRatios.length);
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int position = mLayoutManager.getPosition(child);
+            if (position >= mRatios.length) {
+                continue;
+            }
+            assertItem(position, placements[0][position], placements[1][position], placements[2][position]);
+        }
+    }
+
+    @Test
+    public void offsetToPosition() {
+        final int[][] placements = place(mRatios.length);
+        for (int position = 0; position < mRatios.length; position++) {
+            assertEquals(MARGIN_TOP + placements[1][position],
+                    mLayoutHelper.computeOffsetToPosition(position, mLayoutManager));
+        }
+        assertEquals(MARGIN_TOP + maxBottom(placements) + MARGIN_BOTTOM,
+                mLayoutHelper.computeOffsetToPosition(mRatios.length, mLayoutManager));
+    }
+
+    @Test
+    public void offsetStaysExactAfterJumpAndScroll() {
+        final int[][] placements = place(mRatios.length);
+        mLayoutManager.scrollToPositionWithOffset(150, 0);
+        layout();
+        assertEquals(MARGIN_TOP + placements[1][150], mLayoutManager.getOffsetToStart());
+        assertPlacedFrom(placements);
+
+        for (int i = 0; i < 20; i++) {
+            mRecyclerView.scrollBy(0, -500);
+            assertPlacedFrom(placements);
+        }
+        for (int i = 0; i < 20; i++) {
+            mRecyclerView.scrollBy(0, 700);
+            assertPlacedFrom(placements);
+        }
+    }
+
+    @Test
+    public void ratioChangeMovesFollowingItems() {
+        mRatios[3] = 0.25f;
+        mRecyclerView.getAdapter().notifyItemChanged(3);
+        layout();
+        final int[][] placements = place(mRatios.length);
+        assertEquals(1360, placements[2][3]);
+        assertPlacedFrom(placements);
+    }
+
+    /**
+     * Every laid out item is where the placements put it, relative to the scrolled distance
+     */
+    private void assertPlacedFrom(int[][] placements) {
+        final int offsetToStart = mLayoutManager.getOffsetToStart();
+        assertTrue(offsetToStart >= 0);
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int position = mLayoutManager.getPosition(child);
+            if (position >= mRatios.length) {
+                continue;
+            }
+            assertEquals(placements[0][position] * (LANE_WIDTH + GAP), mLayoutManager.getDecoratedLeft(child));
+            assertEquals(MARGIN_TOP + placements[1][position] - offsetToStart, mLayoutManager.getDecoratedTop(child));
+            assertEquals(placements[2][position], child.getMeasuredHeight());
+        }
+    }
+
+    private void assertItem(int position, int lane, int top, int height) {
+        final View view = mLayoutManager.findViewByPosition(position);
+        assertEquals(lane * (LANE_WIDTH + GAP), mLayoutManager.getDecoratedLeft(view));
+        assertEquals(MARGIN_TOP + top, mLayoutManager.getDecoratedTop(view));
+        assertEquals(LANE_WIDTH, view.getMeasuredWidth());
+        assertEquals(height, view.getMeasuredHeight());
+    }
+
+    /**
+     * Shortest lane first placements, as lanes, tops and heights
+     */
+    private int[][] place(int count) {
+        final int[] laneEnds = new int[LANES];
+        final int[][] placements = new int[3][count];
+        for (int i = 0; i < count; i++) {
+            int lane = 0;
+            for (int l = 1; l < LANES; l++) {
+                if (laneEnds[l] < laneEnds[lane]) {
+                    lane = l;
+                }
+            }
+            placements[0][i] = lane;
+            placements[1][i] = laneEnds[lane];
+            placements[2][i] = Math.round(LANE_WIDTH / mRatios[i]);
+            laneEnds[lane] += placements[2][i] + GAP;
+        }
+        return placements;
+    }
+
+    private static int maxBottom(int[][] placements) {
+        int bottom = 0;
+        for (int i = 0; i < placements[1].length; i++) {
+            bottom = Math.max(bottom, placements[1][i] + placements[2][i]);
+        }
+        return bottom;
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static class ItemAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mCount;
+
+        ItemAdapter(LayoutHelper layoutHelper, int count) {
+            mLayoutHelper = layoutHelper;
+            mCount = count;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
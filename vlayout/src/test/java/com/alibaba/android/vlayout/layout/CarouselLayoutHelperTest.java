@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.BuildConfig;
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scrolling, bounds, flinging and snapping of a {@link CarouselLayoutHelper} row above a linear section
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class CarouselLayoutHelperTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int ITEM_COUNT = 30;
+
+    private static final int ITEM_WIDTH = 300;
+
+    private static final int ITEM_HEIGHT = 400;
+
+    private static final int GAP = 20;
+
+    private static final int MAX_OFFSET = ITEM_COUNT * ITEM_WIDTH + (ITEM_COUNT - 1) * GAP - WIDTH;
+
+    private RecyclerView mRecyclerView;
+
+    private CountingLayoutManager mLayoutManager;
+
+    private CarouselLayoutHelper mCarouselHelper;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        mLayoutManager = new CountingLayoutManager(activity);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+
+        mCarouselHelper = new CarouselLayoutHelper(GAP);
+        final DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        delegateAdapter.setAdapters(Arrays.<DelegateAdapter.Adapter>asList(
+                new ItemAdapter(mCarouselHelper, 1, ITEM_COUNT, ITEM_WIDTH, ITEM_HEIGHT),
+                new ItemAdapter(new LinearLayoutHelper(), 2, 20, ViewGroup.LayoutParams.MATCH_PARENT, 300)));
+        mRecyclerView.setAdapter(delegateAdapter);
+        activity.setContentView(mRecyclerView);
+        layout();
+        mLayoutManager.layouts = 0;
+    }
+
+    @Test
+    public void scrollFillsAndRecyclesRowWithoutLayout() {
+        for (int i = 0; i < 100; i++) {
+            mCarouselHelper.scrollHorizontallyBy(50);
+            assertRow();
+        }
+        assertEquals(5000, mCarouselHelper.getScrollOffset());
+        for (int i = 0; i < 100; i++) {
+            mCarouselHelper.scrollHorizontallyBy(-50);
+            assertRow();
+        }
+        assertEquals(0, mCarouselHelper.getScrollOffset());
+        assertEquals(0, mLayoutManager.layouts);
+    }
+
+    @Test
+    public void scrollStopsAtBounds() {
+        assertEquals(0, mCarouselHelper.scrollHorizontallyBy(-100));
+        assertEquals(MAX_OFFSET, mCarouselHelper.scrollHorizontallyBy(100000));
+        assertEquals(MAX_OFFSET, mCarouselHelper.getScrollOffset());
+        assertEquals(0, mCarouselHelper.scrollHorizontallyBy(100));
+        assertRow();
+        assertEquals(ITEM_COUNT - 1, lastRowChild().getTag());
+        assertEquals(WIDTH, mLayoutManager.getDecoratedRight(lastRowChild()));
+
+        // the row keeps its offset through a layout pass
+        mRecyclerView.requestLayout();
+        layout();
+        assertEquals(MAX_OFFSET, mCarouselHelper.getScrollOffset());
+        assertEquals(WIDTH, mLayoutManager.getDecoratedRight(lastRowChild()));
+    }
+
+    @Test
+    public void flingStaysInBounds() {
+        mCarouselHelper.scrollHorizontallyBy(MAX_OFFSET - 1000);
+        // towards end
+        drag(1000, 100, 4, 10);
+        runFrames();
+        assertEquals(MAX_OFFSET, mCarouselHelper.getScrollOffset());
+        assertRow();
+
+        mCarouselHelper.scrollHorizontallyBy(1000 - MAX_OFFSET);
+        // towards start
+        drag(100, 1000, 4, 10);
+        runFrames();
+        assertEquals(0, mCarouselHelper.getScrollOffset());
+        assertRow();
+        assertEquals(0, mLayoutManager.layouts);
+    }
+
+    @Test
+    public void snapsToNearestItemAfterDrag() {
+        mCarouselHelper.setSnapToItem(true);
+        // dragging starts past the touch slop at the first move, then scrolls 140 pixels
+        drag(1000, 850, 15, 500);
+        runFrames();
+        assertEquals(0, mCarouselHelper.getScrollOffset());
+
+        drag(1000, 810, 19, 500);
+        runFrames();
+        assertEquals(ITEM_WIDTH + GAP, mCarouselHelper.getScrollOffset());
+        assertRow();
+    }
+
+    /**
+     * Row items are attached in position order, cover the visible width and none is out of it
+     */
+    private void assertRow() {
+        assertFalse(mRecyclerView.isLayoutRequested());
+        final int offset = mCarouselHelper.getScrollOffset();
+        int expectedPosition = -1;
+        int left = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int position = mLayoutManager.getPosition(child);
+            if (position >= ITEM_COUNT) {
+                continue;
+            }
+            if (expectedPosition >= 0) {
+                assertEquals(expectedPosition, position);
+            }
+            expectedPosition = position + 1;
+            final int childLeft = mLayoutManager.getDecoratedLeft(child);
+            final int childRight = mLayoutManager.getDecoratedRight(child);
+            assertTrue("item " + position + " is out of the row", childRight > 0 && childLeft < WIDTH);
+            assertEquals(position * (ITEM_WIDTH + GAP) - offset, childLeft);
+            left = Math.min(left, childLeft);
+            right = Math.max(right, childRight);
+        }
+        assertTrue(left <= 0);
+        assertTrue(right >= WIDTH);
+    }
+
+    private View lastRowChild() {
+        View last = null;
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            if (mLayoutManager.getPosition(child) < ITEM_COUNT) {
+                last = child;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Drag horizontally in the row, from x to x in steps moves, stepMillis apart
+     */
+    private void drag(float fromX, float toX, int steps, long stepMillis) {
+        final float y = ITEM_HEIGHT / 2;
+        final long downTime = SystemClock.uptimeMillis();
+        long time = downTime;
+        dispatch(MotionEvent.obtain(downTime, time, MotionEvent.ACTION_DOWN, fromX, y, 0));
+        for (int i = 1; i <= steps; i++) {
+            time += stepMillis;
+            Robolectric.getForegroundThreadScheduler().advanceBy(stepMillis, TimeUnit.MILLISECONDS);
+            dispatch(MotionEvent.obtain(downTime, time, MotionEvent.ACTION_MOVE,
+                    fromX + (toX - fromX) * i / steps, y, 0));
+        }
+        dispatch(MotionEvent.obtain(downTime, time, MotionEvent.ACTION_UP, toX, y, 0));
+    }
+
+    private void dispatch(MotionEvent event) {
+        mRecyclerView.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    private void runFrames() {
+        for (int i = 0; i < 300; i++) {
+            Robolectric.getForegroundThreadScheduler().advanceBy(16, TimeUnit.MILLISECONDS);
+            final int offset = mCarouselHelper.getScrollOffset();
+            assertTrue("offset " + offset + " is out of bounds", offset >= 0 && offset <= MAX_OFFSET);
+        }
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static class CountingLayoutManager extends VirtualLayoutManager {
+
+        int layouts;
+
+        CountingLayoutManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+            layouts++;
+            super.onLayoutChildren(recycler, state);
+        }
+    }
+
+    private static class ItemAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mViewType;
+
+        private final int mCount;
+
+        private final int mWidth;
+
+        private final int mHeight;
+
+        ItemAdapter(LayoutHelper layoutHelper, int viewType, int count, int width, int height) {
+            mLayoutHelper = layoutHelper;
+            mViewType = viewType;
+            mCount = count;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(mWidth, mHeight));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            holder.itemView.setTag(position);
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return mViewType;
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.BuildConfig;
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Offset math of {@link FixedExtentLinearLayoutHelper}, before and after its items are laid out
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class FixedExtentLinearLayoutHelperTest {
+
+    private static final int EXTENT = 200;
+
+    private static final int DIVIDER = 10;
+
+    private static final int MARGIN_TOP = 30;
+
+    private static final int MARGIN_BOTTOM = 40;
+
+    private static final int COUNT = 100;
+
+    private static final int NEXT_EXTENT = 300;
+
+    /**
+     * length of the whole first section, with its margins
+     */
+    private static final int SECTION_LENGTH = MARGIN_TOP + COUNT * EXTENT + (COUNT - 1) * DIVIDER + MARGIN_BOTTOM;
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private FixedExtentLinearLayoutHelper mLayoutHelper;
+
+    private FixedExtentLinearLayoutHelper mNextLayoutHelper;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        mLayoutManager = new VirtualLayoutManager(activity);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+
+        mLayoutHelper = new FixedExtentLinearLayoutHelper(EXTENT, DIVIDER);
+        mLayoutHelper.setMarginTop(MARGIN_TOP);
+        mLayoutHelper.setMarginBottom(MARGIN_BOTTOM);
+        mNextLayoutHelper = new FixedExtentLinearLayoutHelper(NEXT_EXTENT);
+
+        final DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        // item views wrap a smaller height, the declared extent wins
+        delegateAdapter.setAdapters(Arrays.<DelegateAdapter.Adapter>asList(
+                new ItemAdapter(mLayoutHelper, COUNT), new ItemAdapter(mNextLayoutHelper, 50)));
+        mRecyclerView.setAdapter(delegateAdapter);
+        activity.setContentView(mRecyclerView);
+    }
+
+    @Test
+    public void offsetIsKnownBeforeLayout() {
+        // not attached, so none of its items is ever laid out
+        final FixedExtentLinearLayoutHelper layoutHelper = new FixedExtentLinearLayoutHelper(EXTENT, DIVIDER);
+        layoutHelper.setMarginTop(MARGIN_TOP);
+        layoutHelper.setMarginBottom(MARGIN_BOTTOM);
+        layoutHelper.setItemCount(COUNT);
+        layoutHelper.setRange(0, COUNT - 1);
+        assertEquals(MARGIN_TOP, layoutHelper.computeOffsetToPosition(0, mLayoutManager));
+        assertEquals(MARGIN_TOP + 5 * (EXTENT + DIVIDER), layoutHelper.computeOffsetToPosition(5, mLayoutManager));
+        assertEquals(SECTION_LENGTH, layoutHelper.computeOffsetToPosition(COUNT, mLayoutManager));
+
+        // without a declared extent the offset stays unknown until an item is measured
+        final FixedExtentLinearLayoutHelper measuredHelper = new FixedExtentLinearLayoutHelper();
+        measuredHelper.setItemCount(COUNT);
+        measuredHelper.setRange(0, COUNT - 1);
+        assertEquals(-1, measuredHelper.computeOffsetToPosition(5, mLayoutManager));
+    }
+
+    @Test
+    public void offsetMatchesLaidOutItems() {
+        layout();
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int position = mLayoutManager.getPosition(child);
+            assertEquals(EXTENT, child.getMeasuredHeight());
+            assertEquals(mLayoutManager.getDecoratedTop(child),
+                    mLayoutHelper.computeOffsetToPosition(position, mLayoutManager));
+        }
+    }
+
+    @Test
+    public void offsetToStartIsExactAfterJumping() {
+        // the first section is never laid out
+        mLayoutManager.scrollToPositionWithOffset(COUNT + 10, 0);
+        layout();
+        assertEquals(COUNT + 10, mLayoutManager.getPosition(mLayoutManager.getChildAt(0)));
+        assertEquals(SECTION_LENGTH + 10 * NEXT_EXTENT, mLayoutManager.getOffsetToStart());
+
+        mLayoutManager.scrollToPositionWithOffset(50, 0);
+        layout();
+        assertEquals(50, mLayoutManager.getPosition(mLayoutManager.getChildAt(0)));
+        assertEquals(MARGIN_TOP + 50 * (EXTENT + DIVIDER), mLayoutManager.getOffsetToStart());
+    }
+
+    @Test
+    public void scrollAfterJumpKeepsOffset() {
+        mLayoutManager.scrollToPositionWithOffset(50, 0);
+        layout();
+        final int offset = mLayoutManager.getOffsetToStart();
+        mRecyclerView.scrollBy(0, -1000);
+        assertEquals(offset - 1000, mLayoutManager.getOffsetToStart());
+        mRecyclerView.scrollBy(0, 3000);
+        assertEquals(offset + 2000, mLayoutManager.getOffsetToStart());
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, 1080, 1920);
+    }
+
+    private static class ItemAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mCount;
+
+        ItemAdapter(LayoutHelper layoutHelper, int count) {
+            mLayoutHelper = layoutHelper;
+            mCount = count;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 50));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
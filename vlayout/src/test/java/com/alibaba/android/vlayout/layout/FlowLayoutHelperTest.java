@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.BuildConfig;
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import android.app.Activity;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Line breaking of {@link FlowLayoutHelper}, from the top and after jumping
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class FlowLayoutHelperTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int H_GAP = 20;
+
+    private static final int V_GAP = 10;
+
+    private static final int COUNT = 400;
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    private ItemAdapter mAdapter;
+
+    /**
+     * line start of every position seen laid out
+     */
+    private final Map<Integer, Integer> mLineStarts = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(activity);
+        mLayoutManager = new VirtualLayoutManager(activity);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+
+        mAdapter = new ItemAdapter(new FlowLayoutHelper(H_GAP, V_GAP), COUNT);
+        final DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        delegateAdapter.setAdapters(Arrays.<DelegateAdapter.Adapter>asList(
+                mAdapter, new ItemAdapter(new LinearLayoutHelper(), 10)));
+        mRecyclerView.setAdapter(delegateAdapter);
+        activity.setContentView(mRecyclerView);
+    }
+
+    @Test
+    public void linesAreFilledFromTop() {
+        layout(WIDTH);
+        final List<List<View>> lines = assertLines(WIDTH);
+        assertTrue(lines.size() > 1);
+        assertEquals(0, mLayoutManager.getPosition(lines.get(0).get(0)));
+        for (int i = 0; i + 1 < lines.size(); i++) {
+            // the first item of the next line doesn't fit in this one
+            final List<View> line = lines.get(i);
+            final View next = lines.get(i + 1).get(0);
+            assertTrue(mLayoutManager.getDecoratedRight(line.get(line.size() - 1)) + H_GAP
+                    + next.getMeasuredWidth() > WIDTH);
+        }
+    }
+
+    @Test
+    public void jumpDoesNotBindItemsBeforeAnchor() {
+        layout(WIDTH);
+        mAdapter.bound.clear();
+        mLayoutManager.scrollToPositionWithOffset(300, 0);
+        layout(WIDTH);
+        assertTrue(Collections.min(mAdapter.bound) >= 300);
+        // the anchor starts a line
+        final View anchor = mLayoutManager.findViewByPosition(300);
+        assertEquals(0, mLayoutManager.getDecoratedLeft(anchor));
+        assertEquals(0, mLayoutManager.getDecoratedTop(anchor));
+
+        // scrolling up only binds the lines scrolled to
+        mAdapter.bound.clear();
+        mRecyclerView.scrollBy(0, -500);
+        assertLines(WIDTH);
+        assertTrue(mAdapter.bound.size() < 50);
+        assertTrue(Collections.min(mAdapter.bound) >= 250);
+    }
+
+    @Test
+    public void linesAgreeWhileScrollingAfterJump() {
+        mLayoutManager.scrollToPositionWithOffset(300, 0);
+        layout(WIDTH);
+        assertLines(WIDTH);
+        for (int i = 0; i < 30; i++) {
+            mRecyclerView.scrollBy(0, -400);
+            assertLines(WIDTH);
+        }
+        for (int i = 0; i < 30; i++) {
+            mRecyclerView.scrollBy(0, 400);
+            assertLines(WIDTH);
+        }
+
+        // lines are kept when jumping into them
+        mLayoutManager.scrollToPositionWithOffset(250, 0);
+        layout(WIDTH);
+        assertLines(WIDTH);
+    }
+
+    @Test
+    public void linesFollowWidth() {
+        layout(WIDTH);
+        assertLines(WIDTH);
+        mRecyclerView.scrollBy(0, 3000);
+        mLineStarts.clear();
+        mRecyclerView.requestLayout();
+        layout(720);
+        assertLines(720);
+        mRecyclerView.scrollBy(0, -3000);
+        assertLines(720);
+    }
+
+    /**
+     * Items of a line are next to each other within the width, lines are stacked with gaps, and every item stays
+     * in the line it was seen in before
+     *
+     * @return laid out lines of flow items
+     */
+    private List<List<View>> assertLines(int width) {
+        final List<List<View>> lines = new ArrayList<>();
+        List<View> line = null;
+        int lastPosition = -1;
+        for (int i = 0; i < mLayoutManager.getChildCount(); i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int position = mLayoutManager.getPosition(child);
+            if (position >= COUNT) {
+                continue;
+            }
+            if (lastPosition >= 0) {
+                assertEquals(lastPosition + 1, position);
+            }
+            lastPosition = position;
+            if (line == null || mLayoutManager.getDecoratedTop(line.get(0)) != mLayoutManager.getDecoratedTop(child)) {
+                line = new ArrayList<>();
+                lines.add(line);
+            }
+            line.add(child);
+        }
+
+        int bottom = Integer.MIN_VALUE;
+        for (List<View> l : lines) {
+            final int top = mLayoutManager.getDecoratedTop(l.get(0));
+            if (bottom != Integer.MIN_VALUE) {
+                assertEquals(bottom + V_GAP, top);
+            }
+            final int lineStart = mLayoutManager.getPosition(l.get(0));
+            int left = 0;
+            int height = 0;
+            for (View view : l) {
+                assertEquals(left, mLayoutManager.getDecoratedLeft(view));
+                left = mLayoutManager.getDecoratedRight(view) + H_GAP;
+                height = Math.max(height, view.getMeasuredHeight());
+                final Integer seen = mLineStarts.put(mLayoutManager.getPosition(view), lineStart);
+                assertTrue(seen == null || seen == lineStart);
+            }
+            assertTrue(left - H_GAP <= width);
+            bottom = top + height;
+        }
+        return lines;
+    }
+
+    private void layout(int width) {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, width, HEIGHT);
+    }
+
+    private static class ItemAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mCount;
+
+        final List<Integer> bound = new ArrayList<>();
+
+        ItemAdapter(LayoutHelper layoutHelper, int count) {
+            mLayoutHelper = layoutHelper;
+            mCount = count;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 300));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            bound.add(position);
+            if (mLayoutHelper instanceof FlowLayoutHelper) {
+                final ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+                params.width = 150 + (position * 53 % 7) * 50;
+                params.height = 80 + (position % 3) * 20;
+            }
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
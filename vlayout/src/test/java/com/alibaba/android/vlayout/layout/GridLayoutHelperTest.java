@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.BuildConfig;
+import com.alibaba.android.vlayout.DelegateAdapter;
+import com.alibaba.android.vlayout.LayoutHelper;
+import com.alibaba.android.vlayout.VirtualLayoutManager;
+
+import android.app.Activity;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Column order of a uniform {@link GridLayoutHelper}, rows laid out towards end and start must match
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class GridLayoutHelperTest {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 1920;
+
+    private static final int SPAN_COUNT = 4;
+
+    private Activity mActivity;
+
+    private RecyclerView mRecyclerView;
+
+    private VirtualLayoutManager mLayoutManager;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mRecyclerView = new RecyclerView(mActivity);
+        mLayoutManager = new VirtualLayoutManager(mActivity);
+        mRecyclerView.setLayoutManager(mLayoutManager);
+
+        final GridLayoutHelper gridLayoutHelper = new GridLayoutHelper(SPAN_COUNT);
+        // one row is as high as a quarter of the width, so every cell is square and the grid is uniform
+        gridLayoutHelper.setAspectRatio(SPAN_COUNT);
+        final DelegateAdapter delegateAdapter = new DelegateAdapter(mLayoutManager);
+        delegateAdapter.setAdapters(Collections.<DelegateAdapter.Adapter>singletonList(new GridAdapter(gridLayoutHelper, 400)));
+        mRecyclerView.setAdapter(delegateAdapter);
+        mActivity.setContentView(mRecyclerView);
+    }
+
+    @Test
+    public void columnsKeepOrderWhenScrollingBackUp() {
+        layout();
+        scrollDownAndBack();
+        assertColumns(false);
+    }
+
+    @Test
+    public void columnsKeepOrderWhenScrollingBackUpInRtl() {
+        ViewCompat.setLayoutDirection(mRecyclerView, ViewCompat.LAYOUT_DIRECTION_RTL);
+        layout();
+        scrollDownAndBack();
+        assertColumns(true);
+    }
+
+    private void scrollDownAndBack() {
+        for (int i = 0; i < 100; i++) {
+            mRecyclerView.scrollBy(0, 100);
+        }
+        // rows from here on are laid out towards start
+        for (int i = 0; i < 60; i++) {
+            mRecyclerView.scrollBy(0, -100);
+        }
+    }
+
+    private void assertColumns(boolean rtl) {
+        final int spanWidth = WIDTH / SPAN_COUNT;
+        final int count = mLayoutManager.getChildCount();
+        assertTrue(count > SPAN_COUNT);
+        for (int i = 0; i < count; i++) {
+            final View child = mLayoutManager.getChildAt(i);
+            final int column = mLayoutManager.getPosition(child) % SPAN_COUNT;
+            final int expected = (rtl ? SPAN_COUNT - 1 - column : column) * spanWidth;
+            assertEquals("column of position " + mLayoutManager.getPosition(child), expected,
+                    mLayoutManager.getDecoratedLeft(child));
+        }
+    }
+
+    private void layout() {
+        mRecyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mRecyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static class GridAdapter extends DelegateAdapter.Adapter<RecyclerView.ViewHolder> {
+
+        private final LayoutHelper mLayoutHelper;
+
+        private final int mCount;
+
+        GridAdapter(LayoutHelper layoutHelper, int count) {
+            mLayoutHelper = layoutHelper;
+            mCount = count;
+        }
+
+        @Override
+        public LayoutHelper onCreateLayoutHelper() {
+            return mLayoutHelper;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final View view = new View(parent.getContext());
+            view.setLayoutParams(new VirtualLayoutManager.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+            return new RecyclerView.ViewHolder(view) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mCount;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import com.alibaba.android.vlayout.layout.StaggeredGridLayoutHelper.LazySpanLookup;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bit-packed span store of {@link StaggeredGridLayoutHelper}, for each entry size and while its window slides
+ */
+public class LazySpanLookupTest {
+
+    private static final int MAX_SIZE = LazySpanLookup.MAX_SIZE;
+
+    @Test
+    public void packEntriesOfTwoBits() {
+        assertPacked(3);
+    }
+
+    @Test
+    public void packEntriesOfFourBits() {
+        assertPacked(4);
+        assertPacked(15);
+    }
+
+    @Test
+    public void packEntriesOfEightBits() {
+        assertPacked(16);
+        assertPacked(255);
+    }
+
+    @Test
+    public void packEntriesOfSixteenBits() {
+        assertPacked(256);
+        assertPacked(1000);
+    }
+
+    @Test
+    public void unassignedPositionHasNoSpan() {
+        final LazySpanLookup lookup = newLookup(4);
+        assertTrue(lookup.getSpan(10) < 0);
+        lookup.setSpan(10, 3);
+        assertTrue(lookup.getSpan(9) < 0);
+        assertTrue(lookup.getSpan(11) < 0);
+        lookup.clear();
+        assertTrue(lookup.getSpan(10) < 0);
+    }
+
+    @Test
+    public void spanOutOfEntryIsNotStored() {
+        final LazySpanLookup lookup = newLookup(3);
+        lookup.setSpan(0, 3);
+        assertTrue(lookup.getSpan(0) < 0);
+    }
+
+    @Test
+    public void windowGrowsToMaxSize() {
+        final LazySpanLookup lookup = newLookup(5);
+        for (int i = 0; i < MAX_SIZE; i++) {
+            lookup.setSpan(i, i % 5);
+        }
+        assertEquals(0, lookup.mStart);
+        for (int i = 0; i < MAX_SIZE; i++) {
+            assertEquals(i % 5, lookup.getSpan(i));
+        }
+    }
+
+    @Test
+    public void windowSlidesForward() {
+        final LazySpanLookup lookup = newLookup(5);
+        for (int i = 0; i < MAX_SIZE; i++) {
+            lookup.setSpan(i, i % 5);
+        }
+        final int position = MAX_SIZE + 100;
+        lookup.setSpan(position, 2);
+
+        assertEquals(2, lookup.getSpan(position));
+        assertTrue(lookup.mStart > 0 && lookup.mStart <= position);
+        // positions before the window are dropped, the ones still in it are kept
+        assertTrue(lookup.getSpan(lookup.mStart - 1) < 0);
+        for (int i = lookup.mStart; i < MAX_SIZE; i++) {
+            assertEquals(i % 5, lookup.getSpan(i));
+        }
+        for (int i = MAX_SIZE; i < position; i++) {
+            assertTrue(lookup.getSpan(i) < 0);
+        }
+    }
+
+    @Test
+    public void windowSlidesBackward() {
+        final LazySpanLookup lookup = newLookup(5);
+        final int first = 3 * MAX_SIZE;
+        for (int i = first; i < first + MAX_SIZE; i++) {
+            lookup.setSpan(i, i % 5);
+        }
+        final int position = first - 100;
+        lookup.setSpan(position, 4);
+
+        assertEquals(4, lookup.getSpan(position));
+        assertTrue(lookup.mStart <= position);
+        final int end = lookup.mStart + MAX_SIZE;
+        assertTrue(lookup.getSpan(end) < 0);
+        for (int i = first; i < end; i++) {
+            assertEquals(i % 5, lookup.getSpan(i));
+        }
+    }
+
+    @Test
+    public void windowStartsAtFirstAssignedPosition() {
+        final LazySpanLookup lookup = newLookup(2);
+        lookup.setSpan(500, 1);
+        lookup.setSpan(400, 0);
+        assertEquals(1, lookup.getSpan(500));
+        assertEquals(0, lookup.getSpan(400));
+        assertTrue(lookup.mStart <= 400);
+    }
+
+    @Test
+    public void offsetForAdditionShiftsFollowingSpans() {
+        final LazySpanLookup lookup = filled(4, 64);
+        lookup.offsetForAddition(10, 3);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 4, lookup.getSpan(i));
+        }
+        for (int i = 10; i < 13; i++) {
+            assertTrue(lookup.getSpan(i) < 0);
+        }
+        for (int i = 13; i < 64; i++) {
+            assertEquals((i - 3) % 4, lookup.getSpan(i));
+        }
+    }
+
+    @Test
+    public void offsetForRemovalShiftsFollowingSpans() {
+        final LazySpanLookup lookup = filled(4, 64);
+        lookup.offsetForRemoval(10, 3);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 4, lookup.getSpan(i));
+        }
+        for (int i = 10; i < 61; i++) {
+            assertEquals((i + 3) % 4, lookup.getSpan(i));
+        }
+    }
+
+    @Test
+    public void offsetBeforeWindowMovesIt() {
+        final LazySpanLookup lookup = newLookup(4);
+        for (int i = 100; i < 116; i++) {
+            lookup.setSpan(i, i % 4);
+        }
+        lookup.offsetForAddition(50, 5);
+        for (int i = 105; i < 121; i++) {
+            assertEquals((i - 5) % 4, lookup.getSpan(i));
+        }
+        lookup.offsetForRemoval(50, 5);
+        for (int i = 100; i < 116; i++) {
+            assertEquals(i % 4, lookup.getSpan(i));
+        }
+    }
+
+    @Test
+    public void saveAndRestoreState() {
+        final LazySpanLookup lookup = filled(6, 100);
+        final int[] state = lookup.saveState();
+
+        final LazySpanLookup restored = newLookup(6);
+        restored.restoreState(state);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 6, restored.getSpan(i));
+        }
+        assertArrayEquals(state, restored.saveState());
+
+        // state of a different entry size is dropped
+        final LazySpanLookup other = newLookup(2);
+        other.restoreState(state);
+        assertTrue(other.getSpan(0) < 0);
+    }
+
+    private static LazySpanLookup newLookup(int lanes) {
+        final LazySpanLookup lookup = new LazySpanLookup();
+        lookup.setLanes(lanes);
+        return lookup;
+    }
+
+    private static LazySpanLookup filled(int lanes, int count) {
+        final LazySpanLookup lookup = newLookup(lanes);
+        for (int i = 0; i < count; i++) {
+            lookup.setSpan(i, i % lanes);
+        }
+        return lookup;
+    }
+
+    /**
+     * Neighbouring entries in a word do not overwrite each other, up to the largest span index of lanes
+     */
+    private static void assertPacked(int lanes) {
+        final LazySpanLookup lookup = newLookup(lanes);
+        final int count = 3 * lanes + 37;
+        for (int i = 0; i < count; i++) {
+            lookup.setSpan(i, (i * 7) % lanes);
+        }
+        lookup.setSpan(count, lanes - 1);
+        for (int i = 0; i < count; i++) {
+            assertEquals("span of " + i + " in " + lanes + " lanes", (i * 7) % lanes, lookup.getSpan(i));
+        }
+        assertEquals(lanes - 1, lookup.getSpan(count));
+    }
+}
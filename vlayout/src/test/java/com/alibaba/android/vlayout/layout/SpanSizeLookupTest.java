@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2016 Alibaba Group
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.alibaba.android.vlayout.layout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Span group index of {@link GridLayoutHelper.SpanSizeLookup} after partial invalidation, compared with the uncached
+ * computation over the same span sizes
+ */
+public class SpanSizeLookupTest {
+
+    private static final int SPAN_COUNT = 4;
+
+    private static final int ITEM_COUNT = 200;
+
+    private int[] mSizes;
+
+    private ArraySpanSizeLookup mCached;
+
+    private ArraySpanSizeLookup mUncached;
+
+    @Before
+    public void setUp() {
+        final Random random = new Random(17);
+        mSizes = new int[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            mSizes[i] = 1 + random.nextInt(SPAN_COUNT);
+        }
+        mCached = new ArraySpanSizeLookup(mSizes);
+        mCached.setSpanIndexCacheEnabled(true);
+        mUncached = new ArraySpanSizeLookup(mSizes);
+    }
+
+    @Test
+    public void invalidateInMiddleOfGroup() {
+        assertMatches(ITEM_COUNT);
+        int position = 40;
+        while (mUncached.getSpanIndex(position, SPAN_COUNT) == 0) {
+            position++;
+        }
+        // a full span item does not fit in the group it was in
+        mSizes[position] = SPAN_COUNT;
+        mCached.invalidateSpanIndexCache(position);
+        assertMatches(ITEM_COUNT);
+    }
+
+    @Test
+    public void invalidateAtGroupStart() {
+        assertMatches(ITEM_COUNT);
+        // a group start following a group with free space, it moves into that group when it shrinks
+        int position = 40;
+        while (mUncached.getSpanIndex(position, SPAN_COUNT) != 0
+                || mUncached.getSpanIndex(position - 1, SPAN_COUNT) + mSizes[position - 1] == SPAN_COUNT) {
+            position++;
+        }
+        mSizes[position] = 1;
+        assertTrue(mUncached.getSpanIndex(position, SPAN_COUNT) > 0);
+        mCached.invalidateSpanIndexCache(position);
+        assertMatches(ITEM_COUNT);
+    }
+
+    @Test
+    public void invalidateFirstGroup() {
+        assertMatches(ITEM_COUNT);
+        mSizes[0] = mSizes[0] == 1 ? SPAN_COUNT : 1;
+        mCached.invalidateSpanIndexCache(0);
+        assertMatches(ITEM_COUNT);
+    }
+
+    @Test
+    public void invalidateAtIndexedEnd() {
+        // index up to the end of an open group, the next item may still join it
+        int last = 40;
+        while (mUncached.getSpanIndex(last, SPAN_COUNT) + mSizes[last] == SPAN_COUNT) {
+            last++;
+        }
+        assertMatches(last + 1);
+
+        final int indexedEnd = last + 1;
+        mSizes[indexedEnd] = mSizes[indexedEnd] == 1 ? SPAN_COUNT : 1;
+        mCached.invalidateSpanIndexCache(indexedEnd);
+        assertMatches(ITEM_COUNT);
+    }
+
+    @Test
+    public void invalidateRepeatedly() {
+        final Random random = new Random(31);
+        for (int round = 0; round < 100; round++) {
+            assertMatches(random.nextInt(ITEM_COUNT) + 1);
+            final int position = random.nextInt(ITEM_COUNT);
+            mSizes[position] = 1 + random.nextInt(SPAN_COUNT);
+            mCached.invalidateSpanIndexCache(position);
+        }
+        assertMatches(ITEM_COUNT);
+    }
+
+    private void assertMatches(int end) {
+        for (int i = 0; i < end; i++) {
+            assertEquals("span index of " + i, mUncached.getSpanIndex(i, SPAN_COUNT),
+                    mCached.getCachedSpanIndex(i, SPAN_COUNT));
+            assertEquals("span group of " + i, mUncached.getSpanGroupIndex(i, SPAN_COUNT),
+                    mCached.getCachedSpanGroupIndex(i, SPAN_COUNT));
+            assertEquals("span group start of " + i, mUncached.getCachedSpanGroupStart(i, SPAN_COUNT),
+                    mCached.getCachedSpanGroupStart(i, SPAN_COUNT));
+        }
+    }
+
+    private static class ArraySpanSizeLookup extends GridLayoutHelper.SpanSizeLookup {
+
+        private final int[] mSizes;
+
+        ArraySpanSizeLookup(int[] sizes) {
+            mSizes = sizes;
+        }
+
+        @Override
+        public int getSpanSize(int position) {
+            return mSizes[position];
+        }
+    }
+}